@@ -0,0 +1,66 @@
+package com.dev.mxd.benchmark;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.dev.mxd.exception.NotFoundException;
+import com.dev.mxd.model.Book;
+import com.dev.mxd.service.BookService;
+
+// Mide BookService.getBookByIsbn sobre catálogos de distinto tamaño,
+// con aciertos, fallos (NotFoundException) y con todos los núcleos leyendo.
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BookServiceBenchmark {
+
+    // Cantidad de libros en el catálogo
+    @Param({Fixtures.SIZE_1K, Fixtures.SIZE_100K, Fixtures.SIZE_1M, Fixtures.SIZE_10M})
+    public int catalogSize;
+
+    private BookService books;
+
+    @Setup
+    public void setUp() {
+        books = Fixtures.catalog(catalogSize);
+    }
+
+    // Búsqueda de un ISBN existente elegido al azar
+    @Benchmark
+    public Book getBookByIsbnHit() {
+        return books.getBookByIsbn(Fixtures.isbn(ThreadLocalRandom.current().nextInt(catalogSize)));
+    }
+
+    // Búsqueda de un ISBN que no existe: incluye el costo de la excepción
+    @Benchmark
+    public Object getBookByIsbnMiss() {
+        try {
+            return books.getBookByIsbn(Fixtures.isbn(catalogSize + ThreadLocalRandom.current().nextInt(catalogSize)));
+        } catch (NotFoundException e) {
+            return e;
+        }
+    }
+
+    // Igual que getBookByIsbnHit pero con un hilo por núcleo
+    @Benchmark
+    @Threads(Threads.MAX)
+    public Book getBookByIsbnHitAllThreads() {
+        return getBookByIsbnHit();
+    }
+}
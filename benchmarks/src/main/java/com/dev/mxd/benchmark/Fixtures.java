@@ -0,0 +1,47 @@
+package com.dev.mxd.benchmark;
+
+import com.dev.mxd.service.BookService;
+import com.dev.mxd.service.UserService;
+
+// Datos sintéticos compartidos por los benchmarks.
+// Los ISBN y los IDs se generan a partir de un índice para poder
+// elegir claves existentes (o inexistentes) sin guardar listas aparte.
+final class Fixtures {
+
+    // Tamaños de colección usados en los @Param: de mil a diez millones
+    static final String SIZE_1K = "1000";
+    static final String SIZE_100K = "100000";
+    static final String SIZE_1M = "1000000";
+    static final String SIZE_10M = "10000000";
+
+    private Fixtures() {
+    }
+
+    // ISBN sintético del libro número i
+    static String isbn(int i) {
+        return "978-" + i;
+    }
+
+    // ID sintético del usuario número i
+    static String userId(int i) {
+        return "u-" + i;
+    }
+
+    // Crea un catálogo con "size" libros
+    static BookService catalog(int size) {
+        var books = new BookService();
+        for (int i = 0; i < size; i++) {
+            books.addBook(isbn(i), "Titulo " + i, "Autor " + (i % 10_000));
+        }
+        return books;
+    }
+
+    // Crea un padrón con "size" usuarios
+    static UserService members(int size) {
+        var users = new UserService();
+        for (int i = 0; i < size; i++) {
+            users.addUser(userId(i), "Usuario " + i, "usuario" + i + "@biblioteca.org");
+        }
+        return users;
+    }
+}
@@ -0,0 +1,96 @@
+package com.dev.mxd.benchmark;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.dev.mxd.exception.NotFoundException;
+import com.dev.mxd.service.LoanService;
+
+// Mide LoanService.addLoan y returnBook con catálogos y padrones de distinto
+// tamaño y con un historial previo de préstamos ya devueltos.
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LoanServiceBenchmark {
+
+    // Cantidad de libros y de usuarios
+    @Param({Fixtures.SIZE_1K, Fixtures.SIZE_100K, Fixtures.SIZE_1M, Fixtures.SIZE_10M})
+    public int size;
+
+    // Préstamos FINISHED cargados antes de medir
+    @Param({"0", Fixtures.SIZE_1M})
+    public int history;
+
+    private LoanService loans;
+
+    @Setup
+    public void setUp() {
+        loans = new LoanService(Fixtures.catalog(size), Fixtures.members(size));
+        for (int i = 0; i < history; i++) {
+            var isbn = Fixtures.isbn(i % size);
+            var id = Fixtures.userId(i % size);
+            loans.addLoan(id, isbn);
+            loans.returnBook(id, isbn);
+        }
+    }
+
+    // Cada medición crea préstamos terminados; antes de cada iteración se
+    // descartan los que exceden el historial inicial, así todas empiezan con
+    // el mismo tamaño y el resultado no depende de cuánto dura la corrida.
+    @Setup(Level.Iteration)
+    public void trimHistory() {
+        loans.evict(loans.archivableLoans(history));
+    }
+
+    // Presta y devuelve un libro al azar. Si otro hilo tiene ese libro
+    // prestado en ese instante, se mide el camino de rechazo.
+    @Benchmark
+    public Object addLoanAndReturnBook() {
+        var random = ThreadLocalRandom.current();
+        var isbn = Fixtures.isbn(random.nextInt(size));
+        var id = Fixtures.userId(random.nextInt(size));
+        try {
+            loans.addLoan(id, isbn);
+            loans.returnBook(id, isbn);
+            return isbn;
+        } catch (NotFoundException e) {
+            return e;
+        }
+    }
+
+    // Igual que addLoanAndReturnBook pero con un hilo por núcleo
+    @Benchmark
+    @Threads(Threads.MAX)
+    public Object addLoanAndReturnBookAllThreads() {
+        return addLoanAndReturnBook();
+    }
+
+    // Devolución de un libro que el usuario no tiene prestado
+    @Benchmark
+    public Object returnBookMiss() {
+        var random = ThreadLocalRandom.current();
+        try {
+            loans.returnBook(Fixtures.userId(random.nextInt(size)), Fixtures.isbn(random.nextInt(size)));
+            return null;
+        } catch (NotFoundException e) {
+            return e;
+        }
+    }
+}
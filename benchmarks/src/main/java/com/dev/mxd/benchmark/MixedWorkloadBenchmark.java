@@ -0,0 +1,111 @@
+package com.dev.mxd.benchmark;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.dev.mxd.exception.NotFoundException;
+import com.dev.mxd.model.Book;
+import com.dev.mxd.model.User;
+import com.dev.mxd.service.BookService;
+import com.dev.mxd.service.LoanService;
+import com.dev.mxd.service.UserService;
+
+// Carga mixta como la de un mostrador: varios hilos consultan libros y
+// usuarios mientras otros prestan y devuelven. JMH reporta cada rol por separado.
+@State(Scope.Group)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MixedWorkloadBenchmark {
+
+    // Cantidad de libros y de usuarios
+    @Param({Fixtures.SIZE_1K, Fixtures.SIZE_100K, Fixtures.SIZE_1M, Fixtures.SIZE_10M})
+    public int size;
+
+    private BookService books;
+    private UserService users;
+    private LoanService loans;
+
+    @Setup
+    public void setUp() {
+        books = Fixtures.catalog(size);
+        users = Fixtures.members(size);
+        loans = new LoanService(books, users);
+    }
+
+    // Descarta los préstamos terminados de la iteración anterior, así cada
+    // iteración empieza con el historial vacío
+    @Setup(Level.Iteration)
+    public void clearHistory() {
+        loans.evict(loans.archivableLoans(0));
+    }
+
+    // Mayoría de lecturas: 3 hilos buscan libros, 3 buscan usuarios...
+    @Benchmark
+    @Group("readMostly")
+    @GroupThreads(3)
+    public Book readMostlyBookLookup() {
+        return books.getBookByIsbn(Fixtures.isbn(ThreadLocalRandom.current().nextInt(size)));
+    }
+
+    @Benchmark
+    @Group("readMostly")
+    @GroupThreads(3)
+    public User readMostlyUserLookup() {
+        return users.getUserById(Fixtures.userId(ThreadLocalRandom.current().nextInt(size)));
+    }
+
+    // ...y 1 hilo presta y devuelve
+    @Benchmark
+    @Group("readMostly")
+    @GroupThreads(1)
+    public Object readMostlyLending() {
+        return lendAndReturn();
+    }
+
+    // 50% escrituras: 2 hilos buscan libros y 2 prestan y devuelven
+    @Benchmark
+    @Group("writeHeavy")
+    @GroupThreads(2)
+    public Book writeHeavyBookLookup() {
+        return books.getBookByIsbn(Fixtures.isbn(ThreadLocalRandom.current().nextInt(size)));
+    }
+
+    @Benchmark
+    @Group("writeHeavy")
+    @GroupThreads(2)
+    public Object writeHeavyLending() {
+        return lendAndReturn();
+    }
+
+    // Presta y devuelve un libro al azar; un choque con otro hilo cuenta como rechazo
+    private Object lendAndReturn() {
+        var random = ThreadLocalRandom.current();
+        var isbn = Fixtures.isbn(random.nextInt(size));
+        var id = Fixtures.userId(random.nextInt(size));
+        try {
+            loans.addLoan(id, isbn);
+            loans.returnBook(id, isbn);
+            return isbn;
+        } catch (NotFoundException e) {
+            return e;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.dev.mxd.benchmark;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.dev.mxd.exception.NotFoundException;
+import com.dev.mxd.model.User;
+import com.dev.mxd.service.UserService;
+
+// Mide UserService.getUserById sobre padrones de distinto tamaño,
+// con aciertos, fallos (NotFoundException) y con todos los núcleos leyendo.
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserServiceBenchmark {
+
+    // Cantidad de usuarios registrados
+    @Param({Fixtures.SIZE_1K, Fixtures.SIZE_100K, Fixtures.SIZE_1M, Fixtures.SIZE_10M})
+    public int userCount;
+
+    private UserService users;
+
+    @Setup
+    public void setUp() {
+        users = Fixtures.members(userCount);
+    }
+
+    // Búsqueda de un ID existente elegido al azar
+    @Benchmark
+    public User getUserByIdHit() {
+        return users.getUserById(Fixtures.userId(ThreadLocalRandom.current().nextInt(userCount)));
+    }
+
+    // Búsqueda de un ID que no existe: incluye el costo de la excepción
+    @Benchmark
+    public Object getUserByIdMiss() {
+        try {
+            return users.getUserById(Fixtures.userId(userCount + ThreadLocalRandom.current().nextInt(userCount)));
+        } catch (NotFoundException e) {
+            return e;
+        }
+    }
+
+    // Igual que getUserByIdHit pero con un hilo por núcleo
+    @Benchmark
+    @Threads(Threads.MAX)
+    public User getUserByIdHitAllThreads() {
+        return getUserByIdHit();
+    }
+}
@@ -0,0 +1,375 @@
+package com.dev.mxd.async;
+
+import java.io.Closeable;
+import java.io.Reader;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import com.dev.mxd.bulk.ImportReport;
+import com.dev.mxd.model.Book;
+import com.dev.mxd.model.Loan;
+import com.dev.mxd.model.User;
+import com.dev.mxd.search.SearchMode;
+import com.dev.mxd.service.BookService;
+import com.dev.mxd.service.LoanAnalytics;
+import com.dev.mxd.service.LoanOutcome;
+import com.dev.mxd.service.LoanService;
+import com.dev.mxd.service.LoanStatus;
+import com.dev.mxd.service.Page;
+import com.dev.mxd.service.UserService;
+
+// Versión asíncrona de los tres servicios: cada operación corre en su propio
+// hilo virtual y devuelve un CompletableFuture. Un hilo virtual bloqueado (por
+// ejemplo esperando al journal) no ocupa un hilo del sistema, así puede haber
+// decenas de miles de pedidos en curso sin ajustar pools.
+// Un semáforo limita cuántas operaciones corren a la vez; las demás esperan su
+// turno sin ocupar hilos del sistema. Cada llamada tiene un tiempo máximo que
+// incluye la espera: si se pasa, el futuro falla con TimeoutException.
+// La tarea nunca se interrumpe: un hilo interrumpido mientras escribe en el
+// FileJournal cierra el archivo (ClosedByInterruptException) y deja el journal
+// inutilizable. Por eso un TimeoutException no dice si el cambio se aplicó: si
+// la operación ya había empezado, termina igual y queda registrada. Solo las
+// que vencen esperando su turno no llegan a correr. Ante la duda, consultar el
+// estado (por ejemplo con findBookByIsbn) antes de reintentar.
+// Los errores de los servicios (IllegalArgumentException, NotFoundException,
+// IOException) llegan como causa del futuro fallido.
+// Los streams de los servicios (streamBooks, streamUsers, streamLoans) se
+// recorren con forEachBook, forEachUser y forEachLoan: el recorrido corre en el
+// hilo de la operación, no en el de quien consume el stream. Lo que usa la
+// persistencia (freezeBooks, restoreLoan, archivableLoans, evict) no tiene
+// versión asíncrona: LibraryStore lo llama con sus propios candados.
+public class AsyncLibrary implements Closeable {
+
+    // Operaciones en curso a la vez si no se indica otra cantidad
+    public static final int DEFAULT_MAX_CONCURRENCY = 10_000;
+    // Tiempo máximo de cada llamada si no se indica otro
+    public static final Duration DEFAULT_TIMEOUT = Duration.ofSeconds(30);
+
+    private final BookService bookService;
+    private final UserService userService;
+    private final LoanService loanService;
+    private final ExecutorService executor;
+    private final Semaphore permits;
+    private final Duration timeout;
+
+    public AsyncLibrary(BookService bookService, UserService userService, LoanService loanService) {
+        this(bookService, userService, loanService, DEFAULT_MAX_CONCURRENCY, DEFAULT_TIMEOUT);
+    }
+
+    public AsyncLibrary(BookService bookService, UserService userService, LoanService loanService,
+                        int maxConcurrency, Duration timeout) {
+        this(bookService, userService, loanService, Executors.newVirtualThreadPerTaskExecutor(),
+                permits(maxConcurrency), timeout);
+    }
+
+    private AsyncLibrary(BookService bookService, UserService userService, LoanService loanService,
+                         ExecutorService executor, Semaphore permits, Duration timeout) {
+        if (bookService == null || userService == null || loanService == null || timeout == null) {
+            throw new IllegalArgumentException("Los parámetros no pueden ser nulos");
+        }
+        if (timeout.isNegative() || timeout.isZero()) {
+            throw new IllegalArgumentException("El tiempo máximo debe ser positivo");
+        }
+        this.bookService = bookService;
+        this.userService = userService;
+        this.loanService = loanService;
+        this.executor = executor;
+        this.permits = permits;
+        this.timeout = timeout;
+    }
+
+    // Vista que comparte hilos y límite de concurrencia pero usa otro tiempo
+    // máximo por llamada (por ejemplo, más largo para una importación).
+    // Cerrar cualquiera de las dos cierra los hilos de ambas.
+    public AsyncLibrary withTimeout(Duration timeout) {
+        return new AsyncLibrary(bookService, userService, loanService, executor, permits, timeout);
+    }
+
+    // --- Libros ---
+
+    public CompletableFuture<Void> addBook(String isbn, String title, String author) {
+        return run(() -> bookService.addBook(isbn, title, author));
+    }
+
+    public CompletableFuture<ImportReport> importBooks(Path file) {
+        return call(() -> bookService.importBooks(file));
+    }
+
+    // El origen se lee desde el hilo de la operación: no cerrarlo hasta que el futuro termine
+    public CompletableFuture<ImportReport> importBooks(Reader source) {
+        return call(() -> bookService.importBooks(source));
+    }
+
+    public CompletableFuture<Book> getBookByIsbn(String isbn) {
+        return call(() -> bookService.getBookByIsbn(isbn));
+    }
+
+    public CompletableFuture<Optional<Book>> findBookByIsbn(String isbn) {
+        return call(() -> bookService.findBookByIsbn(isbn));
+    }
+
+    public CompletableFuture<List<Book>> getAllBooks() {
+        return call(bookService::getAllBooks);
+    }
+
+    public CompletableFuture<Page<Book>> getBooks(long cursor, int limit) {
+        return call(() -> bookService.getBooks(cursor, limit));
+    }
+
+    // Pasa cada libro a "action" desde el hilo de la operación (ver streamBooks).
+    // El tiempo máximo cuenta para todo el recorrido.
+    public CompletableFuture<Void> forEachBook(Consumer<? super Book> action) {
+        return run(() -> forEach(bookService.streamBooks(), action));
+    }
+
+    public CompletableFuture<Void> deleteBook(String isbn) {
+        return run(() -> bookService.deleteBook(isbn));
+    }
+
+    public CompletableFuture<List<Book>> searchBooks(String query) {
+        return call(() -> bookService.searchBooks(query));
+    }
+
+    public CompletableFuture<List<Book>> searchBooks(String query, SearchMode mode) {
+        return call(() -> bookService.searchBooks(query, mode));
+    }
+
+    public CompletableFuture<List<String>> autocomplete(String prefix, int limit) {
+        return call(() -> bookService.autocomplete(prefix, limit));
+    }
+
+    // --- Usuarios ---
+
+    public CompletableFuture<Void> addUser(String id, String name, String email) {
+        return run(() -> userService.addUser(id, name, email));
+    }
+
+    public CompletableFuture<Void> addUser(String id, String name, String email, LocalDate registerDate) {
+        return run(() -> userService.addUser(id, name, email, registerDate));
+    }
+
+    public CompletableFuture<ImportReport> importUsers(Path file) {
+        return call(() -> userService.importUsers(file));
+    }
+
+    // El origen se lee desde el hilo de la operación: no cerrarlo hasta que el futuro termine
+    public CompletableFuture<ImportReport> importUsers(Reader source) {
+        return call(() -> userService.importUsers(source));
+    }
+
+    public CompletableFuture<User> getUserById(String id) {
+        return call(() -> userService.getUserById(id));
+    }
+
+    public CompletableFuture<Optional<User>> findUserById(String id) {
+        return call(() -> userService.findUserById(id));
+    }
+
+    public CompletableFuture<Optional<User>> findUserByEmail(String email) {
+        return call(() -> userService.findUserByEmail(email));
+    }
+
+    public CompletableFuture<List<User>> getAllUsers() {
+        return call(userService::getAllUsers);
+    }
+
+    public CompletableFuture<Page<User>> getUsers(long cursor, int limit) {
+        return call(() -> userService.getUsers(cursor, limit));
+    }
+
+    // Pasa cada usuario a "action" desde el hilo de la operación (ver streamUsers)
+    public CompletableFuture<Void> forEachUser(Consumer<? super User> action) {
+        return run(() -> forEach(userService.streamUsers(), action));
+    }
+
+    public CompletableFuture<Void> updateUserEmail(String id, String email) {
+        return run(() -> userService.updateUserEmail(id, email));
+    }
+
+    public CompletableFuture<Void> updateUserName(String id, String name) {
+        return run(() -> userService.updateUserName(id, name));
+    }
+
+    public CompletableFuture<Void> deleteUser(String id) {
+        return run(() -> userService.deleteUser(id));
+    }
+
+    // --- Préstamos ---
+
+    public CompletableFuture<Void> addLoan(String id, String isbn) {
+        return run(() -> loanService.addLoan(id, isbn));
+    }
+
+    public CompletableFuture<Void> addLoan(String id, String isbn, LocalDate loanDate) {
+        return run(() -> loanService.addLoan(id, isbn, loanDate));
+    }
+
+    public CompletableFuture<Void> addLoan(String id, String isbn, LocalDate loanDate, LocalDate dueDate) {
+        return run(() -> loanService.addLoan(id, isbn, loanDate, dueDate));
+    }
+
+    public CompletableFuture<LoanStatus> tryAddLoan(String id, String isbn) {
+        return call(() -> loanService.tryAddLoan(id, isbn));
+    }
+
+    public CompletableFuture<LoanStatus> tryAddLoan(String id, String isbn, LocalDate loanDate) {
+        return call(() -> loanService.tryAddLoan(id, isbn, loanDate));
+    }
+
+    public CompletableFuture<List<LoanOutcome>> addLoans(String id, List<String> isbns) {
+        return call(() -> loanService.addLoans(id, isbns));
+    }
+
+    public CompletableFuture<Void> returnBook(String id, String isbn) {
+        return run(() -> loanService.returnBook(id, isbn));
+    }
+
+    public CompletableFuture<Void> returnBook(String id, String isbn, LocalDate returnDate) {
+        return run(() -> loanService.returnBook(id, isbn, returnDate));
+    }
+
+    public CompletableFuture<Boolean> tryReturnBook(String id, String isbn) {
+        return call(() -> loanService.tryReturnBook(id, isbn));
+    }
+
+    public CompletableFuture<List<LoanOutcome>> returnBooks(String id, List<String> isbns) {
+        return call(() -> loanService.returnBooks(id, isbns));
+    }
+
+    public CompletableFuture<List<Loan>> getLoans() {
+        return call(loanService::getLoans);
+    }
+
+    public CompletableFuture<Page<Loan>> getLoans(long cursor, int limit) {
+        return call(() -> loanService.getLoans(cursor, limit));
+    }
+
+    // Pasa cada préstamo a "action" desde el hilo de la operación (ver streamLoans)
+    public CompletableFuture<Void> forEachLoan(Consumer<? super Loan> action) {
+        return run(() -> forEach(loanService.streamLoans(), action));
+    }
+
+    public CompletableFuture<LocalDate> getLoanDate() {
+        return call(loanService::getLoanDate);
+    }
+
+    public CompletableFuture<List<Loan>> getRecentLoansBetween(LocalDate from, LocalDate to) {
+        return call(() -> loanService.getRecentLoansBetween(from, to));
+    }
+
+    public CompletableFuture<List<Loan>> getLoansOlderThan(int days) {
+        return call(() -> loanService.getLoansOlderThan(days));
+    }
+
+    public CompletableFuture<NavigableMap<LocalDate, Integer>> countRecentLoansByDay(LocalDate from, LocalDate to) {
+        return call(() -> loanService.countRecentLoansByDay(from, to));
+    }
+
+    public CompletableFuture<Integer> countRecentLoansOn(LocalDate day) {
+        return call(() -> loanService.countRecentLoansOn(day));
+    }
+
+    public CompletableFuture<List<Loan>> checkOverdue() {
+        return call(loanService::checkOverdue);
+    }
+
+    public CompletableFuture<List<Loan>> checkOverdue(LocalDate today) {
+        return call(() -> loanService.checkOverdue(today));
+    }
+
+    public CompletableFuture<List<Loan>> getOverdueLoans() {
+        return call(loanService::getOverdueLoans);
+    }
+
+    public CompletableFuture<LoanAnalytics> recentAnalytics() {
+        return call(loanService::recentAnalytics);
+    }
+
+    // Deja de aceptar operaciones y espera hasta el tiempo máximo a que terminen
+    // las que están en curso. Las que no terminan a tiempo siguen corriendo
+    // hasta el final: tampoco se interrumpen al cerrar.
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Operación sin resultado, para las que devuelven void
+    private CompletableFuture<Void> run(Action action) {
+        return call(() -> {
+            action.run();
+            return null;
+        });
+    }
+
+    // Corre la operación en un hilo virtual, con el límite de concurrencia y el
+    // tiempo máximo. Vencido el tiempo solo se completa el futuro; si la
+    // operación todavía no había conseguido su turno, ya no corre.
+    private <T> CompletableFuture<T> call(Callable<T> operation) {
+        var result = new CompletableFuture<T>();
+        try {
+            executor.execute(() -> {
+                try {
+                    permits.acquire();
+                } catch (InterruptedException e) {
+                    result.completeExceptionally(e);
+                    return;
+                }
+                try {
+                    if (result.isDone()) {
+                        return;
+                    }
+                    result.complete(operation.call());
+                } catch (Throwable e) {
+                    result.completeExceptionally(e);
+                } finally {
+                    permits.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            result.completeExceptionally(e);
+            return result;
+        }
+        return result.orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    // Recorre el stream y lo cierra al terminar
+    private static <T> void forEach(Stream<T> items, Consumer<? super T> action) {
+        if (action == null) {
+            throw new IllegalArgumentException("La acción no puede ser nula");
+        }
+        try (items) {
+            items.forEach(action);
+        }
+    }
+
+    private static Semaphore permits(int maxConcurrency) {
+        if (maxConcurrency <= 0) {
+            throw new IllegalArgumentException("La concurrencia máxima debe ser positiva");
+        }
+        return new Semaphore(maxConcurrency);
+    }
+
+    // Operación de un servicio que no devuelve nada y puede lanzar excepciones
+    @FunctionalInterface
+    private interface Action {
+        void run() throws Exception;
+    }
+}
@@ -0,0 +1,169 @@
+package com.dev.mxd.bulk;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+// Lee un archivo CSV o TSV fila por fila, sin cargarlo entero en memoria.
+// El separador se detecta en la primera línea: tabulador si aparece, si no coma.
+// En CSV los campos pueden ir entre comillas (con "" para una comilla y saltos
+// de línea adentro). Las líneas vacías se ignoran.
+// Separar los campos de cada fila se deja para después (Row.fields), así esa
+// parte puede hacerse en paralelo.
+public final class DelimitedReader implements Closeable {
+
+    private final BufferedReader in;
+    // Separador detectado (0 hasta leer la primera línea)
+    private char delimiter;
+    // Número de la última línea física leída
+    private long lineNumber;
+    // Fila leída por adelantado en skipHeader
+    private Row peeked;
+
+    public DelimitedReader(Reader reader) {
+        if (reader == null) {
+            throw new IllegalArgumentException("El reader no puede ser nulo");
+        }
+        this.in = reader instanceof BufferedReader buffered ? buffered : new BufferedReader(reader, 1 << 16);
+    }
+
+    // Abre el archivo como UTF-8
+    public static DelimitedReader open(Path file) throws IOException {
+        if (file == null) {
+            throw new IllegalArgumentException("El archivo no puede ser nulo");
+        }
+        return new DelimitedReader(Files.newBufferedReader(file, StandardCharsets.UTF_8));
+    }
+
+    // Si la primera fila tiene exactamente estos nombres de columna (sin distinguir
+    // mayúsculas), la descarta como encabezado. Devuelve si la descartó.
+    public boolean skipHeader(String... names) throws IOException {
+        var first = next();
+        if (first == null) {
+            return false;
+        }
+        var fields = first.fields();
+        boolean header = fields.size() == names.length;
+        for (int i = 0; header && i < names.length; i++) {
+            header = fields.get(i).trim().equalsIgnoreCase(names[i]);
+        }
+        if (!header) {
+            peeked = first;
+        }
+        return header;
+    }
+
+    // Devuelve la próxima fila, o null al llegar al final
+    public Row next() throws IOException {
+        if (peeked != null) {
+            var row = peeked;
+            peeked = null;
+            return row;
+        }
+        String line;
+        do {
+            line = in.readLine();
+            if (line == null) {
+                return null;
+            }
+            lineNumber++;
+        } while (line.isBlank());
+        if (lineNumber == 1 && line.charAt(0) == '\uFEFF') {
+            // BOM de UTF-8 al principio del archivo
+            line = line.substring(1);
+        }
+        if (delimiter == 0) {
+            delimiter = line.indexOf('\t') >= 0 ? '\t' : ',';
+        }
+        long start = lineNumber;
+        if (delimiter == ',' && hasOpenQuote(line)) {
+            // Un campo entre comillas sigue en las líneas siguientes
+            var text = new StringBuilder(line);
+            String more;
+            while ((more = in.readLine()) != null) {
+                lineNumber++;
+                text.append('\n').append(more);
+                if (!hasOpenQuote(text)) {
+                    break;
+                }
+            }
+            line = text.toString();
+        }
+        return new Row(start, line, delimiter);
+    }
+
+    // Lee hasta "max" filas; la lista viene vacía al llegar al final
+    public List<Row> next(int max) throws IOException {
+        var rows = new ArrayList<Row>(Math.min(max, 1024));
+        Row row;
+        while (rows.size() < max && (row = next()) != null) {
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    // Con una cantidad impar de comillas queda un campo abierto
+    private static boolean hasOpenQuote(CharSequence text) {
+        int quotes = 0;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == '"') {
+                quotes++;
+            }
+        }
+        return quotes % 2 != 0;
+    }
+
+    // Una fila del archivo: línea donde empieza, texto completo y separador
+    public record Row(long line, String text, char delimiter) {
+
+        // Separa los campos de la fila
+        public List<String> fields() {
+            var fields = new ArrayList<String>();
+            if (delimiter != ',') {
+                int from = 0;
+                int to;
+                while ((to = text.indexOf(delimiter, from)) >= 0) {
+                    fields.add(text.substring(from, to));
+                    from = to + 1;
+                }
+                fields.add(text.substring(from));
+                return fields;
+            }
+            var field = new StringBuilder();
+            boolean quoted = false;
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                if (quoted) {
+                    if (c == '"' && i + 1 < text.length() && text.charAt(i + 1) == '"') {
+                        field.append('"');
+                        i++;
+                    } else if (c == '"') {
+                        quoted = false;
+                    } else {
+                        field.append(c);
+                    }
+                } else if (c == '"') {
+                    quoted = true;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else {
+                    field.append(c);
+                }
+            }
+            fields.add(field.toString());
+            return fields;
+        }
+    }
+}
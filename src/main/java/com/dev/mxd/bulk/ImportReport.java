@@ -0,0 +1,19 @@
+package com.dev.mxd.bulk;
+
+import java.util.List;
+
+// Resultado de una importación masiva: cuántas filas se cargaron y cuáles se
+// rechazaron, en el orden del archivo
+public record ImportReport(int imported, List<RejectedRow> rejected) {
+
+    public ImportReport {
+        if (rejected == null) {
+            throw new IllegalArgumentException("Los parámetros no pueden ser nulos");
+        }
+        rejected = List.copyOf(rejected);
+    }
+
+    public boolean hasRejections() {
+        return !rejected.isEmpty();
+    }
+}
@@ -0,0 +1,85 @@
+package com.dev.mxd.bulk;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+// Valida las filas de un archivo en paralelo sin cargarlo entero en memoria.
+// Un solo hilo lee bloques de filas; cada bloque se separa en campos y se valida
+// en el pool común mientras se leen los siguientes. Los resultados se entregan
+// al consumidor en el orden del archivo y desde el hilo que llamó, así el
+// consumidor puede deduplicar o acumular sin sincronizar.
+// Como máximo hay unos pocos bloques por procesador en vuelo: la memoria no
+// depende del tamaño del archivo.
+public final class ParallelParser {
+
+    // Filas por bloque
+    static final int CHUNK_ROWS = 4096;
+
+    private ParallelParser() {
+    }
+
+    // "parser" convierte una fila; si la fila es inválida lanza
+    // IllegalArgumentException y el mensaje queda como motivo del rechazo (si no
+    // tiene mensaje, o si el parser devuelve null, la fila se rechaza igual).
+    // Se llama desde varios hilos a la vez.
+    public static <T> void parse(DelimitedReader reader, Function<DelimitedReader.Row, T> parser,
+                                 Consumer<ParsedRow<T>> sink) throws IOException {
+        if (reader == null || parser == null || sink == null) {
+            throw new IllegalArgumentException("Los parámetros no pueden ser nulos");
+        }
+        var pool = ForkJoinPool.commonPool();
+        int maxInFlight = Math.max(2, pool.getParallelism() * 2);
+        var inFlight = new ArrayDeque<CompletableFuture<List<ParsedRow<T>>>>();
+        try {
+            List<DelimitedReader.Row> chunk;
+            while (!(chunk = reader.next(CHUNK_ROWS)).isEmpty()) {
+                var rows = chunk;
+                inFlight.add(CompletableFuture.supplyAsync(() -> parseChunk(rows, parser), pool));
+                if (inFlight.size() >= maxInFlight) {
+                    deliver(inFlight.poll(), sink);
+                }
+            }
+            while (!inFlight.isEmpty()) {
+                deliver(inFlight.poll(), sink);
+            }
+        } finally {
+            // Si algo falló, los bloques pendientes ya no se usan
+            inFlight.forEach(future -> future.cancel(false));
+        }
+    }
+
+    private static <T> List<ParsedRow<T>> parseChunk(List<DelimitedReader.Row> rows,
+                                                     Function<DelimitedReader.Row, T> parser) {
+        var parsed = new ArrayList<ParsedRow<T>>(rows.size());
+        for (var row : rows) {
+            try {
+                var value = parser.apply(row);
+                parsed.add(value != null ? ParsedRow.valid(row.line(), value) : ParsedRow.invalid(row.line(), null));
+            } catch (IllegalArgumentException e) {
+                parsed.add(ParsedRow.invalid(row.line(), e.getMessage()));
+            }
+        }
+        return parsed;
+    }
+
+    private static <T> void deliver(CompletableFuture<List<ParsedRow<T>>> future, Consumer<ParsedRow<T>> sink) {
+        List<ParsedRow<T>> rows;
+        try {
+            rows = future.join();
+        } catch (CompletionException e) {
+            // Un error que no es de validación se relanza tal cual
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+        rows.forEach(sink);
+    }
+}
@@ -0,0 +1,27 @@
+package com.dev.mxd.bulk;
+
+// Una fila ya validada: trae el valor convertido o, si era inválida, el motivo.
+// La validez se guarda aparte: no depende de que haya un mensaje de error.
+public record ParsedRow<T>(long line, T value, String error, boolean isValid) {
+
+    // Motivo que se informa cuando la validación no dio uno
+    static final String UNKNOWN_ERROR = "Fila inválida";
+
+    public ParsedRow {
+        if (isValid ? value == null : error == null) {
+            throw new IllegalArgumentException(isValid
+                    ? "Una fila válida necesita un valor"
+                    : "Una fila inválida necesita un motivo");
+        }
+    }
+
+    // Fila que se pudo convertir
+    public static <T> ParsedRow<T> valid(long line, T value) {
+        return new ParsedRow<>(line, value, null, true);
+    }
+
+    // Fila rechazada; si no hay motivo se usa uno genérico
+    public static <T> ParsedRow<T> invalid(long line, String error) {
+        return new ParsedRow<>(line, null, error != null ? error : UNKNOWN_ERROR, false);
+    }
+}
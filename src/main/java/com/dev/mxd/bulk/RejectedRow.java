@@ -0,0 +1,5 @@
+package com.dev.mxd.bulk;
+
+// Fila de un archivo de importación que no se cargó y el motivo
+public record RejectedRow(long line, String reason) {
+}
@@ -0,0 +1,32 @@
+package com.dev.mxd.events;
+
+import java.time.LocalDate;
+
+// Cambio de estado de los servicios, tal como se publica a los suscriptores
+// de LibraryEvents. Hay un tipo por operación que cambia algo.
+public sealed interface LibraryEvent {
+
+    record BookAdded(String isbn, String title, String author) implements LibraryEvent {
+    }
+
+    record BookDeleted(String isbn) implements LibraryEvent {
+    }
+
+    record UserAdded(String id, String name, String email, LocalDate registerDate) implements LibraryEvent {
+    }
+
+    record UserEmailChanged(String id, String email) implements LibraryEvent {
+    }
+
+    record UserNameChanged(String id, String name) implements LibraryEvent {
+    }
+
+    record UserDeleted(String id) implements LibraryEvent {
+    }
+
+    record LoanStarted(String userId, String isbn, LocalDate loanDate, LocalDate dueDate) implements LibraryEvent {
+    }
+
+    record BookReturned(String userId, String isbn, LocalDate returnDate) implements LibraryEvent {
+    }
+}
@@ -0,0 +1,149 @@
+package com.dev.mxd.events;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.dev.mxd.persistence.Journal;
+import com.dev.mxd.persistence.Operation;
+
+// Publica cada cambio de los servicios como un LibraryEvent a través de
+// java.util.concurrent.Flow, para no tener que consultar getLoans() a cada rato.
+// Se conecta como Journal: los servicios se construyen con este objeto, que pasa
+// cada operación al journal real y publica el evento después de aplicarla.
+// Solo hay eventos de los servicios construidos con este objeto: un
+// new LoanService(books, users) o uno con el FileJournal directo no publica
+// nada. LibraryStore ya arma los tres servicios así (ver LibraryStore.events).
+// Cada suscriptor tiene su propio buffer acotado y pide eventos con request
+// (contrapresión). Si un suscriptor lento llena su buffer, por defecto los
+// eventos nuevos para él se descartan enseguida y se cuentan en droppedEvents:
+// publicar no bloquea a quien presta o devuelve un libro. Con "maxWait" se
+// espera hasta ese tiempo a que el suscriptor haga lugar antes de descartar;
+// mientras tanto la operación que publicó sigue con sus candados tomados, así
+// que un suscriptor lento frena a las demás escrituras. Los suscriptores
+// corren en hilos virtuales.
+public class LibraryEvents implements Journal, Flow.Publisher<LibraryEvent>, AutoCloseable {
+
+    // Eventos que puede acumular cada suscriptor si no se indica otra cantidad
+    public static final int DEFAULT_BUFFER = 1024;
+
+    private final Journal delegate;
+    // Hilos de los suscriptores; se cierran junto con el publicador
+    private final ExecutorService executor;
+    private final SubmissionPublisher<LibraryEvent> publisher;
+    // Cuánto se espera a un suscriptor con el buffer lleno antes de descartar
+    private final Duration maxWait;
+    private final LongAdder dropped = new LongAdder();
+
+    // Eventos de servicios en memoria, sin journal
+    public LibraryEvents() {
+        this(Journal.NONE, DEFAULT_BUFFER);
+    }
+
+    public LibraryEvents(Journal delegate) {
+        this(delegate, DEFAULT_BUFFER);
+    }
+
+    public LibraryEvents(Journal delegate, int bufferCapacity) {
+        this(delegate, bufferCapacity, Duration.ZERO);
+    }
+
+    // Igual que el anterior, esperando hasta "maxWait" a los suscriptores con el
+    // buffer lleno (Duration.ZERO descarta sin esperar)
+    public LibraryEvents(Journal delegate, int bufferCapacity, Duration maxWait) {
+        if (delegate == null || maxWait == null) {
+            throw new IllegalArgumentException("El journal y la espera no pueden ser nulos");
+        }
+        if (bufferCapacity <= 0) {
+            throw new IllegalArgumentException("El tamaño del buffer debe ser positivo");
+        }
+        if (maxWait.isNegative()) {
+            throw new IllegalArgumentException("La espera no puede ser negativa");
+        }
+        this.delegate = delegate;
+        this.maxWait = maxWait;
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+        this.publisher = new SubmissionPublisher<>(executor, bufferCapacity);
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super LibraryEvent> subscriber) {
+        publisher.subscribe(subscriber);
+    }
+
+    @Override
+    public void record(Operation operation, Runnable apply, String... args) {
+        delegate.record(operation, () -> {
+            apply.run();
+            publish(operation, args);
+        }, args);
+    }
+
+    @Override
+    public void recordBatch(Operation operation, Collection<String[]> batch, Runnable apply) {
+        delegate.recordBatch(operation, batch, () -> {
+            apply.run();
+            for (var args : batch) {
+                publish(operation, args);
+            }
+        });
+    }
+
+    // Eventos descartados porque el buffer de algún suscriptor estaba lleno
+    public long droppedEvents() {
+        return dropped.sum();
+    }
+
+    // Cantidad de suscriptores activos
+    public int subscribers() {
+        return publisher.getNumberOfSubscribers();
+    }
+
+    // Avisa a los suscriptores que no habrá más eventos (onComplete) y cierra
+    // sus hilos. Lo que los suscriptores ya pidieron se termina de entregar; lo
+    // que no pidieron antes de cerrar se pierde.
+    @Override
+    public void close() {
+        publisher.close();
+        executor.shutdown();
+    }
+
+    private void publish(Operation operation, String[] args) {
+        if (!publisher.hasSubscribers() || publisher.isClosed()) {
+            return;
+        }
+        var event = event(operation, args);
+        // Si el buffer de un suscriptor sigue lleno después de maxWait, el evento se descarta para él
+        if (maxWait.isZero()) {
+            publisher.offer(event, this::drop);
+        } else {
+            publisher.offer(event, maxWait.toNanos(), TimeUnit.NANOSECONDS, this::drop);
+        }
+    }
+
+    private boolean drop(Flow.Subscriber<? super LibraryEvent> subscriber, LibraryEvent event) {
+        dropped.increment();
+        return false;
+    }
+
+    private static LibraryEvent event(Operation operation, String[] args) {
+        return switch (operation) {
+            case ADD_BOOK -> new LibraryEvent.BookAdded(args[0], args[1], args[2]);
+            case DELETE_BOOK -> new LibraryEvent.BookDeleted(args[0]);
+            case ADD_USER -> new LibraryEvent.UserAdded(args[0], args[1], args[2], LocalDate.parse(args[3]));
+            case UPDATE_USER_EMAIL -> new LibraryEvent.UserEmailChanged(args[0], args[1]);
+            case UPDATE_USER_NAME -> new LibraryEvent.UserNameChanged(args[0], args[1]);
+            case DELETE_USER -> new LibraryEvent.UserDeleted(args[0]);
+            case ADD_LOAN -> new LibraryEvent.LoanStarted(args[0], args[1], LocalDate.parse(args[2]),
+                    LocalDate.parse(args[3]));
+            case RETURN_BOOK -> new LibraryEvent.BookReturned(args[0], args[1], LocalDate.parse(args[2]));
+            case BEGIN_BATCH -> throw new IllegalArgumentException("BEGIN_BATCH no es una operación de los servicios");
+        };
+    }
+}
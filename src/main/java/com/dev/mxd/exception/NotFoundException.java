@@ -2,10 +2,22 @@ package com.dev.mxd.exception;
 
 // Excepción personalizada que se lanza cuando no se encuentra un recurso.
 // Por ejemplo: un libro, usuario o préstamo inexistente en el sistema.
+// Llenar la traza de la pila es lo más caro de crear una excepción; con la
+// propiedad del sistema -Dcom.dev.mxd.notFound.stackTrace=false se omite en
+// todas, para cuando los fallos son frecuentes y la traza no se usa.
 public class NotFoundException extends RuntimeException{
 
+    // Si las excepciones nuevas llevan la traza de la pila (por defecto sí)
+    private static final boolean STACK_TRACE =
+            !"false".equalsIgnoreCase(System.getProperty("com.dev.mxd.notFound.stackTrace"));
+
 // Constructor que recibe un mensaje y lo envía a la clase padre 
     public NotFoundException(String message) {
-        super(message);
+        this(message, STACK_TRACE);
+    }
+
+    // Constructor que permite omitir la traza de la pila en esta excepción
+    public NotFoundException(String message, boolean stackTrace) {
+        super(message, null, true, stackTrace);
     }
 }
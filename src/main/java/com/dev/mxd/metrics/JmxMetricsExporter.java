@@ -0,0 +1,84 @@
+package com.dev.mxd.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+// Publica las métricas como un MXBean, para verlas con jconsole, VisualVM o
+// cualquier agente JMX. A diferencia del exportador de texto, JMX pide los
+// valores cuando los necesita: cada lectura de atributo saca una foto nueva.
+public class JmxMetricsExporter implements LibraryMetricsMXBean {
+
+    // Nombre con el que se registra si no se indica otro
+    public static final String DEFAULT_NAME = "com.dev.mxd:type=LibraryMetrics";
+
+    private final LibraryMetrics metrics;
+
+    public JmxMetricsExporter(LibraryMetrics metrics) {
+        if (metrics == null) {
+            throw new IllegalArgumentException("Las métricas no pueden ser nulas");
+        }
+        this.metrics = metrics;
+    }
+
+    // Registra las métricas en el servidor JMX de la plataforma con DEFAULT_NAME
+    public static ObjectName register(LibraryMetrics metrics) throws JMException {
+        return register(metrics, ManagementFactory.getPlatformMBeanServer(), new ObjectName(DEFAULT_NAME));
+    }
+
+    public static ObjectName register(LibraryMetrics metrics, MBeanServer server, ObjectName name)
+            throws JMException {
+        if (server == null || name == null) {
+            throw new IllegalArgumentException("Los parámetros no pueden ser nulos");
+        }
+        return server.registerMBean(new JmxMetricsExporter(metrics), name).getObjectName();
+    }
+
+    @Override
+    public Map<String, Long> getCalls() {
+        return collect(OperationStats::calls);
+    }
+
+    @Override
+    public Map<String, Long> getNotFound() {
+        return collect(OperationStats::notFound);
+    }
+
+    @Override
+    public Map<String, Long> getMeanNanos() {
+        return collect(stats -> Math.round(stats.latency().meanNanos()));
+    }
+
+    @Override
+    public Map<String, Long> getP50Nanos() {
+        return collect(stats -> stats.latency().percentile(50));
+    }
+
+    @Override
+    public Map<String, Long> getP99Nanos() {
+        return collect(stats -> stats.latency().percentile(99));
+    }
+
+    @Override
+    public Map<String, Long> getP999Nanos() {
+        return collect(stats -> stats.latency().percentile(99.9));
+    }
+
+    @Override
+    public Map<String, Long> getMaxNanos() {
+        return collect(stats -> stats.latency().maxNanos());
+    }
+
+    private Map<String, Long> collect(ToLongFunction<OperationStats> value) {
+        var values = new LinkedHashMap<String, Long>();
+        for (var stats : metrics.stats()) {
+            values.put(stats.operation().name(), value.applyAsLong(stats));
+        }
+        return values;
+    }
+}
@@ -0,0 +1,71 @@
+package com.dev.mxd.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// Histograma de latencias en nanosegundos, al estilo de HdrHistogram: cada
+// potencia de dos se reparte en SUB_BUCKETS casilleros iguales, así el error
+// relativo de cualquier percentil es menor al 3% sin importar la escala.
+// Registrar es sumar uno a un contador (LongAdder, que reparte la contención
+// entre hilos), sin candados ni memoria nueva.
+// Valores de más de MAX_VALUE (unos 36 minutos) se cuentan como MAX_VALUE.
+final class LatencyHistogram {
+
+    // Bits de precisión: el valor se guarda con sus SUB_BITS bits más altos
+    static final int SUB_BITS = 6;
+    static final int SUB_BUCKETS = 1 << (SUB_BITS - 1);
+    static final long MAX_VALUE = (1L << 41) - 1;
+    static final int BUCKETS = index(MAX_VALUE) + 1;
+
+    private final LongAdder[] counts = new LongAdder[BUCKETS];
+    private final LongAdder total = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    LatencyHistogram() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = new LongAdder();
+        }
+    }
+
+    // Registra una medición
+    void record(long nanos) {
+        long value = Math.min(Math.max(nanos, 0), MAX_VALUE);
+        counts[index(value)].increment();
+        total.add(value);
+        // El máximo solo se escribe cuando cambia, que es raro
+        long current = max.get();
+        while (value > current && !max.compareAndSet(current, value)) {
+            current = max.get();
+        }
+    }
+
+    // Copia de los contadores. Si hay registros en curso puede quedar alguno
+    // afuera, pero la copia es coherente consigo misma.
+    LatencySnapshot snapshot() {
+        var copy = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            copy[i] = counts[i].sum();
+        }
+        return new LatencySnapshot(copy, total.sum(), max.get());
+    }
+
+    // Casillero del valor: los chicos van uno por casillero y los demás según
+    // su exponente y sus bits más altos
+    static int index(long value) {
+        if (value < 2 * SUB_BUCKETS) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - (SUB_BITS - 1);
+        return shift * SUB_BUCKETS + (int) (value >>> shift);
+    }
+
+    // Mayor valor que cae en el casillero
+    static long highestValue(int index) {
+        if (index < 2 * SUB_BUCKETS) {
+            return index;
+        }
+        int shift = index / SUB_BUCKETS - 1;
+        long mantissa = index - (long) shift * SUB_BUCKETS;
+        return ((mantissa + 1) << shift) - 1;
+    }
+}
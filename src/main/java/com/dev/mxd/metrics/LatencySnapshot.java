@@ -0,0 +1,56 @@
+package com.dev.mxd.metrics;
+
+// Foto de un histograma de latencias, con percentiles en nanosegundos
+public final class LatencySnapshot {
+
+    private final long[] counts;
+    private final long count;
+    private final long totalNanos;
+    private final long maxNanos;
+
+    LatencySnapshot(long[] counts, long totalNanos, long maxNanos) {
+        this.counts = counts;
+        long count = 0;
+        for (long c : counts) {
+            count += c;
+        }
+        this.count = count;
+        this.totalNanos = totalNanos;
+        this.maxNanos = maxNanos;
+    }
+
+    // Cantidad de mediciones
+    public long count() {
+        return count;
+    }
+
+    // Latencia máxima registrada
+    public long maxNanos() {
+        return maxNanos;
+    }
+
+    // Latencia promedio, o 0 si no hay mediciones
+    public double meanNanos() {
+        return count == 0 ? 0 : (double) totalNanos / count;
+    }
+
+    // Latencia por debajo de la cual quedan el "percentile" por ciento de las
+    // mediciones (por ejemplo 99.9), con un error menor al 3%. 0 si no hay mediciones.
+    public long percentile(double percentile) {
+        if (percentile <= 0 || percentile > 100) {
+            throw new IllegalArgumentException("El percentil debe estar entre 0 y 100: " + percentile);
+        }
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(count * percentile / 100));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(LatencyHistogram.highestValue(i), maxNanos);
+            }
+        }
+        return maxNanos;
+    }
+}
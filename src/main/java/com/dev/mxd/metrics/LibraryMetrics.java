@@ -0,0 +1,88 @@
+package com.dev.mxd.metrics;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+// Métricas de los servicios: por cada operación, un contador de
+// NotFoundException y un histograma de latencias. Registrar cuesta una
+// lectura de System.nanoTime y un par de sumas sin candados, así puede quedar
+// activo en producción. Los servicios lo usan así:
+//   long start = metrics.start();
+//   ... si no encuentra lo pedido: metrics.notFound(operación)
+//   metrics.record(operación, start);
+// NONE no mide nada ni lee el reloj.
+public final class LibraryMetrics {
+
+    // Métricas apagadas, para los servicios que no las usan
+    public static final LibraryMetrics NONE = new LibraryMetrics(false);
+
+    private final boolean enabled;
+    private final LatencyHistogram[] latencies;
+    private final LongAdder[] notFound;
+
+    public LibraryMetrics() {
+        this(true);
+    }
+
+    private LibraryMetrics(boolean enabled) {
+        this.enabled = enabled;
+        int operations = enabled ? ServiceOperation.values().length : 0;
+        latencies = new LatencyHistogram[operations];
+        notFound = new LongAdder[operations];
+        for (int i = 0; i < operations; i++) {
+            latencies[i] = new LatencyHistogram();
+            notFound[i] = new LongAdder();
+        }
+    }
+
+    // Momento de inicio de una operación, para pasarlo a record
+    public long start() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    // Registra la duración de una operación que empezó en "start"
+    public void record(ServiceOperation operation, long start) {
+        if (enabled) {
+            latencies[operation.ordinal()].record(System.nanoTime() - start);
+        }
+    }
+
+    // Cuenta una operación que no encontró lo pedido (NotFoundException o resultado vacío)
+    public void notFound(ServiceOperation operation) {
+        if (enabled) {
+            notFound[operation.ordinal()].increment();
+        }
+    }
+
+    // Foto de una operación
+    public OperationStats stats(ServiceOperation operation) {
+        if (operation == null) {
+            throw new IllegalArgumentException("La operación no puede ser nula");
+        }
+        if (!enabled) {
+            return new OperationStats(operation, 0, 0,
+                    new LatencySnapshot(new long[LatencyHistogram.BUCKETS], 0, 0));
+        }
+        var latency = latencies[operation.ordinal()].snapshot();
+        return new OperationStats(operation, latency.count(), notFound[operation.ordinal()].sum(), latency);
+    }
+
+    // Foto de todas las operaciones, en el orden de ServiceOperation
+    public List<OperationStats> stats() {
+        var stats = new ArrayList<OperationStats>();
+        for (var operation : ServiceOperation.values()) {
+            stats.add(stats(operation));
+        }
+        return stats;
+    }
+
+    // Envía la foto actual al exportador
+    public void export(MetricsExporter exporter) throws IOException {
+        if (exporter == null) {
+            throw new IllegalArgumentException("El exportador no puede ser nulo");
+        }
+        exporter.export(stats());
+    }
+}
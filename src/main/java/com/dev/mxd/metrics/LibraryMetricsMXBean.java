@@ -0,0 +1,22 @@
+package com.dev.mxd.metrics;
+
+import java.util.Map;
+
+// Vista JMX de las métricas: cada atributo trae un valor por operación.
+// Las latencias van en nanosegundos.
+public interface LibraryMetricsMXBean {
+
+    Map<String, Long> getCalls();
+
+    Map<String, Long> getNotFound();
+
+    Map<String, Long> getMeanNanos();
+
+    Map<String, Long> getP50Nanos();
+
+    Map<String, Long> getP99Nanos();
+
+    Map<String, Long> getP999Nanos();
+
+    Map<String, Long> getMaxNanos();
+}
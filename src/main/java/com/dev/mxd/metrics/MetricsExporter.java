@@ -0,0 +1,11 @@
+package com.dev.mxd.metrics;
+
+import java.io.IOException;
+import java.util.List;
+
+// Destino de las métricas: recibe una foto de todas las operaciones
+@FunctionalInterface
+public interface MetricsExporter {
+
+    void export(List<OperationStats> stats) throws IOException;
+}
@@ -0,0 +1,7 @@
+package com.dev.mxd.metrics;
+
+// Contadores y latencias de una operación: cuántas veces se llamó, cuántas no
+// encontraron lo pedido (NotFoundException, o un resultado vacío en las
+// variantes find y try) y cuánto tardaron (todas, fallidas incluidas)
+public record OperationStats(ServiceOperation operation, long calls, long notFound, LatencySnapshot latency) {
+}
@@ -0,0 +1,10 @@
+package com.dev.mxd.metrics;
+
+// Operaciones de los servicios que se miden. Cada una incluye sus variantes
+// sin excepciones (findBookByIsbn, findUserById, tryAddLoan, tryReturnBook).
+public enum ServiceOperation {
+    GET_BOOK_BY_ISBN,
+    GET_USER_BY_ID,
+    ADD_LOAN,
+    RETURN_BOOK
+}
@@ -0,0 +1,43 @@
+package com.dev.mxd.metrics;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Locale;
+
+// Escribe las métricas como una tabla de texto, una línea por operación,
+// con las latencias en microsegundos. Sirve para logs o para la consola.
+public class TextMetricsExporter implements MetricsExporter {
+
+    private static final String HEADER = "%-18s %12s %10s %10s %10s %10s %10s %10s %10s%n";
+    private static final String ROW = "%-18s %12d %10d %10.1f %10.1f %10.1f %10.1f %10.1f %10.1f%n";
+
+    private final Appendable out;
+
+    public TextMetricsExporter(Appendable out) {
+        if (out == null) {
+            throw new IllegalArgumentException("La salida no puede ser nula");
+        }
+        this.out = out;
+    }
+
+    @Override
+    public void export(List<OperationStats> stats) throws IOException {
+        out.append(String.format(Locale.ROOT, HEADER,
+                "operation", "calls", "not_found", "mean_us", "p50_us", "p90_us", "p99_us", "p999_us", "max_us"));
+        for (var stat : stats) {
+            var latency = stat.latency();
+            out.append(String.format(Locale.ROOT, ROW, stat.operation().name().toLowerCase(Locale.ROOT),
+                    stat.calls(), stat.notFound(),
+                    latency.meanNanos() / 1000,
+                    micros(latency.percentile(50)),
+                    micros(latency.percentile(90)),
+                    micros(latency.percentile(99)),
+                    micros(latency.percentile(99.9)),
+                    micros(latency.maxNanos())));
+        }
+    }
+
+    private static double micros(long nanos) {
+        return nanos / 1000.0;
+    }
+}
@@ -6,11 +6,16 @@ import java.time.LocalDate; // Aquí indicamos en qué paquete está la clase, p
  * Guarda quién lo pidió, qué libro es, cuándo se lo llevó y en qué estado está el préstamo.
  */
 public class Loan {
+    // Días que dura un préstamo si no se indica la fecha de devolución
+    public static final int DEFAULT_LOAN_DAYS = 14;
 // Atributos privados para que nadie pueda cambiarlos desde fuera sin control
     private User user;// Usuario que pidió el préstamo
     private Book book;// Libro que fue prestado
     private LocalDate loanDate;// Fecha en la que se realizó el préstamo
-    private LoanState state;//// Estado actual del préstamo (ej: STARTED, FINISHED)
+    private LocalDate dueDate;// Último día para devolver el libro
+    // Estado y día de devolución juntos en un objeto que no cambia: quien lee sin
+    // candados (por ejemplo, los reportes) nunca ve uno actualizado sin el otro
+    private volatile Status status;
      /**
      * Constructor que recibe el usuario y el libro.
      * La fecha se pone automáticamente a "hoy" y el estado queda en STARTED.
@@ -30,10 +35,17 @@ public class Loan {
      * Permite indicar usuario, libro, fecha y estado directamente.
      */
     public Loan(User user, Book book, LocalDate loanDate, LoanState state) {
+        this(user, book, loanDate, loanDate == null ? null : loanDate.plusDays(DEFAULT_LOAN_DAYS), state);
+    }
+     /**
+     * Constructor que además indica el último día para devolver el libro.
+     */
+    public Loan(User user, Book book, LocalDate loanDate, LocalDate dueDate, LoanState state) {
         this.user = user;// Guardamos el usuario
         this.book = book;// Guardamos el libro
         this.loanDate = loanDate;// Guardamos la fecha
-        this.state = state;// Guardamos el estado
+        this.dueDate = dueDate;// Guardamos la fecha de devolución
+        this.status = new Status(state, null);// Guardamos el estado
     }
 
     // Métodos "get" para consultar los datos (no cambian nada)
@@ -50,14 +62,41 @@ public class Loan {
         return loanDate; // Devuelve la fecha del préstamo
     }
 
+    public LocalDate getDueDate() {
+        return dueDate; // Devuelve el último día para devolver el libro
+    }
+
+    public LocalDate getReturnDate() {
+        return status.returnDate(); // Devuelve el día en que se devolvió el libro (null si no se sabe o sigue prestado)
+    }
+
     public LoanState getState() {
-        return state; // Devuelve el estado del préstamo
+        return status.state(); // Devuelve el estado del préstamo (ej: STARTED, FINISHED)
+    }
+
+    public Status getStatus() {
+        return status; // Devuelve el estado y la devolución leídos de una sola vez
     }
 
      // Método "set" para cambiar el estado del préstamo
 
     public void setState(LoanState state) {
-        this.state = state; // Método "set" para cambiar el estado del préstamo
+        this.status = new Status(state, status.returnDate()); // Método "set" para cambiar el estado del préstamo
+    }
+
+    public void setReturnDate(LocalDate returnDate) {
+        this.status = new Status(status.state(), returnDate); // Guarda el día de la devolución
+    }
+
+    // Marca el préstamo como devuelto ese día, cambiando estado y fecha a la vez
+    public void finish(LocalDate returnDate) {
+        this.status = new Status(LoanState.FINISHED, returnDate);
+    }
+
+    /**
+     * Estado del préstamo y día de la devolución en un momento dado.
+     */
+    public record Status(LoanState state, LocalDate returnDate) {
     }
 
     
@@ -4,15 +4,18 @@ import java.time.LocalDate;
 
 // Clase que representa a un usuario del sistema.
 // Un usuario puede pedir prestados libros y se identifica por su ID.
+// Es inmutable: los servicios lo leen sin candados, así que un cambio de nombre
+// o de email crea una copia (withName, withEmail) que UserService publica en su índice.
+// Los préstamos conservan el usuario tal como era al prestar.
 public class User {
     // Identificador único del usuario
-    private String id;
+    private final String id;
     // Nombre completo del usuario
-    private String name;
+    private final String name;
     // Correo electrónico del usuario
-    private String email;
+    private final String email;
     // Fecha en la que el usuario quedó registrado en el sistema
-    private LocalDate registerDate;
+    private final LocalDate registerDate;
 
     // Crea un usuario con fecha de registro "hoy".
     // Útil cuando no se necesita indicar una fecha específica.
@@ -39,9 +42,9 @@ public class User {
         return name;
     }
 
-    // Permite actualizar el nombre del usuario
-    public void setName(String name) {	
-        this.name = name;
+    // Devuelve una copia del usuario con otro nombre
+    public User withName(String name) {
+        return new User(id, name, email, registerDate);
     }
 
     // Devuelve el email del usuario
@@ -49,9 +52,9 @@ public class User {
         return email;
     }
 
-    // Permite actualizar el email del usuario
-    public void setEmail(String email) {
-        this.email = email;
+    // Devuelve una copia del usuario con otro email
+    public User withEmail(String email) {
+        return new User(id, name, email, registerDate);
     }
 
     // Devuelve la fecha en que se registró el usuario
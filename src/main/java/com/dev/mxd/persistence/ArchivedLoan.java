@@ -0,0 +1,16 @@
+package com.dev.mxd.persistence;
+
+import java.time.LocalDate;
+
+// Préstamo terminado que ya salió de la memoria y vive en el historial en disco.
+// Solo guarda los identificadores: el usuario o el libro pueden no existir más.
+// returnDate es null si no se sabe cuándo se devolvió.
+public record ArchivedLoan(String userId, String isbn, LocalDate loanDate, LocalDate dueDate,
+                           LocalDate returnDate) {
+
+    public ArchivedLoan {
+        if (userId == null || isbn == null || loanDate == null || dueDate == null) {
+            throw new IllegalArgumentException("Los parámetros no pueden ser nulos");
+        }
+    }
+}
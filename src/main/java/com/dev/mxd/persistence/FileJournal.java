@@ -0,0 +1,556 @@
+package com.dev.mxd.persistence;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.LongFunction;
+import java.util.function.Supplier;
+
+// Journal en un archivo de solo agregado (write-ahead log).
+// Cada operación se escribe antes de aplicarse en memoria; al arrancar se
+// vuelve a leer con replay para reconstruir el estado.
+// Cuándo se hace fsync lo decide la FsyncPolicy:
+// - ALWAYS: escribe y hace fsync dentro del candado, una operación a la vez.
+// - GROUP_COMMIT: los registros se acumulan en un buffer; el primer hilo que
+//   necesita durabilidad escribe el lote completo y hace un solo fsync para todos,
+//   mientras los demás esperan ese fsync en lugar de hacer el suyo.
+// - PERIODIC: un hilo de fondo escribe y hace fsync cada intervalo.
+// Con checkpoint el journal se corta en segmentos: se captura el estado y se
+// pasa a escribir en un archivo nuevo, así el snapshot más el segmento activo
+// alcanzan para recuperar todo.
+public class FileJournal implements Journal, Closeable {
+
+    // Intervalo por defecto de la política PERIODIC
+    private static final Duration DEFAULT_SYNC_INTERVAL = Duration.ofMillis(100);
+    // Con PERIODIC, si el buffer supera este tamaño se escribe sin esperar al intervalo
+    private static final int MAX_BUFFERED_BYTES = 1 << 20;
+
+    // Segmento activo; cambia en cada checkpoint
+    private Path file;
+    private FileChannel channel;
+    private final FsyncPolicy policy;
+    // Hilo de fondo de la política PERIODIC (null en las demás)
+    private final ScheduledExecutorService syncer;
+
+    // Cada record lo toma en modo lectura; checkpoint en modo escritura, así
+    // captura el estado sin ninguna operación a medio escribir o aplicar
+    private final ReentrantReadWriteLock checkpointLock = new ReentrantReadWriteLock();
+    // Protege el buffer, los números de secuencia y el estado del flush
+    private final ReentrantLock lock = new ReentrantLock();
+    // Se señala cada vez que termina un fsync
+    private final Condition synced = lock.newCondition();
+    // Registros escritos en memoria que todavía no llegaron al archivo
+    private ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    // Última secuencia asignada y última que ya está en disco
+    private long lastSequence;
+    private long durableSequence;
+    // Hay un hilo escribiendo un lote fuera del candado (GROUP_COMMIT)
+    private boolean flushing;
+    // Primer error de escritura: a partir de ahí el journal no acepta más registros
+    private IOException failure;
+    private boolean closed;
+    // Fin de los registros válidos al abrir el archivo: hasta ahí lee replay
+    private final long replayEnd;
+    // Hilo que está reproduciendo el journal o cargando un snapshot: sus record
+    // solo aplican los cambios. Los de cualquier otro hilo se escriben como siempre.
+    private final ThreadLocal<Boolean> replaying = ThreadLocal.withInitial(() -> false);
+
+    private FileJournal(Path file, FsyncPolicy policy, Duration interval) throws IOException {
+        this.file = file;
+        this.policy = policy;
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            // Recorre los registros para saber dónde terminan y cuál fue la última secuencia;
+            // un registro incompleto al final (corte durante la escritura) se descarta,
+            // y también un lote al que le faltan registros
+            long end = 0;
+            long position = 0;
+            long batchRemaining = 0;
+            long sequence = 0;
+            try (var in = openForRead(file)) {
+                JournalCodec.Frame frame;
+                while ((frame = JournalCodec.read(in)) != null) {
+                    position += frame.bytes();
+                    sequence = frame.entry().sequence();
+                    if (batchRemaining > 0) {
+                        batchRemaining--;
+                    } else if (frame.entry().operation() == Operation.BEGIN_BATCH) {
+                        batchRemaining = batchSize(frame.entry());
+                    }
+                    if (batchRemaining == 0) {
+                        end = position;
+                        lastSequence = sequence;
+                    }
+                }
+            }
+            channel.truncate(end);
+            channel.position(end);
+            replayEnd = end;
+            durableSequence = lastSequence;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+        if (policy == FsyncPolicy.PERIODIC) {
+            syncer = Executors.newSingleThreadScheduledExecutor(r -> {
+                var thread = new Thread(r, "journal-sync");
+                thread.setDaemon(true);
+                return thread;
+            });
+            long millis = interval.toMillis();
+            syncer.scheduleWithFixedDelay(this::syncQuietly, millis, millis, TimeUnit.MILLISECONDS);
+        } else {
+            syncer = null;
+        }
+    }
+
+    // Abre (o crea) el journal con la política indicada
+    public static FileJournal open(Path file, FsyncPolicy policy) throws IOException {
+        return open(file, policy, DEFAULT_SYNC_INTERVAL);
+    }
+
+    // Abre (o crea) el journal; el intervalo solo se usa con la política PERIODIC
+    public static FileJournal open(Path file, FsyncPolicy policy, Duration interval) throws IOException {
+        if (file == null || policy == null || interval == null) {
+            throw new IllegalArgumentException("Los parámetros no pueden ser nulos");
+        }
+        if (interval.isNegative() || interval.isZero()) {
+            throw new IllegalArgumentException("El intervalo debe ser positivo");
+        }
+        return new FileJournal(file, policy, interval);
+    }
+
+    @Override
+    public void record(Operation operation, Runnable apply, String... args) {
+        if (replaying.get()) {
+            // Reproduciendo: la operación ya está en el archivo
+            apply.run();
+            return;
+        }
+        checkpointLock.readLock().lock();
+        try {
+            long sequence = append(operation, args);
+            if (policy == FsyncPolicy.GROUP_COMMIT) {
+                awaitDurable(sequence);
+            }
+            apply.run();
+        } finally {
+            checkpointLock.readLock().unlock();
+        }
+    }
+
+    // Escribe los registros del lote seguidos, precedidos por BEGIN_BATCH, y
+    // después aplica el lote. Si el proceso se corta a mitad de la escritura,
+    // al reabrir se descarta el lote entero.
+    @Override
+    public void recordBatch(Operation operation, Collection<String[]> batch, Runnable apply) {
+        if (replaying.get()) {
+            apply.run();
+            return;
+        }
+        checkpointLock.readLock().lock();
+        try {
+            long sequence = appendBatch(operation, batch);
+            if (policy == FsyncPolicy.GROUP_COMMIT) {
+                awaitDurable(sequence);
+            }
+            apply.run();
+        } finally {
+            checkpointLock.readLock().unlock();
+        }
+    }
+
+    // Lee desde el principio los registros que había al abrir y los entrega en orden.
+    // Los record que hagan los servicios mientras tanto no se vuelven a escribir.
+    public void replay(Consumer<JournalEntry> consumer) throws IOException {
+        var source = file;
+        withoutRecording(() -> {
+            try (var in = openForRead(source)) {
+                long position = 0;
+                JournalCodec.Frame frame;
+                while (position < replayEnd && (frame = JournalCodec.read(in)) != null) {
+                    position += frame.bytes();
+                    consumer.accept(frame.entry());
+                }
+            }
+        });
+    }
+
+    // Lee todos los registros válidos de un segmento que no está abierto (por
+    // ejemplo, uno anterior al último checkpoint)
+    public static void read(Path segment, Consumer<JournalEntry> consumer) throws IOException {
+        if (segment == null || consumer == null) {
+            throw new IllegalArgumentException("Los parámetros no pueden ser nulos");
+        }
+        try (var in = openForRead(segment)) {
+            JournalCodec.Frame frame;
+            while ((frame = JournalCodec.read(in)) != null) {
+                consumer.accept(frame.entry());
+            }
+        }
+    }
+
+    // Ejecuta la acción sin escribir en el journal: los record que haga este
+    // hilo mientras tanto solo aplican el cambio; los de otros hilos se siguen
+    // escribiendo. Sirve para cargar un snapshot o reproducir segmentos viejos
+    // al arrancar (solo lo usa LibraryStore).
+    void withoutRecording(IOAction action) throws IOException {
+        replaying.set(true);
+        try {
+            action.run();
+        } finally {
+            replaying.remove();
+        }
+    }
+
+    // Hace que la próxima secuencia asignada sea mayor que "sequence".
+    // Se usa al abrir un segmento vacío que sigue a un checkpoint.
+    public void skipTo(long sequence) {
+        lock.lock();
+        try {
+            if (sequence > lastSequence) {
+                lastSequence = sequence;
+                durableSequence = sequence;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Captura el estado sin operaciones en curso y corta el journal: todo lo
+    // registrado hasta ese momento queda en disco en el segmento actual, y lo
+    // que venga después se escribe en el segmento que devuelve "nextSegment"
+    // para la secuencia siguiente. Devuelve el estado y la última secuencia que incluye.
+    public <T> Checkpoint<T> checkpoint(Supplier<T> capture, LongFunction<Path> nextSegment) throws IOException {
+        if (capture == null || nextSegment == null) {
+            throw new IllegalArgumentException("Los parámetros no pueden ser nulos");
+        }
+        checkpointLock.writeLock().lock();
+        try {
+            ensureOpen();
+            var state = capture.get();
+            sync();
+            long sequence = lastSequence();
+            var next = nextSegment.apply(sequence + 1);
+            if (!next.equals(file)) {
+                rotate(next);
+            }
+            return new Checkpoint<>(sequence, state);
+        } finally {
+            checkpointLock.writeLock().unlock();
+        }
+    }
+
+    // Segmento donde se está escribiendo
+    public Path currentSegment() {
+        lock.lock();
+        try {
+            return file;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Última secuencia asignada
+    public long lastSequence() {
+        lock.lock();
+        try {
+            return lastSequence;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Escribe lo pendiente y hace fsync, sea cual sea la política
+    public void sync() {
+        // El candado de checkpoint evita que el segmento cambie entre la escritura y el fsync
+        checkpointLock.readLock().lock();
+        try {
+            long upTo = writePending();
+            channel.force(false);
+            markDurable(upTo);
+        } catch (IOException e) {
+            throw fail(e);
+        } finally {
+            checkpointLock.readLock().unlock();
+        }
+    }
+
+    // Escribe lo pendiente, hace fsync y cierra el archivo
+    @Override
+    public void close() throws IOException {
+        if (syncer != null) {
+            syncer.shutdown();
+            try {
+                syncer.awaitTermination(1, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        } finally {
+            lock.unlock();
+        }
+        try {
+            sync();
+        } catch (UncheckedIOException e) {
+            // el error ya quedó registrado; igual se cierra el archivo
+        } finally {
+            channel.close();
+        }
+    }
+
+    // Pasa a escribir en un segmento nuevo (con el candado de checkpoint tomado
+    // en modo escritura y todo lo anterior ya en disco)
+    private void rotate(Path next) throws IOException {
+        var nextChannel = FileChannel.open(next, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        FileChannel previous;
+        lock.lock();
+        try {
+            if (closed) {
+                nextChannel.close();
+                throw new IllegalStateException("El journal " + file + " está cerrado");
+            }
+            previous = channel;
+            channel = nextChannel;
+            file = next;
+        } finally {
+            lock.unlock();
+        }
+        previous.close();
+    }
+
+    // Asigna la secuencia y deja el registro escrito (ALWAYS) o en el buffer
+    private long append(Operation operation, String[] args) {
+        lock.lock();
+        try {
+            ensureOpen();
+            if (failure != null) {
+                throw new UncheckedIOException("El journal " + file + " falló antes", failure);
+            }
+            long sequence = lastSequence + 1;
+            var frame = JournalCodec.encode(new JournalEntry(sequence, operation, List.of(args)));
+            lastSequence = sequence;
+            if (policy == FsyncPolicy.ALWAYS) {
+                writeFully(frame);
+                channel.force(false);
+                durableSequence = sequence;
+            } else {
+                buffer.write(frame, 0, frame.length);
+                if (policy == FsyncPolicy.PERIODIC && buffer.size() > MAX_BUFFERED_BYTES) {
+                    writeFully(takeBuffer());
+                }
+            }
+            return sequence;
+        } catch (IOException e) {
+            failure = e;
+            throw new UncheckedIOException("No se pudo escribir en el journal " + file, e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Escribe el lote con el candado tomado de principio a fin, así ningún registro
+    // de otro hilo queda en el medio. Va escribiendo por bloques para no juntar
+    // todo el lote en memoria; devuelve la secuencia del último registro.
+    private long appendBatch(Operation operation, Collection<String[]> batch) {
+        lock.lock();
+        try {
+            // Un flush en curso escribe fuera del candado: hay que esperar a que termine
+            while (flushing) {
+                synced.awaitUninterruptibly();
+            }
+            ensureOpen();
+            if (failure != null) {
+                throw new UncheckedIOException("El journal " + file + " falló antes", failure);
+            }
+            long sequence = lastSequence + 1;
+            writeToBuffer(new JournalEntry(sequence, Operation.BEGIN_BATCH, List.of(String.valueOf(batch.size()))));
+            for (var args : batch) {
+                writeToBuffer(new JournalEntry(++sequence, operation, List.of(args)));
+                if (buffer.size() > MAX_BUFFERED_BYTES) {
+                    writeFully(takeBuffer());
+                }
+            }
+            writeFully(takeBuffer());
+            lastSequence = sequence;
+            if (policy == FsyncPolicy.ALWAYS) {
+                channel.force(false);
+                durableSequence = sequence;
+            }
+            return sequence;
+        } catch (IOException e) {
+            failure = e;
+            throw new UncheckedIOException("No se pudo escribir en el journal " + file, e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void writeToBuffer(JournalEntry entry) {
+        var frame = JournalCodec.encode(entry);
+        buffer.write(frame, 0, frame.length);
+    }
+
+    // Cantidad de registros que anuncia un BEGIN_BATCH
+    private static long batchSize(JournalEntry entry) {
+        try {
+            return Math.max(0, Long.parseLong(entry.arg(0)));
+        } catch (RuntimeException e) {
+            return 0;
+        }
+    }
+
+    // GROUP_COMMIT: espera a que la secuencia esté en disco. Si nadie está
+    // escribiendo, este hilo se lleva todo el buffer y hace el fsync del lote.
+    private void awaitDurable(long sequence) {
+        lock.lock();
+        try {
+            while (durableSequence < sequence) {
+                if (failure != null) {
+                    throw new UncheckedIOException("No se pudo escribir en el journal " + file, failure);
+                }
+                if (flushing) {
+                    synced.awaitUninterruptibly();
+                    continue;
+                }
+                flushing = true;
+                var batch = takeBuffer();
+                long batchEnd = lastSequence;
+                lock.unlock();
+                IOException error = null;
+                boolean written = false;
+                try {
+                    writeFully(batch);
+                    channel.force(false);
+                    written = true;
+                } catch (IOException e) {
+                    error = e;
+                } finally {
+                    lock.lock();
+                    flushing = false;
+                    if (written) {
+                        durableSequence = Math.max(durableSequence, batchEnd);
+                    } else if (failure == null) {
+                        failure = error != null ? error : new IOException("Escritura del lote interrumpida");
+                    }
+                    synced.signalAll();
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Escribe en el archivo todo lo que haya en el buffer; devuelve hasta qué secuencia
+    private long writePending() throws IOException {
+        lock.lock();
+        try {
+            while (flushing) {
+                synced.awaitUninterruptibly();
+            }
+            if (failure != null) {
+                throw failure;
+            }
+            writeFully(takeBuffer());
+            return lastSequence;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void markDurable(long sequence) {
+        lock.lock();
+        try {
+            durableSequence = Math.max(durableSequence, sequence);
+            synced.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Tarea de la política PERIODIC
+    private void syncQuietly() {
+        try {
+            sync();
+        } catch (UncheckedIOException e) {
+            // queda guardado en "failure" y el próximo record lo informa
+        }
+    }
+
+    private void ensureOpen() {
+        lock.lock();
+        try {
+            if (closed) {
+                throw new IllegalStateException("El journal " + file + " está cerrado");
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private UncheckedIOException fail(IOException e) {
+        lock.lock();
+        try {
+            if (failure == null) {
+                failure = e;
+            }
+        } finally {
+            lock.unlock();
+        }
+        return new UncheckedIOException("No se pudo escribir en el journal " + file, e);
+    }
+
+    private byte[] takeBuffer() {
+        var bytes = buffer.toByteArray();
+        buffer.reset();
+        return bytes;
+    }
+
+    private void writeFully(byte[] bytes) throws IOException {
+        var source = ByteBuffer.wrap(bytes);
+        while (source.hasRemaining()) {
+            channel.write(source);
+        }
+    }
+
+    // Flujo de lectura desde el principio del archivo, independiente del canal de escritura
+    private static DataInputStream openForRead(Path segment) throws IOException {
+        return new DataInputStream(new BufferedInputStream(Files.newInputStream(segment), 1 << 16));
+    }
+
+    // Acción que puede fallar con IOException
+    @FunctionalInterface
+    public interface IOAction {
+        void run() throws IOException;
+    }
+
+    // Estado capturado en un checkpoint junto con la última secuencia que incluye
+    public record Checkpoint<T>(long sequence, T state) {
+    }
+}
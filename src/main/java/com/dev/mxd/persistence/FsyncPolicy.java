@@ -0,0 +1,13 @@
+package com.dev.mxd.persistence;
+
+// Cuándo se fuerza a disco (fsync) lo escrito en el journal
+public enum FsyncPolicy {
+    // Un fsync por operación: lo más seguro y lo más lento
+    ALWAYS,
+    // Los hilos que escriben a la vez comparten un mismo fsync; cada operación
+    // vuelve cuando ya está en disco, pero un fsync cubre a muchas
+    GROUP_COMMIT,
+    // Un hilo de fondo hace fsync cada cierto intervalo; las operaciones no esperan
+    // y un corte de luz puede perder lo escrito en el último intervalo
+    PERIODIC;
+}
@@ -0,0 +1,26 @@
+package com.dev.mxd.persistence;
+
+import java.util.Collection;
+
+// Registro de las operaciones que cambian el estado de los servicios.
+// Los servicios validan primero y luego llaman a record: la implementación
+// escribe la operación y después ejecuta "apply", el cambio en memoria.
+public interface Journal {
+
+    // Journal que no guarda nada: solo aplica el cambio (servicios en memoria)
+    Journal NONE = (operation, apply, args) -> apply.run();
+
+    // Registra la operación con sus argumentos y aplica el cambio en memoria
+    void record(Operation operation, Runnable apply, String... args);
+
+    // Registra varias operaciones del mismo tipo como una unidad y luego aplica
+    // "apply", que publica el lote completo. "batch" trae los argumentos de cada
+    // operación; puede ser una vista que arma los argumentos al recorrerla, así
+    // que se puede recorrer más de una vez. Por defecto registra una a una.
+    default void recordBatch(Operation operation, Collection<String[]> batch, Runnable apply) {
+        for (var args : batch) {
+            record(operation, () -> { }, args);
+        }
+        apply.run();
+    }
+}
@@ -0,0 +1,93 @@
+package com.dev.mxd.persistence;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.zip.CRC32;
+
+// Formato binario de un registro del journal:
+// [int largo][int crc32 del contenido][contenido]
+// contenido = [long secuencia][byte operación][short cantidad de args][args en UTF]
+// El CRC permite detectar un registro a medio escribir al final del archivo.
+final class JournalCodec {
+
+    // Cabecera de cada registro: largo + crc
+    static final int HEADER_BYTES = 8;
+
+    private static final Operation[] OPERATIONS = Operation.values();
+
+    private JournalCodec() {
+    }
+
+    // Un registro leído y los bytes que ocupa en el archivo
+    record Frame(JournalEntry entry, int bytes) {
+    }
+
+    // Convierte el registro en bytes listos para escribir
+    static byte[] encode(JournalEntry entry) {
+        try {
+            var payload = new ByteArrayOutputStream(64);
+            var out = new DataOutputStream(payload);
+            out.writeLong(entry.sequence());
+            out.writeByte(entry.operation().ordinal());
+            out.writeShort(entry.args().size());
+            for (var arg : entry.args()) {
+                out.writeUTF(arg);
+            }
+            var body = payload.toByteArray();
+            var frame = new ByteArrayOutputStream(HEADER_BYTES + body.length);
+            var header = new DataOutputStream(frame);
+            header.writeInt(body.length);
+            header.writeInt(crc(body));
+            frame.write(body);
+            return frame.toByteArray();
+        } catch (IOException e) {
+            // ByteArrayOutputStream no lanza IOException
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // Lee el siguiente registro; devuelve null si se acabó el archivo
+    // o si el registro está incompleto o dañado (escritura interrumpida)
+    static Frame read(DataInputStream in) throws IOException {
+        int length;
+        int expectedCrc;
+        byte[] body;
+        try {
+            length = in.readInt();
+            expectedCrc = in.readInt();
+            if (length < 0 || length > (1 << 24)) {
+                return null;
+            }
+            body = new byte[length];
+            in.readFully(body);
+        } catch (EOFException e) {
+            return null;
+        }
+        if (crc(body) != expectedCrc) {
+            return null;
+        }
+        var data = new DataInputStream(new ByteArrayInputStream(body));
+        long sequence = data.readLong();
+        int ordinal = data.readUnsignedByte();
+        if (ordinal >= OPERATIONS.length) {
+            return null;
+        }
+        int count = data.readUnsignedShort();
+        var args = new ArrayList<String>(count);
+        for (int i = 0; i < count; i++) {
+            args.add(data.readUTF());
+        }
+        return new Frame(new JournalEntry(sequence, OPERATIONS[ordinal], args), HEADER_BYTES + length);
+    }
+
+    private static int crc(byte[] body) {
+        var crc = new CRC32();
+        crc.update(body);
+        return (int) crc.getValue();
+    }
+}
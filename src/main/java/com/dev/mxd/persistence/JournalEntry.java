@@ -0,0 +1,19 @@
+package com.dev.mxd.persistence;
+
+import java.util.List;
+
+// Un registro del journal: número de secuencia, operación y sus argumentos en texto
+public record JournalEntry(long sequence, Operation operation, List<String> args) {
+
+    public JournalEntry {
+        if (operation == null || args == null) {
+            throw new IllegalArgumentException("Los parámetros no pueden ser nulos");
+        }
+        args = List.copyOf(args);
+    }
+
+    // Devuelve el argumento en la posición indicada
+    public String arg(int index) {
+        return args.get(index);
+    }
+}
@@ -0,0 +1,519 @@
+package com.dev.mxd.persistence;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import com.dev.mxd.events.LibraryEvents;
+import com.dev.mxd.metrics.LibraryMetrics;
+import com.dev.mxd.model.Book;
+import com.dev.mxd.model.Loan;
+import com.dev.mxd.model.LoanState;
+import com.dev.mxd.model.User;
+import com.dev.mxd.service.BookService;
+import com.dev.mxd.service.BookStorage;
+import com.dev.mxd.service.LoanService;
+import com.dev.mxd.service.UserService;
+
+// Arma los tres servicios sobre un directorio de datos persistente.
+// El directorio tiene snapshots binarios (snapshot-<secuencia>.bin) y el journal
+// cortado en segmentos (journal-<primera secuencia>.log). Al abrir se carga el
+// último snapshot válido y solo se reproducen los registros posteriores, así el
+// arranque no depende de cuánta historia haya acumulada.
+// Cada snapshot además pasa los préstamos terminados más viejos al historial en
+// disco (archive-<secuencia>.col): en memoria quedan los activos y los últimos terminados.
+public class LibraryStore implements Closeable {
+
+    // Préstamos terminados que se conservan en memoria si no se indica otra cantidad
+    public static final int DEFAULT_RECENT_LOANS = 10_000;
+
+    private static final Pattern SEGMENT_NAME = Pattern.compile("journal-(\\d+)\\.log");
+    private static final Pattern SNAPSHOT_NAME = Pattern.compile("snapshot-(\\d+)\\.bin");
+
+    private final Path directory;
+    private final FileJournal journal;
+    // Publica los cambios de los servicios; envuelve al journal
+    private final LibraryEvents events;
+    // Contadores y latencias de las operaciones de los servicios
+    private final LibraryMetrics metrics;
+    private final BookService bookService;
+    private final UserService userService;
+    private final LoanService loanService;
+    private final LoanArchive archive;
+    // Préstamos terminados que se conservan en memoria al archivar
+    private volatile int recentLoans = DEFAULT_RECENT_LOANS;
+    // Libros fijados por el snapshot en curso (null fuera de snapshot)
+    private BookStorage.Frozen frozenBooks;
+    // Hilo de los snapshots periódicos (null si no se programaron)
+    private ScheduledExecutorService snapshotter;
+
+    private LibraryStore(Path directory, FileJournal journal, LoanArchive archive, BookStorage books) {
+        this.directory = directory;
+        this.journal = journal;
+        this.archive = archive;
+        this.events = new LibraryEvents(journal);
+        this.metrics = new LibraryMetrics();
+        this.bookService = new BookService(events, metrics, books);
+        this.userService = new UserService(events, metrics);
+        this.loanService = new LoanService(bookService, userService, events, metrics);
+    }
+
+    // Abre el directorio (lo crea si no existe) y recupera el estado guardado
+    public static LibraryStore open(Path directory, FsyncPolicy policy) throws IOException {
+        return open(directory, policy, BookStorage.inMemory());
+    }
+
+    // Igual que el anterior, guardando los libros en "books" (por ejemplo un
+    // PackedCatalog para catálogos que no entran cómodos en el heap). "books"
+    // debe estar vacío: se llena con lo recuperado del directorio.
+    public static LibraryStore open(Path directory, FsyncPolicy policy, BookStorage books) throws IOException {
+        if (directory == null || policy == null || books == null) {
+            throw new IllegalArgumentException("Los parámetros no pueden ser nulos");
+        }
+        if (books.stream().findAny().isPresent()) {
+            throw new IllegalArgumentException("El almacenamiento de libros debe estar vacío");
+        }
+        Files.createDirectories(directory);
+        var segments = segments(directory);
+        // Se sigue escribiendo en el último segmento
+        var active = segments.isEmpty()
+                ? new Segment(1, directory.resolve(segmentName(1)))
+                : segments.get(segments.size() - 1);
+        var journal = FileJournal.open(active.path(), policy);
+        journal.skipTo(active.start() - 1);
+        LibraryStore store;
+        try {
+            store = new LibraryStore(directory, journal, LoanArchive.open(directory), books);
+        } catch (IOException | RuntimeException e) {
+            journal.close();
+            throw e;
+        }
+        try {
+            store.recover(segments);
+        } catch (IOException | RuntimeException e) {
+            journal.close();
+            throw e;
+        }
+        return store;
+    }
+
+    public BookService bookService() {
+        return bookService;
+    }
+
+    public UserService userService() {
+        return userService;
+    }
+
+    public LoanService loanService() {
+        return loanService;
+    }
+
+    // Cambios de los servicios para suscribirse con Flow. Lo reproducido al
+    // abrir no llega a nadie: todavía no hay suscriptores.
+    public LibraryEvents events() {
+        return events;
+    }
+
+    // Métricas de los servicios, activas siempre. Incluyen las operaciones
+    // reproducidas al abrir.
+    public LibraryMetrics metrics() {
+        return metrics;
+    }
+
+    // Historial en disco de los préstamos terminados que ya no están en memoria
+    public LoanArchive loanArchive() {
+        return archive;
+    }
+
+    // Cambia cuántos préstamos terminados se conservan en memoria en los próximos snapshots
+    public void setRecentLoans(int recentLoans) {
+        if (recentLoans < 0) {
+            throw new IllegalArgumentException("La cantidad no puede ser negativa");
+        }
+        this.recentLoans = recentLoans;
+    }
+
+    // Guarda un snapshot del estado actual y empieza un segmento nuevo del journal.
+    // Se conservan los dos últimos snapshots y los segmentos posteriores al más
+    // viejo de ellos, para poder arrancar aunque el último esté dañado.
+    // Devuelve la secuencia que incluye el snapshot.
+    public synchronized long snapshot() throws IOException {
+        try {
+            return writeSnapshot();
+        } finally {
+            // La vista de los libros se abre en capture: se cierra aunque el checkpoint falle
+            if (frozenBooks != null) {
+                frozenBooks.close();
+                frozenBooks = null;
+            }
+        }
+    }
+
+    private long writeSnapshot() throws IOException {
+        var checkpoint = journal.checkpoint(this::capture, start -> directory.resolve(segmentName(start)));
+        long sequence = checkpoint.sequence();
+        var state = checkpoint.state();
+        // El historial se escribe antes que el snapshot que deja de tener esos préstamos;
+        // si el snapshot falla, se descarta el segmento recién escrito (y solo ese)
+        boolean appended = false;
+        try {
+            if (!state.archived().isEmpty()) {
+                archive.append(sequence, state.archivedRows());
+                appended = true;
+            }
+            SnapshotFile.write(directory.resolve(snapshotName(sequence)), state.toSnapshot(sequence));
+        } catch (IOException | RuntimeException e) {
+            if (appended) {
+                archive.discardFrom(sequence);
+            }
+            throw e;
+        }
+        loanService.evict(state.archived());
+        prune();
+        return sequence;
+    }
+
+    // Toma un snapshot cada "interval" en un hilo de fondo
+    public synchronized void scheduleSnapshots(Duration interval) {
+        if (interval == null) {
+            throw new IllegalArgumentException("El intervalo no puede ser nulo");
+        }
+        if (interval.isNegative() || interval.isZero()) {
+            throw new IllegalArgumentException("El intervalo debe ser positivo");
+        }
+        if (snapshotter != null) {
+            throw new IllegalStateException("Los snapshots ya están programados");
+        }
+        snapshotter = Executors.newSingleThreadScheduledExecutor(r -> {
+            var thread = new Thread(r, "library-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long millis = interval.toMillis();
+        snapshotter.scheduleWithFixedDelay(this::snapshotQuietly, millis, millis, TimeUnit.MILLISECONDS);
+    }
+
+    // Detiene los snapshots programados, fuerza a disco lo pendiente y cierra los eventos y el journal
+    @Override
+    public void close() throws IOException {
+        ScheduledExecutorService scheduled;
+        synchronized (this) {
+            scheduled = snapshotter;
+        }
+        if (scheduled != null) {
+            scheduled.shutdown();
+            try {
+                scheduled.awaitTermination(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        events.close();
+        journal.close();
+    }
+
+    // Carga el último snapshot y reproduce lo que vino después
+    private void recover(List<Segment> segments) throws IOException {
+        long restored = restoreLatestSnapshot();
+        // Un segmento del historial posterior al snapshot cargado es de un snapshot
+        // que no llegó a escribirse: sus préstamos vuelven desde el journal
+        archive.discardFrom(restored + 1);
+        if (!segments.isEmpty() && segments.get(0).start() > restored + 1) {
+            throw new IOException("Faltan registros del journal entre la secuencia " + restored
+                    + " y la " + segments.get(0).start() + " en " + directory);
+        }
+        // Segmentos anteriores al activo: se saltean los que el snapshot ya cubre por completo
+        try {
+            journal.withoutRecording(() -> {
+                for (int i = 0; i < segments.size() - 1; i++) {
+                    if (segments.get(i + 1).start() - 1 <= restored) {
+                        continue;
+                    }
+                    FileJournal.read(segments.get(i).path(), entry -> applyAfter(entry, restored));
+                }
+            });
+            journal.replay(entry -> applyAfter(entry, restored));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    // Carga el snapshot válido más nuevo; si está dañado prueba con el anterior.
+    // Devuelve la secuencia que incluye, o 0 si no hay ninguno.
+    private long restoreLatestSnapshot() throws IOException {
+        for (var path : snapshots(directory)) {
+            Snapshot snapshot;
+            try {
+                snapshot = SnapshotFile.read(path);
+            } catch (IOException e) {
+                continue;
+            }
+            journal.withoutRecording(() -> restore(snapshot));
+            return snapshot.sequence();
+        }
+        return 0;
+    }
+
+    // Vuelca el contenido del snapshot en los servicios
+    private void restore(Snapshot snapshot) {
+        for (var book : snapshot.books()) {
+            bookService.addBook(book.getIsbn(), book.getTitle(), book.getAuthor());
+        }
+        for (var user : snapshot.users()) {
+            userService.addUser(user.id(), user.name(), user.email(), user.registerDate());
+        }
+        // Usuarios y libros borrados que siguen apareciendo en el historial de préstamos
+        var deletedUsers = new HashMap<String, User>();
+        var deletedBooks = new HashMap<String, Book>();
+        for (var row : snapshot.loans()) {
+            var inlineUser = row.inlineUser();
+            var user = inlineUser == null
+                    ? userService.getUserById(row.userId())
+                    : deletedUsers.computeIfAbsent(row.userId(), id -> new User(id, inlineUser.name(),
+                            inlineUser.email(), inlineUser.registerDate()));
+            var book = row.inlineBook() == null
+                    ? bookService.getBookByIsbn(row.isbn())
+                    : deletedBooks.computeIfAbsent(row.isbn(), isbn -> row.inlineBook());
+            var loan = new Loan(user, book, row.loanDate(), row.dueDate(), row.state());
+            loan.setReturnDate(row.returnDate());
+            loanService.restoreLoan(loan);
+        }
+    }
+
+    // Se llama dentro del checkpoint, sin operaciones en curso: copia solo
+    // referencias y los datos que pueden cambiar (nombre, email, estado y devolución).
+    // Los libros no se copian: se fijan con una vista que se recorre al escribir
+    // el snapshot, ya fuera del checkpoint.
+    private Capture capture() {
+        frozenBooks = bookService.freezeBooks();
+        var users = userService.getAllUsers();
+        var userRows = new ArrayList<Snapshot.UserRow>(users.size());
+        for (var user : users) {
+            userRows.add(row(user));
+        }
+        // Los terminados más viejos van al historial en vez de al snapshot. Si
+        // el journal no avanzó desde el último segmento del historial, este
+        // snapshot no archiva: el segmento tendría la misma secuencia que uno
+        // que ya existe. Los préstamos siguen en memoria hasta el próximo.
+        NavigableMap<Long, Loan> archived = journal.lastSequence() > archive.lastSequence()
+                ? loanService.archivableLoans(recentLoans)
+                : Collections.emptyNavigableMap();
+        var archivedRows = new ArrayList<ArchivedLoan>(archived.size());
+        var leaving = Collections.newSetFromMap(new IdentityHashMap<Loan, Boolean>(archived.size()));
+        for (var loan : archived.values()) {
+            archivedRows.add(new ArchivedLoan(loan.getUser().getId(), loan.getBook().getIsbn(),
+                    loan.getLoanDate(), loan.getDueDate(), loan.getReturnDate()));
+            leaving.add(loan);
+        }
+        var loans = loanService.getLoans().stream()
+                .filter(loan -> !leaving.contains(loan))
+                .toArray(Loan[]::new);
+        var finished = new BitSet(loans.length);
+        var returnDates = new LocalDate[loans.length];
+        // Un préstamo guarda completos al usuario o al libro solo si ya no existen.
+        // Se decide por ID e ISBN: el almacenamiento puede armar un Book nuevo en
+        // cada lectura, así que comparar referencias no sirve.
+        var inlineUsers = new BitSet(loans.length);
+        var inlineBooks = new BitSet(loans.length);
+        for (int i = 0; i < loans.length; i++) {
+            var loan = loans[i];
+            if (loan.getState() == LoanState.FINISHED) {
+                finished.set(i);
+            }
+            returnDates[i] = loan.getReturnDate();
+            if (userService.findUserById(loan.getUser().getId()).orElse(null) != loan.getUser()) {
+                inlineUsers.set(i);
+            }
+            if (!sameBook(bookService.findBookByIsbn(loan.getBook().getIsbn()).orElse(null), loan.getBook())) {
+                inlineBooks.set(i);
+            }
+        }
+        return new Capture(frozenBooks, userRows, loans, finished, returnDates, inlineUsers, inlineBooks,
+                archived, archivedRows);
+    }
+
+    // Elimina snapshots y segmentos que ya no hacen falta para arrancar
+    private void prune() throws IOException {
+        var snapshots = snapshots(directory);
+        for (int i = 2; i < snapshots.size(); i++) {
+            Files.deleteIfExists(snapshots.get(i));
+        }
+        if (snapshots.size() < 2) {
+            // Sin un snapshot anterior hay que conservar toda la historia
+            return;
+        }
+        long oldest = snapshotSequence(snapshots.get(1));
+        var segments = segments(directory);
+        for (int i = 0; i < segments.size() - 1; i++) {
+            if (segments.get(i + 1).start() - 1 <= oldest) {
+                Files.deleteIfExists(segments.get(i).path());
+            }
+        }
+    }
+
+    // Tarea de los snapshots programados
+    private void snapshotQuietly() {
+        try {
+            snapshot();
+        } catch (IOException | UncheckedIOException | IllegalStateException e) {
+            // se vuelve a intentar en el próximo intervalo
+        }
+    }
+
+    private void applyAfter(JournalEntry entry, long restored) {
+        if (entry.sequence() > restored) {
+            apply(entry);
+        }
+    }
+
+    // Vuelve a ejecutar una operación del journal sobre los servicios
+    private void apply(JournalEntry entry) {
+        try {
+            switch (entry.operation()) {
+                case ADD_BOOK -> bookService.addBook(entry.arg(0), entry.arg(1), entry.arg(2));
+                case DELETE_BOOK -> bookService.deleteBook(entry.arg(0));
+                case ADD_USER -> userService.addUser(entry.arg(0), entry.arg(1), entry.arg(2),
+                        LocalDate.parse(entry.arg(3)));
+                case UPDATE_USER_EMAIL -> userService.updateUserEmail(entry.arg(0), entry.arg(1));
+                case UPDATE_USER_NAME -> userService.updateUserName(entry.arg(0), entry.arg(1));
+                case DELETE_USER -> userService.deleteUser(entry.arg(0));
+                // Los registros anteriores a guardar el vencimiento usan el plazo por defecto
+                case ADD_LOAN -> {
+                    if (entry.args().size() > 3) {
+                        loanService.addLoan(entry.arg(0), entry.arg(1), LocalDate.parse(entry.arg(2)),
+                                LocalDate.parse(entry.arg(3)));
+                    } else {
+                        loanService.addLoan(entry.arg(0), entry.arg(1), LocalDate.parse(entry.arg(2)));
+                    }
+                }
+                // Sin la fecha no se puede reproducir la devolución: usar la de hoy
+                // cambiaría el historial, así que el registro se trata como dañado
+                case RETURN_BOOK -> {
+                    if (entry.args().size() < 3) {
+                        throw new IllegalArgumentException("La devolución no trae la fecha");
+                    }
+                    loanService.returnBook(entry.arg(0), entry.arg(1), LocalDate.parse(entry.arg(2)));
+                }
+                // El journal solo entrega lotes completos: sus registros se aplican uno a uno
+                case BEGIN_BATCH -> { }
+            }
+        } catch (RuntimeException e) {
+            // Los servicios validan antes de registrar y ordenan cada operación con
+            // las que dependen de ella: si al reproducir falla, el directorio está dañado
+            throw new UncheckedIOException(new IOException("No se pudo aplicar el registro " + entry.sequence()
+                    + " (" + entry.operation() + ") del journal en " + directory, e));
+        }
+    }
+
+    // Mismo libro aunque sean objetos distintos (el almacenamiento puede armarlos al leer)
+    private static boolean sameBook(Book current, Book book) {
+        return current == book || current != null && current.getIsbn().equals(book.getIsbn())
+                && current.getTitle().equals(book.getTitle()) && current.getAuthor().equals(book.getAuthor());
+    }
+
+    private static Snapshot.UserRow row(User user) {
+        return new Snapshot.UserRow(user.getId(), user.getName(), user.getEmail(), user.getRegisterDate());
+    }
+
+    // Segmentos del journal ordenados por su primera secuencia
+    private static List<Segment> segments(Path directory) throws IOException {
+        var segments = new ArrayList<Segment>();
+        try (var files = Files.list(directory)) {
+            for (var path : (Iterable<Path>) files::iterator) {
+                var name = path.getFileName().toString();
+                var matcher = SEGMENT_NAME.matcher(name);
+                if (matcher.matches()) {
+                    segments.add(new Segment(Long.parseLong(matcher.group(1)), path));
+                }
+            }
+        }
+        segments.sort(Comparator.comparingLong(Segment::start));
+        return segments;
+    }
+
+    // Snapshots del directorio, del más nuevo al más viejo
+    private static List<Path> snapshots(Path directory) throws IOException {
+        var snapshots = new ArrayList<Path>();
+        try (var files = Files.list(directory)) {
+            files.filter(path -> SNAPSHOT_NAME.matcher(path.getFileName().toString()).matches())
+                    .forEach(snapshots::add);
+        }
+        snapshots.sort(Comparator.comparingLong(LibraryStore::snapshotSequence).reversed());
+        return snapshots;
+    }
+
+    private static long snapshotSequence(Path snapshot) {
+        var matcher = SNAPSHOT_NAME.matcher(snapshot.getFileName().toString());
+        if (!matcher.matches()) {
+            throw new IllegalArgumentException("No es un snapshot: " + snapshot);
+        }
+        return Long.parseLong(matcher.group(1));
+    }
+
+    // Los números van con ceros a la izquierda para que los archivos se listen en orden
+    static String segmentName(long start) {
+        return String.format("journal-%020d.log", start);
+    }
+
+    static String snapshotName(long sequence) {
+        return String.format("snapshot-%020d.bin", sequence);
+    }
+
+    // Segmento del journal y la primera secuencia que contiene
+    private record Segment(long start, Path path) {
+    }
+
+    // Estado copiado dentro del checkpoint; las filas de préstamos se arman
+    // después, fuera del candado
+    private record Capture(BookStorage.Frozen books, List<Snapshot.UserRow> userRows,
+                           Loan[] loans, BitSet finished, LocalDate[] returnDates,
+                           BitSet inlineUsers, BitSet inlineBooks,
+                           NavigableMap<Long, Loan> archived, List<ArchivedLoan> archivedRows) {
+
+        Snapshot toSnapshot(long sequence) {
+            var loanRows = new ArrayList<Snapshot.LoanRow>(loans.length);
+            for (int i = 0; i < loans.length; i++) {
+                var loan = loans[i];
+                var user = loan.getUser();
+                var book = loan.getBook();
+                loanRows.add(new Snapshot.LoanRow(user.getId(), book.getIsbn(),
+                        inlineUsers.get(i) ? row(user) : null,
+                        inlineBooks.get(i) ? book : null,
+                        loan.getLoanDate(),
+                        finished.get(i) ? LoanState.FINISHED : LoanState.STARTED,
+                        returnDates[i],
+                        loan.getDueDate()));
+            }
+            return new Snapshot(sequence, new AbstractCollection<>() {
+                @Override
+                public Iterator<Book> iterator() {
+                    return books.iterator();
+                }
+
+                @Override
+                public int size() {
+                    return books.size();
+                }
+            }, userRows, loanRows);
+        }
+    }
+}
@@ -0,0 +1,392 @@
+package com.dev.mxd.persistence;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.IntBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+import com.dev.mxd.model.Loan;
+
+// Historial en disco de los préstamos terminados. Cada archivado escribe un
+// segmento nuevo (archive-<secuencia>.col) que no se vuelve a modificar.
+// Dentro del segmento los datos van por columnas:
+// [long MAGIC][int VERSION][int filas][int primer día][int último día]
+// [int usuarios] { id }   [int libros] { isbn }     (diccionarios)
+// [int día] x filas  [int código de usuario] x filas  [int código de libro] x filas
+// [int vencimiento] x filas  [int devolución o NO_DAY] x filas   (desde la versión 2)
+// [int crc32 de todo lo anterior]
+// Así una consulta por usuario solo recorre la columna de usuarios, y una por
+// fechas descarta segmentos enteros mirando el primer y el último día.
+// Cada segmento se abre una sola vez: sus diccionarios quedan en memoria y sus
+// columnas mapeadas, y se leen por posición, así varios hilos pueden consultar
+// a la vez sin candados.
+public final class LoanArchive {
+
+    private static final long MAGIC = 0x4249424C41524348L; // "BIBLARCH"
+    // La versión 2 agregó el vencimiento y la devolución; la 1 se sigue pudiendo
+    // leer (vence a los Loan.DEFAULT_LOAN_DAYS días y la devolución no se sabe)
+    private static final int VERSION = 2;
+    // Día guardado cuando no se sabe la fecha de devolución
+    private static final int NO_DAY = Integer.MIN_VALUE;
+    private static final Pattern SEGMENT_NAME = Pattern.compile("archive-(\\d+)\\.col");
+
+    private final Path directory;
+    // Segmentos válidos, del más viejo al más nuevo
+    private final List<Segment> segments;
+
+    private LoanArchive(Path directory, List<Segment> segments) {
+        this.directory = directory;
+        this.segments = new CopyOnWriteArrayList<>(segments);
+    }
+
+    // Abre el historial del directorio y valida el CRC de cada segmento.
+    // Si alguno está dañado lanza IOException.
+    public static LoanArchive open(Path directory) throws IOException {
+        if (directory == null) {
+            throw new IllegalArgumentException("El directorio no puede ser nulo");
+        }
+        var files = new ArrayList<Path>();
+        try (var list = Files.list(directory)) {
+            list.filter(path -> SEGMENT_NAME.matcher(path.getFileName().toString()).matches())
+                    .forEach(files::add);
+        }
+        files.sort(Comparator.comparingLong(LoanArchive::segmentSequence));
+        var segments = new ArrayList<Segment>(files.size());
+        for (var file : files) {
+            segments.add(Segment.open(file));
+        }
+        return new LoanArchive(directory, segments);
+    }
+
+    // Cantidad de préstamos en el historial
+    public long count() throws IOException {
+        long count = 0;
+        for (var segment : segments) {
+            count += segment.rows;
+        }
+        return count;
+    }
+
+    // Préstamos del usuario, del más viejo al más nuevo
+    public List<ArchivedLoan> loansOfUser(String userId) throws IOException {
+        if (userId == null) {
+            throw new IllegalArgumentException("El ID no puede ser nulo");
+        }
+        var result = new ArrayList<ArchivedLoan>();
+        for (var segment : segments) {
+            var code = segment.userCodes.get(userId);
+            if (code != null) {
+                segment.collect(segment.userColumn, code, result);
+            }
+        }
+        return result;
+    }
+
+    // Préstamos del libro, del más viejo al más nuevo
+    public List<ArchivedLoan> loansOfBook(String isbn) throws IOException {
+        if (isbn == null) {
+            throw new IllegalArgumentException("El ISBN no puede ser nulo");
+        }
+        var result = new ArrayList<ArchivedLoan>();
+        for (var segment : segments) {
+            var code = segment.bookCodes.get(isbn);
+            if (code != null) {
+                segment.collect(segment.bookColumn, code, result);
+            }
+        }
+        return result;
+    }
+
+    // Préstamos con fecha entre "from" y "to", ambas inclusive
+    public List<ArchivedLoan> loansBetween(LocalDate from, LocalDate to) throws IOException {
+        if (from == null || to == null) {
+            throw new IllegalArgumentException("Las fechas no pueden ser nulas");
+        }
+        long first = from.toEpochDay();
+        long last = to.toEpochDay();
+        var result = new ArrayList<ArchivedLoan>();
+        for (var segment : segments) {
+            if (segment.rows == 0 || segment.lastDay < first || segment.firstDay > last) {
+                continue;
+            }
+            for (int row = 0; row < segment.rows; row++) {
+                int day = segment.dayColumn.get(row);
+                if (day >= first && day <= last) {
+                    result.add(segment.row(row));
+                }
+            }
+        }
+        return result;
+    }
+
+    // Recorre todo el historial, del préstamo más viejo al más nuevo
+    public void forEach(Consumer<ArchivedLoan> action) throws IOException {
+        if (action == null) {
+            throw new IllegalArgumentException("La acción no puede ser nula");
+        }
+        for (var segment : segments) {
+            for (int row = 0; row < segment.rows; row++) {
+                action.accept(segment.row(row));
+            }
+        }
+    }
+
+    // Secuencia del segmento más nuevo, o 0 si el historial está vacío
+    public long lastSequence() {
+        var last = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+        return last == null ? 0 : last.sequence;
+    }
+
+    // Escribe un segmento nuevo con los préstamos, de forma atómica y forzado a disco.
+    // "sequence" es la secuencia del snapshot que deja de tenerlos y tiene que ser
+    // mayor que la del último segmento: el nombre sale de la secuencia, así que
+    // repetirla pisaría un segmento que ya tiene préstamos.
+    void append(long sequence, List<ArchivedLoan> loans) throws IOException {
+        if (sequence <= lastSequence()) {
+            throw new IllegalStateException("Ya hay un segmento del historial en la secuencia "
+                    + lastSequence() + ", no se puede archivar en la " + sequence);
+        }
+        var file = directory.resolve(segmentName(sequence));
+        write(file, loans);
+        segments.add(Segment.open(file));
+    }
+
+    // Borra los segmentos de la secuencia "sequence" en adelante: sus préstamos
+    // siguen en memoria porque el snapshot que los sacaba no llegó a escribirse
+    void discardFrom(long sequence) throws IOException {
+        for (var segment : segments) {
+            if (segment.sequence >= sequence) {
+                segments.remove(segment);
+                Files.deleteIfExists(segment.file);
+            }
+        }
+    }
+
+    private static void write(Path file, List<ArchivedLoan> loans) throws IOException {
+        // Cada columna se mapea entera al abrir el segmento
+        if (loans.size() > Integer.MAX_VALUE / 4) {
+            throw new IllegalArgumentException("Demasiados préstamos para un segmento: " + loans.size());
+        }
+        // Diccionarios: cada ID e ISBN se guarda una sola vez por segmento
+        var users = new HashMap<String, Integer>();
+        var books = new HashMap<String, Integer>();
+        var userList = new ArrayList<String>();
+        var bookList = new ArrayList<String>();
+        long firstDay = Long.MAX_VALUE;
+        long lastDay = Long.MIN_VALUE;
+        for (var loan : loans) {
+            if (users.putIfAbsent(loan.userId(), users.size()) == null) {
+                userList.add(loan.userId());
+            }
+            if (books.putIfAbsent(loan.isbn(), books.size()) == null) {
+                bookList.add(loan.isbn());
+            }
+            firstDay = Math.min(firstDay, loan.loanDate().toEpochDay());
+            lastDay = Math.max(lastDay, loan.loanDate().toEpochDay());
+        }
+
+        var temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (var channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            var checked = new CheckedOutputStream(
+                    new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16), new CRC32());
+            var out = new DataOutputStream(checked);
+            out.writeLong(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(loans.size());
+            out.writeInt(loans.isEmpty() ? 0 : (int) firstDay);
+            out.writeInt(loans.isEmpty() ? 0 : (int) lastDay);
+            writeStrings(out, userList);
+            writeStrings(out, bookList);
+            for (var loan : loans) {
+                out.writeInt((int) loan.loanDate().toEpochDay());
+            }
+            for (var loan : loans) {
+                out.writeInt(users.get(loan.userId()));
+            }
+            for (var loan : loans) {
+                out.writeInt(books.get(loan.isbn()));
+            }
+            for (var loan : loans) {
+                out.writeInt((int) loan.dueDate().toEpochDay());
+            }
+            for (var loan : loans) {
+                out.writeInt(loan.returnDate() == null ? NO_DAY : (int) loan.returnDate().toEpochDay());
+            }
+            out.flush();
+            out.writeInt((int) checked.getChecksum().getValue());
+            out.flush();
+            channel.force(true);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void writeStrings(DataOutputStream out, List<String> values) throws IOException {
+        out.writeInt(values.size());
+        for (var value : values) {
+            var bytes = value.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    private static long segmentSequence(Path segment) {
+        var matcher = SEGMENT_NAME.matcher(segment.getFileName().toString());
+        if (!matcher.matches()) {
+            throw new IllegalArgumentException("No es un segmento del historial: " + segment);
+        }
+        return Long.parseLong(matcher.group(1));
+    }
+
+    static String segmentName(long sequence) {
+        return String.format("archive-%020d.col", sequence);
+    }
+
+    // Un segmento abierto: encabezado, diccionarios y columnas mapeadas.
+    // No cambia después de abrirlo.
+    private static final class Segment {
+
+        final Path file;
+        final long sequence;
+        final int rows;
+        final int firstDay;
+        final int lastDay;
+        // Código -> texto, y texto -> código para buscar sin recorrer el diccionario
+        final List<String> users;
+        final List<String> books;
+        final Map<String, Integer> userCodes;
+        final Map<String, Integer> bookCodes;
+        final IntBuffer dayColumn;
+        final IntBuffer userColumn;
+        final IntBuffer bookColumn;
+        // null en los segmentos de la versión 1
+        final IntBuffer dueColumn;
+        final IntBuffer returnColumn;
+
+        private Segment(Path file, int rows, int firstDay, int lastDay, List<String> users, List<String> books,
+                        IntBuffer[] columns) {
+            this.file = file;
+            this.sequence = segmentSequence(file);
+            this.rows = rows;
+            this.firstDay = firstDay;
+            this.lastDay = lastDay;
+            this.users = users;
+            this.books = books;
+            this.userCodes = codes(users);
+            this.bookCodes = codes(books);
+            this.dayColumn = columns[0];
+            this.userColumn = columns[1];
+            this.bookColumn = columns[2];
+            this.dueColumn = columns.length > 3 ? columns[3] : null;
+            this.returnColumn = columns.length > 4 ? columns[4] : null;
+        }
+
+        // Lee el encabezado, valida el CRC y que las columnas ocupen exactamente
+        // el resto del archivo, y las mapea
+        static Segment open(Path file) throws IOException {
+            try (var in = new MappedInput(file)) {
+                if (in.size() < 8 + 4 + 4 * 3 + 4 * 2 + 4) {
+                    throw new IOException("Segmento del historial incompleto: " + file);
+                }
+                long contentBytes = in.size() - 4;
+                long expected = in.crc(contentBytes);
+                if (in.readLong() != MAGIC) {
+                    throw new IOException("El archivo no es un segmento del historial: " + file);
+                }
+                int version = in.readInt();
+                if (version < 1 || version > VERSION) {
+                    throw new IOException("Versión de historial no soportada: " + version);
+                }
+                int rows = count(in);
+                int firstDay = in.readInt();
+                int lastDay = in.readInt();
+                var users = readStrings(in);
+                var books = readStrings(in);
+                var columns = new IntBuffer[version == 1 ? 3 : 5];
+                long columnBytes = 4L * rows;
+                long start = in.position();
+                if (start + columnBytes * columns.length != contentBytes) {
+                    throw new IOException("Segmento del historial dañado: " + file);
+                }
+                in.seek(contentBytes);
+                if ((int) expected != in.readInt()) {
+                    throw new IOException("Segmento del historial dañado: " + file);
+                }
+                for (int i = 0; i < columns.length; i++) {
+                    columns[i] = in.map(start + columnBytes * i, columnBytes).asIntBuffer();
+                }
+                return new Segment(file, rows, firstDay, lastDay, users, books, columns);
+            }
+        }
+
+        // Agrega las filas cuya columna (de usuarios o de libros) tiene el código
+        void collect(IntBuffer column, int code, List<ArchivedLoan> result) throws IOException {
+            for (int row = 0; row < rows; row++) {
+                if (column.get(row) == code) {
+                    result.add(row(row));
+                }
+            }
+        }
+
+        // Arma la fila leyendo cada columna en su posición
+        ArchivedLoan row(int row) throws IOException {
+            var loanDate = LocalDate.ofEpochDay(dayColumn.get(row));
+            var dueDate = dueColumn != null
+                    ? LocalDate.ofEpochDay(dueColumn.get(row))
+                    : loanDate.plusDays(Loan.DEFAULT_LOAN_DAYS);
+            int returnDay = returnColumn != null ? returnColumn.get(row) : NO_DAY;
+            return new ArchivedLoan(code(users, userColumn.get(row)), code(books, bookColumn.get(row)),
+                    loanDate, dueDate, returnDay == NO_DAY ? null : LocalDate.ofEpochDay(returnDay));
+        }
+
+        private static Map<String, Integer> codes(List<String> dictionary) {
+            var codes = new HashMap<String, Integer>(dictionary.size() * 4 / 3 + 1);
+            for (int i = 0; i < dictionary.size(); i++) {
+                codes.put(dictionary.get(i), i);
+            }
+            return codes;
+        }
+
+        private static String code(List<String> dictionary, int code) throws IOException {
+            if (code < 0 || code >= dictionary.size()) {
+                throw new IOException("Código inválido en el historial: " + code);
+            }
+            return dictionary.get(code);
+        }
+
+        private static List<String> readStrings(MappedInput in) throws IOException {
+            int count = count(in);
+            var values = new ArrayList<String>(count);
+            for (int i = 0; i < count; i++) {
+                values.add(in.readString());
+            }
+            return values;
+        }
+
+        private static int count(MappedInput in) throws IOException {
+            int count = in.readInt();
+            if (count < 0) {
+                throw new IOException("Cantidad inválida en el historial: " + count);
+            }
+            return count;
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.dev.mxd.persistence;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+// Lectura secuencial de un archivo mapeado en memoria.
+// El archivo se mapea por ventanas (un MappedByteBuffer no puede pasar de 2 GB),
+// así se leen snapshots de cualquier tamaño sin copiarlos al heap.
+final class MappedInput implements Closeable {
+
+    // Tamaño de cada ventana mapeada
+    private static final long WINDOW_BYTES = 1L << 28;
+
+    private final FileChannel channel;
+    private final long size;
+    private MappedByteBuffer window;
+    private long windowStart;
+    private long position;
+
+    MappedInput(Path file) throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.READ);
+        size = channel.size();
+    }
+
+    // Tamaño total del archivo
+    long size() {
+        return size;
+    }
+
+    // Posición actual de lectura
+    long position() {
+        return position;
+    }
+
+    // Mueve la posición de lectura (por ejemplo, al principio de una columna)
+    void seek(long position) throws IOException {
+        if (position < 0 || position > size) {
+            throw new EOFException("Posición fuera del archivo: " + position);
+        }
+        this.position = position;
+    }
+
+    // CRC32 de los primeros "length" bytes, recorriendo el archivo por ventanas
+    long crc(long length) throws IOException {
+        var crc = new CRC32();
+        long offset = 0;
+        while (offset < length) {
+            long chunk = Math.min(WINDOW_BYTES, length - offset);
+            crc.update(channel.map(FileChannel.MapMode.READ_ONLY, offset, chunk));
+            offset += chunk;
+        }
+        return crc.getValue();
+    }
+
+    // Mapea "length" bytes desde "position" para leerlos por posición absoluta.
+    // El mapeo sigue siendo válido después de cerrar el archivo.
+    MappedByteBuffer map(long position, long length) throws IOException {
+        if (position < 0 || length < 0 || position + length > size || length > Integer.MAX_VALUE) {
+            throw new IOException("Región inválida del archivo: " + position + "+" + length);
+        }
+        return channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+    }
+
+    byte readByte() throws IOException {
+        ensure(1);
+        return window.get(offset(1));
+    }
+
+    int readInt() throws IOException {
+        ensure(4);
+        return window.getInt(offset(4));
+    }
+
+    long readLong() throws IOException {
+        ensure(8);
+        return window.getLong(offset(8));
+    }
+
+    // Texto guardado como [int largo][bytes UTF-8]
+    String readString() throws IOException {
+        int length = readInt();
+        if (length < 0) {
+            throw new IOException("Largo de texto inválido: " + length);
+        }
+        ensure(length);
+        var bytes = new byte[length];
+        window.get(offset(length), bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void close() throws IOException {
+        window = null;
+        channel.close();
+    }
+
+    // Posición dentro de la ventana de los próximos "bytes" bytes, y avanza
+    private int offset(int bytes) {
+        int offset = (int) (position - windowStart);
+        position += bytes;
+        return offset;
+    }
+
+    // Garantiza que los próximos "bytes" bytes estén dentro de la ventana mapeada
+    private void ensure(int bytes) throws IOException {
+        if (position + bytes > size) {
+            throw new EOFException("Fin inesperado del archivo");
+        }
+        if (window == null || position < windowStart || position + bytes > windowStart + window.limit()) {
+            long length = Math.min(size - position, Math.max(WINDOW_BYTES, bytes));
+            window = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+            windowStart = position;
+        }
+    }
+}
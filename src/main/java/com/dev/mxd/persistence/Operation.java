@@ -0,0 +1,24 @@
+package com.dev.mxd.persistence;
+
+// Operaciones de los servicios que cambian el estado y quedan en el journal
+public enum Operation {
+    // BookService.addBook(isbn, title, author)
+    ADD_BOOK,
+    // BookService.deleteBook(isbn)
+    DELETE_BOOK,
+    // UserService.addUser(id, name, email, registerDate)
+    ADD_USER,
+    // UserService.updateUserEmail(id, email)
+    UPDATE_USER_EMAIL,
+    // UserService.updateUserName(id, name)
+    UPDATE_USER_NAME,
+    // UserService.deleteUser(id)
+    DELETE_USER,
+    // LoanService.addLoan(id, isbn, loanDate, dueDate); los registros viejos no traen el vencimiento
+    ADD_LOAN,
+    // LoanService.returnBook(id, isbn, returnDate)
+    RETURN_BOOK,
+    // Inicio de un lote (Journal.recordBatch): las "cantidad" operaciones
+    // siguientes se aplican todas o ninguna
+    BEGIN_BATCH;
+}
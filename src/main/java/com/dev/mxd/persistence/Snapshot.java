@@ -0,0 +1,51 @@
+package com.dev.mxd.persistence;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+import com.dev.mxd.model.Book;
+import com.dev.mxd.model.Loan;
+import com.dev.mxd.model.LoanState;
+
+// Foto del estado de los tres servicios en un punto del journal:
+// contiene todo lo aplicado hasta "sequence" inclusive. Los libros se recorren
+// una vez al escribirla: pueden venir de una vista fija del almacenamiento.
+public record Snapshot(long sequence, Collection<Book> books, List<UserRow> users, List<LoanRow> loans) {
+
+    public Snapshot {
+        if (books == null || users == null || loans == null) {
+            throw new IllegalArgumentException("Los parámetros no pueden ser nulos");
+        }
+    }
+
+    // Datos de un usuario tal como estaban al tomar la foto
+    public record UserRow(String id, String name, String email, LocalDate registerDate) {
+    }
+
+    // Un préstamo. Normalmente solo guarda el ID del usuario y el ISBN, que se
+    // resuelven contra los usuarios y libros de la foto; si el usuario o el libro
+    // ya fueron borrados, sus datos vienen completos en inlineUser / inlineBook.
+    // returnDate es null si el libro no se devolvió o no se sabe cuándo.
+    public record LoanRow(String userId, String isbn, UserRow inlineUser, Book inlineBook,
+                          LocalDate loanDate, LoanState state, LocalDate returnDate, LocalDate dueDate) {
+
+        public LoanRow {
+            if (loanDate == null || dueDate == null || state == null) {
+                throw new IllegalArgumentException("Los parámetros no pueden ser nulos");
+            }
+        }
+
+        // Préstamo con el vencimiento por defecto (Loan.DEFAULT_LOAN_DAYS)
+        public LoanRow(String userId, String isbn, UserRow inlineUser, Book inlineBook,
+                       LocalDate loanDate, LoanState state, LocalDate returnDate) {
+            this(userId, isbn, inlineUser, inlineBook, loanDate, state, returnDate,
+                    loanDate == null ? null : loanDate.plusDays(Loan.DEFAULT_LOAN_DAYS));
+        }
+
+        public LoanRow(String userId, String isbn, UserRow inlineUser, Book inlineBook,
+                       LocalDate loanDate, LoanState state) {
+            this(userId, isbn, inlineUser, inlineBook, loanDate, state, null);
+        }
+    }
+}
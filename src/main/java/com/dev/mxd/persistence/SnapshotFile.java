@@ -0,0 +1,199 @@
+package com.dev.mxd.persistence;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+import com.dev.mxd.model.Book;
+import com.dev.mxd.model.Loan;
+import com.dev.mxd.model.LoanState;
+
+// Lectura y escritura de snapshots en un formato binario compacto:
+// [long MAGIC][int VERSION][long secuencia]
+// [int libros]   { isbn, título, autor }
+// [int usuarios] { id, nombre, email, long día de registro }
+// [int préstamos]{ byte flags, usuario (ID o completo), libro (ISBN o completo), long día del préstamo,
+//                  long día de vencimiento,
+//                  long día de la devolución (solo si el flag RETURNED está prendido) }
+// [int crc32 de todo lo anterior]
+// Los textos van como [int largo][bytes UTF-8] y las fechas como días desde 1970.
+// La escritura va a un archivo temporal que se renombra al final, así un
+// snapshot a medio escribir nunca reemplaza al anterior.
+public final class SnapshotFile {
+
+    private static final long MAGIC = 0x4249424C534E4150L; // "BIBLSNAP"
+    // La versión 2 agregó el día de la devolución y la 3 el de vencimiento; las
+    // anteriores se siguen pudiendo leer (vencen a los Loan.DEFAULT_LOAN_DAYS días)
+    private static final int VERSION = 3;
+
+    // Bits del byte de flags de cada préstamo
+    private static final int INLINE_USER = 1;
+    private static final int INLINE_BOOK = 2;
+    private static final int FINISHED = 4;
+    private static final int RETURNED = 8;
+
+    private SnapshotFile() {
+    }
+
+    // Escribe el snapshot en "file" de forma atómica y lo fuerza a disco
+    public static void write(Path file, Snapshot snapshot) throws IOException {
+        var temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (var channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            var checked = new CheckedOutputStream(
+                    new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16), new CRC32());
+            var out = new DataOutputStream(checked);
+            out.writeLong(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(snapshot.sequence());
+
+            out.writeInt(snapshot.books().size());
+            for (var book : snapshot.books()) {
+                writeBook(out, book);
+            }
+            out.writeInt(snapshot.users().size());
+            for (var user : snapshot.users()) {
+                writeUser(out, user);
+            }
+            out.writeInt(snapshot.loans().size());
+            for (var loan : snapshot.loans()) {
+                int flags = (loan.inlineUser() != null ? INLINE_USER : 0)
+                        | (loan.inlineBook() != null ? INLINE_BOOK : 0)
+                        | (loan.state() == LoanState.FINISHED ? FINISHED : 0)
+                        | (loan.returnDate() != null ? RETURNED : 0);
+                out.writeByte(flags);
+                if (loan.inlineUser() != null) {
+                    writeUser(out, loan.inlineUser());
+                } else {
+                    writeString(out, loan.userId());
+                }
+                if (loan.inlineBook() != null) {
+                    writeBook(out, loan.inlineBook());
+                } else {
+                    writeString(out, loan.isbn());
+                }
+                out.writeLong(loan.loanDate().toEpochDay());
+                out.writeLong(loan.dueDate().toEpochDay());
+                if (loan.returnDate() != null) {
+                    out.writeLong(loan.returnDate().toEpochDay());
+                }
+            }
+            out.flush();
+            out.writeInt((int) checked.getChecksum().getValue());
+            out.flush();
+            channel.force(true);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // Lee un snapshot mapeando el archivo en memoria. Si el archivo está
+    // incompleto o dañado lanza IOException.
+    public static Snapshot read(Path file) throws IOException {
+        try (var in = new MappedInput(file)) {
+            if (in.size() < 8 + 4 + 8 + 4) {
+                throw new IOException("Snapshot incompleto: " + file);
+            }
+            // Primero valida el CRC del contenido completo
+            long contentBytes = in.size() - 4;
+            long expected = in.crc(contentBytes);
+            if (in.readLong() != MAGIC) {
+                throw new IOException("El archivo no es un snapshot: " + file);
+            }
+            int version = in.readInt();
+            if (version < 1 || version > VERSION) {
+                throw new IOException("Versión de snapshot no soportada: " + version);
+            }
+            long sequence = in.readLong();
+
+            int bookCount = count(in);
+            var books = new ArrayList<Book>(bookCount);
+            for (int i = 0; i < bookCount; i++) {
+                books.add(readBook(in));
+            }
+            int userCount = count(in);
+            var users = new ArrayList<Snapshot.UserRow>(userCount);
+            for (int i = 0; i < userCount; i++) {
+                users.add(readUser(in));
+            }
+            int loanCount = count(in);
+            var loans = new ArrayList<Snapshot.LoanRow>(loanCount);
+            for (int i = 0; i < loanCount; i++) {
+                int flags = in.readByte();
+                Snapshot.UserRow inlineUser = null;
+                String userId;
+                if ((flags & INLINE_USER) != 0) {
+                    inlineUser = readUser(in);
+                    userId = inlineUser.id();
+                } else {
+                    userId = in.readString();
+                }
+                Book inlineBook = null;
+                String isbn;
+                if ((flags & INLINE_BOOK) != 0) {
+                    inlineBook = readBook(in);
+                    isbn = inlineBook.getIsbn();
+                } else {
+                    isbn = in.readString();
+                }
+                var loanDate = LocalDate.ofEpochDay(in.readLong());
+                var dueDate = version >= 3
+                        ? LocalDate.ofEpochDay(in.readLong())
+                        : loanDate.plusDays(Loan.DEFAULT_LOAN_DAYS);
+                var returnDate = (flags & RETURNED) != 0 ? LocalDate.ofEpochDay(in.readLong()) : null;
+                var state = (flags & FINISHED) != 0 ? LoanState.FINISHED : LoanState.STARTED;
+                loans.add(new Snapshot.LoanRow(userId, isbn, inlineUser, inlineBook, loanDate, state, returnDate, dueDate));
+            }
+            if (in.position() != contentBytes || (int) expected != in.readInt()) {
+                throw new IOException("Snapshot dañado: " + file);
+            }
+            return new Snapshot(sequence, books, users, loans);
+        }
+    }
+
+    private static int count(MappedInput in) throws IOException {
+        int count = in.readInt();
+        if (count < 0) {
+            throw new IOException("Cantidad inválida en el snapshot: " + count);
+        }
+        return count;
+    }
+
+    private static void writeBook(DataOutputStream out, Book book) throws IOException {
+        writeString(out, book.getIsbn());
+        writeString(out, book.getTitle());
+        writeString(out, book.getAuthor());
+    }
+
+    private static Book readBook(MappedInput in) throws IOException {
+        return new Book(in.readString(), in.readString(), in.readString());
+    }
+
+    private static void writeUser(DataOutputStream out, Snapshot.UserRow user) throws IOException {
+        writeString(out, user.id());
+        writeString(out, user.name());
+        writeString(out, user.email());
+        out.writeLong(user.registerDate().toEpochDay());
+    }
+
+    private static Snapshot.UserRow readUser(MappedInput in) throws IOException {
+        return new Snapshot.UserRow(in.readString(), in.readString(), in.readString(),
+                LocalDate.ofEpochDay(in.readLong()));
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        var bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+}
@@ -0,0 +1,146 @@
+package com.dev.mxd.search;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.dev.mxd.model.Book;
+
+// Índice invertido sobre el título y el autor de los libros.
+// Cada palabra normalizada apunta a los ISBN que la contienen, así una búsqueda
+// solo toca las listas de sus términos y no recorre todo el catálogo.
+// Las búsquedas no toman candados y pueden correr junto a los cambios: las
+// listas son ConcurrentHashMap, así una búsqueda ve cada libro indexado o no,
+// pero nunca una lista rota. Un libro que se está agregando puede aparecer en
+// la lista de un término y todavía no en la de otro.
+// Los cambios (add y remove) no se sincronizan entre sí: el dueño (BookService) los serializa.
+public class InvertedIndex {
+
+    // Peso de una palabra del título frente a una del autor
+    private static final int TITLE_WEIGHT = 2;
+    private static final int AUTHOR_WEIGHT = 1;
+
+    // término -> (isbn -> peso del término en ese libro)
+    private final Map<String, Map<String, Integer>> postings = new ConcurrentHashMap<>();
+    // Cantidad de libros indexados, para calcular qué tan raro es un término
+    // (la cambian solo los escritores)
+    private volatile int documents;
+
+    // Indexa el título y el autor del libro
+    public void add(Book book) {
+        var isbn = book.getIsbn();
+        for (var term : termWeights(book).entrySet()) {
+            postings.computeIfAbsent(term.getKey(), k -> new ConcurrentHashMap<>())
+                    .put(isbn, term.getValue());
+        }
+        documents++;
+    }
+
+    // Quita el libro del índice; debe ser el mismo libro que se indexó
+    public void remove(Book book) {
+        var isbn = book.getIsbn();
+        for (var term : termWeights(book).keySet()) {
+            var posting = postings.get(term);
+            if (posting != null && posting.remove(isbn) != null && posting.isEmpty()) {
+                postings.remove(term);
+            }
+        }
+        documents--;
+    }
+
+    // Busca los términos de la consulta y devuelve los ISBN ordenados por relevancia.
+    // La relevancia suma, por cada término encontrado, su peso en el libro
+    // multiplicado por lo poco común que es el término en el catálogo.
+    public List<String> search(String query, SearchMode mode) {
+        if (query == null || mode == null) {
+            throw new IllegalArgumentException("Los parámetros no pueden ser nulos");
+        }
+        var terms = new LinkedHashSet<>(TextNormalizer.tokenize(query));
+        if (terms.isEmpty()) {
+            return List.of();
+        }
+
+        var lists = new ArrayList<Map<String, Integer>>(terms.size());
+        var idfs = new ArrayList<Double>(terms.size());
+        for (var term : terms) {
+            var posting = postings.get(term);
+            if (posting == null) {
+                // Con AND basta un término ausente para que no haya resultados
+                if (mode == SearchMode.ALL) {
+                    return List.of();
+                }
+                continue;
+            }
+            lists.add(posting);
+            // Una lista que se está vaciando puede tener tamaño 0 por un momento
+            idfs.add(Math.log(1.0 + (double) documents / Math.max(1, posting.size())));
+        }
+
+        var scores = mode == SearchMode.ALL ? intersect(lists, idfs) : union(lists, idfs);
+        var ranked = new ArrayList<>(scores.entrySet());
+        ranked.sort(Map.Entry.<String, Double>comparingByValue(Comparator.reverseOrder())
+                .thenComparing(Map.Entry.comparingByKey()));
+        var result = new ArrayList<String>(ranked.size());
+        for (var entry : ranked) {
+            result.add(entry.getKey());
+        }
+        return result;
+    }
+
+    // Cantidad de libros indexados
+    public int size() {
+        return documents;
+    }
+
+    // AND: recorre la lista más corta y comprueba las demás con búsquedas O(1)
+    private static Map<String, Double> intersect(List<Map<String, Integer>> lists, List<Double> idfs) {
+        int shortest = 0;
+        for (int i = 1; i < lists.size(); i++) {
+            if (lists.get(i).size() < lists.get(shortest).size()) {
+                shortest = i;
+            }
+        }
+        var scores = new HashMap<String, Double>();
+        candidates:
+        for (var isbn : lists.get(shortest).keySet()) {
+            double score = 0;
+            for (int i = 0; i < lists.size(); i++) {
+                var weight = lists.get(i).get(isbn);
+                if (weight == null) {
+                    continue candidates;
+                }
+                score += weight * idfs.get(i);
+            }
+            scores.put(isbn, score);
+        }
+        return scores;
+    }
+
+    // OR: acumula el puntaje de cada libro que aparece en alguna lista
+    private static Map<String, Double> union(List<Map<String, Integer>> lists, List<Double> idfs) {
+        var scores = new HashMap<String, Double>();
+        for (int i = 0; i < lists.size(); i++) {
+            double idf = idfs.get(i);
+            for (var posting : lists.get(i).entrySet()) {
+                scores.merge(posting.getKey(), posting.getValue() * idf, Double::sum);
+            }
+        }
+        return scores;
+    }
+
+    // Peso de cada término del libro: las palabras del título pesan más que las del autor
+    private static Map<String, Integer> termWeights(Book book) {
+        var weights = new HashMap<String, Integer>();
+        for (var term : TextNormalizer.tokenize(book.getTitle())) {
+            weights.merge(term, TITLE_WEIGHT, Integer::sum);
+        }
+        for (var term : TextNormalizer.tokenize(book.getAuthor())) {
+            weights.merge(term, AUTHOR_WEIGHT, Integer::sum);
+        }
+        return weights;
+    }
+}
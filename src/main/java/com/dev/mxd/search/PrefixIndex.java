@@ -0,0 +1,188 @@
+package com.dev.mxd.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+// Índice de autocompletado por prefijo sobre textos completos (títulos, autores).
+// Los textos normalizados viven en arreglos ordenados y compactos donde el prefijo
+// se ubica con búsqueda binaria; los cambios recientes se acumulan en un mapa
+// ordenado pequeño que se fusiona con los arreglos cuando crece. Así una consulta
+// cuesta O(log n + k) y cada entrada ocupa solo dos referencias y un int.
+// Las consultas no toman candados: los arreglos no se modifican nunca y se
+// publican junto con su mapa de cambios en un único campo volátil, así una
+// consulta siempre combina arreglos y cambios de la misma versión.
+// Los cambios (add y remove) no se sincronizan entre sí: el dueño (BookService) los serializa.
+public class PrefixIndex {
+
+    // Cambios pendientes a partir de los cuales se reconstruyen los arreglos
+    private static final int MIN_PENDING_BEFORE_MERGE = 1024;
+
+    // Versión actual: arreglos compactos y cambios desde la última fusión
+    private volatile State state = new State(new String[0], new String[0], new int[0]);
+    // Cantidad de textos distintos con al menos un libro
+    private volatile int size;
+
+    // Registra una aparición del texto (por ejemplo, el título de un libro nuevo)
+    public void add(String text) {
+        change(text, 1);
+    }
+
+    // Quita una aparición del texto; cuando ya no quedan, deja de sugerirse
+    public void remove(String text) {
+        change(text, -1);
+    }
+
+    // Devuelve hasta "limit" textos que empiezan con el prefijo, en orden alfabético.
+    // El prefijo se compara sin mayúsculas ni tildes.
+    public List<String> complete(String prefix, int limit) {
+        if (prefix == null) {
+            throw new IllegalArgumentException("El prefijo no puede ser nulo");
+        }
+        if (limit <= 0) {
+            throw new IllegalArgumentException("El límite debe ser positivo");
+        }
+        var current = state;
+        var keys = current.keys;
+        var normalized = TextNormalizer.normalize(prefix).strip();
+        var result = new ArrayList<String>(Math.min(limit, 16));
+        int i = current.lowerBound(normalized);
+        var deltas = current.pending.tailMap(normalized, true).entrySet().iterator();
+        Map.Entry<String, Pending> delta = deltas.hasNext() ? deltas.next() : null;
+
+        // Fusiona en orden las dos fuentes, sumando cantidades de la misma clave
+        while (result.size() < limit) {
+            var baseKey = i < keys.length && keys[i].startsWith(normalized) ? keys[i] : null;
+            var deltaKey = delta != null && delta.getKey().startsWith(normalized) ? delta.getKey() : null;
+            if (baseKey == null && deltaKey == null) {
+                break;
+            }
+            int cmp = baseKey == null ? 1 : deltaKey == null ? -1 : baseKey.compareTo(deltaKey);
+            int count = 0;
+            String label = null;
+            if (cmp <= 0) {
+                count += current.counts[i];
+                label = current.labels[i];
+                i++;
+            }
+            if (cmp >= 0) {
+                count += delta.getValue().count;
+                if (label == null) {
+                    label = delta.getValue().label;
+                }
+                delta = deltas.hasNext() ? deltas.next() : null;
+            }
+            if (count > 0) {
+                result.add(label);
+            }
+        }
+        return result;
+    }
+
+    // Cantidad de textos distintos que se pueden sugerir
+    public int size() {
+        return size;
+    }
+
+    private void change(String text, int diff) {
+        if (text == null) {
+            throw new IllegalArgumentException("El texto no puede ser nulo");
+        }
+        var current = state;
+        var key = TextNormalizer.normalize(text).strip();
+        int base = current.baseCount(key);
+        var entry = current.pending.computeIfAbsent(key, k -> new Pending(text.strip()));
+        int before = base + entry.count;
+        entry.count += diff;
+        int after = base + entry.count;
+        if (entry.count == 0) {
+            current.pending.remove(key);
+        }
+        if (before <= 0 && after > 0) {
+            size++;
+        } else if (before > 0 && after <= 0) {
+            size--;
+        }
+        if (current.pending.size() > Math.max(MIN_PENDING_BEFORE_MERGE, current.keys.length / 16)) {
+            merge(current);
+        }
+    }
+
+    // Arma arreglos nuevos aplicando los cambios pendientes y los publica
+    // con un mapa de cambios vacío. Las consultas en curso siguen con la versión anterior.
+    private void merge(State current) {
+        var keys = current.keys;
+        int capacity = keys.length + current.pending.size();
+        var newKeys = new String[capacity];
+        var newLabels = new String[capacity];
+        var newCounts = new int[capacity];
+        int n = 0;
+        int i = 0;
+        for (var delta : current.pending.entrySet()) {
+            while (i < keys.length && keys[i].compareTo(delta.getKey()) < 0) {
+                newKeys[n] = keys[i];
+                newLabels[n] = current.labels[i];
+                newCounts[n++] = current.counts[i++];
+            }
+            int count = delta.getValue().count;
+            var label = delta.getValue().label;
+            if (i < keys.length && keys[i].equals(delta.getKey())) {
+                count += current.counts[i];
+                label = current.labels[i];
+                i++;
+            }
+            if (count > 0) {
+                newKeys[n] = delta.getKey();
+                newLabels[n] = label;
+                newCounts[n++] = count;
+            }
+        }
+        while (i < keys.length) {
+            newKeys[n] = keys[i];
+            newLabels[n] = current.labels[i];
+            newCounts[n++] = current.counts[i++];
+        }
+        state = new State(Arrays.copyOf(newKeys, n), Arrays.copyOf(newLabels, n), Arrays.copyOf(newCounts, n));
+    }
+
+    // Una versión del índice: arreglos que no cambian más y los cambios posteriores
+    private static final class State {
+        // Parte compacta: claves normalizadas ordenadas, texto a mostrar y cantidad de libros
+        private final String[] keys;
+        private final String[] labels;
+        private final int[] counts;
+        // Cambios desde la fusión: clave -> diferencia de cantidad (puede ser negativa)
+        private final ConcurrentSkipListMap<String, Pending> pending = new ConcurrentSkipListMap<>();
+
+        private State(String[] keys, String[] labels, int[] counts) {
+            this.keys = keys;
+            this.labels = labels;
+            this.counts = counts;
+        }
+
+        // Cantidad guardada en los arreglos para la clave (0 si no está)
+        private int baseCount(String key) {
+            int i = Arrays.binarySearch(keys, key);
+            return i >= 0 ? counts[i] : 0;
+        }
+
+        // Primera posición cuya clave es mayor o igual al prefijo
+        private int lowerBound(String prefix) {
+            int i = Arrays.binarySearch(keys, prefix);
+            return i >= 0 ? i : -i - 1;
+        }
+    }
+
+    // Cambio pendiente de una clave: texto a mostrar y diferencia de cantidad
+    private static final class Pending {
+        private final String label;
+        // La cambian solo los escritores; las consultas la leen sin candados
+        private volatile int count;
+
+        private Pending(String label) {
+            this.label = label;
+        }
+    }
+}
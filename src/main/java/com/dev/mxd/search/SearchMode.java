@@ -0,0 +1,9 @@
+package com.dev.mxd.search;
+
+// Cómo se combinan los términos de una búsqueda
+public enum SearchMode {
+    // El libro debe contener todos los términos (AND)
+    ALL,
+    // Basta con que contenga alguno de los términos (OR)
+    ANY;
+}
@@ -0,0 +1,64 @@
+package com.dev.mxd.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+// Normaliza textos para buscar sin importar mayúsculas ni tildes:
+// "Cien Años de Soledad" y "cien anos de soledad" quedan iguales.
+public final class TextNormalizer {
+
+    private TextNormalizer() {
+    }
+
+    // Pasa a minúsculas y quita las marcas diacríticas (tildes, diéresis, virgulilla de la ñ)
+    public static String normalize(String text) {
+        if (text == null) {
+            throw new IllegalArgumentException("El texto no puede ser nulo");
+        }
+        // Camino rápido: texto ASCII, solo hace falta pasar a minúsculas
+        if (isAscii(text)) {
+            return text.toLowerCase(Locale.ROOT);
+        }
+        var decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        var out = new StringBuilder(decomposed.length());
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+            if (Character.getType(c) != Character.NON_SPACING_MARK) {
+                out.append(c);
+            }
+        }
+        return out.toString().toLowerCase(Locale.ROOT);
+    }
+
+    // Separa el texto normalizado en palabras (secuencias de letras o dígitos)
+    public static List<String> tokenize(String text) {
+        var normalized = normalize(text);
+        var tokens = new ArrayList<String>();
+        int start = -1;
+        for (int i = 0; i < normalized.length(); i++) {
+            if (Character.isLetterOrDigit(normalized.charAt(i))) {
+                if (start < 0) {
+                    start = i;
+                }
+            } else if (start >= 0) {
+                tokens.add(normalized.substring(start, i));
+                start = -1;
+            }
+        }
+        if (start >= 0) {
+            tokens.add(normalized.substring(start));
+        }
+        return tokens;
+    }
+
+    private static boolean isAscii(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) > 0x7F) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,103 @@
+package com.dev.mxd.service;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import com.dev.mxd.model.Loan;
+
+// Préstamos activos indexados por el código int del ISBN: como hay a lo sumo
+// un préstamo activo por libro, basta un arreglo (por páginas, para crecer sin
+// copiar) en vez de un mapa por ISBN y otro por (usuario, ISBN). Cada casillero
+// guarda además el código del usuario, así una devolución compara dos int en
+// lugar de dos String.
+// Los cambios de un ISBN se hacen con su candado tomado; el arreglo solo
+// necesita que crecer sea seguro.
+final class ActiveLoans {
+
+    private static final int PAGE_BITS = 10;
+    private static final int PAGE_SIZE = 1 << PAGE_BITS;
+
+    private final IdDictionary isbns = new IdDictionary();
+    private final IdDictionary users = new IdDictionary();
+    private volatile Page[] pages = new Page[16];
+
+    // Préstamo activo del libro, o null
+    Loan get(String isbn) {
+        var active = slot(isbns.codeOf(isbn));
+        return active == null ? null : active.loan();
+    }
+
+    // Préstamo activo del libro si es del usuario, o null
+    Loan get(String userId, String isbn) {
+        var active = slot(isbns.codeOf(isbn));
+        if (active == null || active.user() != users.codeOf(userId)) {
+            return null;
+        }
+        return active.loan();
+    }
+
+    // Registra el préstamo como el activo de su libro
+    void put(Loan loan) {
+        int code = isbns.intern(loan.getBook().getIsbn());
+        page(code, true).set(code & (PAGE_SIZE - 1), new Active(users.intern(loan.getUser().getId()), loan));
+    }
+
+    // Quita el préstamo si sigue siendo el activo de su libro
+    void remove(Loan loan) {
+        int code = isbns.codeOf(loan.getBook().getIsbn());
+        var page = page(code, false);
+        if (page == null) {
+            return;
+        }
+        int index = code & (PAGE_SIZE - 1);
+        var active = page.get(index);
+        if (active != null && active.loan() == loan) {
+            page.compareAndSet(index, active, null);
+        }
+    }
+
+    private Active slot(int code) {
+        var page = page(code, false);
+        return page == null ? null : page.get(code & (PAGE_SIZE - 1));
+    }
+
+    // Página del código; si "create" la agrega cuando falta
+    private Page page(int code, boolean create) {
+        if (code < 0) {
+            return null;
+        }
+        int number = code >>> PAGE_BITS;
+        var current = pages;
+        if (number < current.length && current[number] != null) {
+            return current[number];
+        }
+        if (!create) {
+            return null;
+        }
+        synchronized (this) {
+            current = pages;
+            if (number >= current.length) {
+                var grown = new Page[Math.max(current.length * 2, number + 1)];
+                System.arraycopy(current, 0, grown, 0, current.length);
+                current = grown;
+            }
+            if (current[number] == null) {
+                current[number] = new Page();
+            }
+            pages = current;
+            return current[number];
+        }
+    }
+
+    // Página de casilleros; es una clase propia para poder tener un arreglo de
+    // páginas sin crear arreglos de un tipo genérico
+    private static final class Page extends AtomicReferenceArray<Active> {
+
+        Page() {
+            super(PAGE_SIZE);
+        }
+    }
+
+    // Préstamo activo y código de su usuario
+    private record Active(int user, Loan loan) {
+    }
+}
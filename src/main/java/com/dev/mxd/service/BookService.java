@@ -1,20 +1,83 @@
 package com.dev.mxd.service;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Path;
+import java.util.AbstractCollection;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
 
+import com.dev.mxd.bulk.DelimitedReader;
+import com.dev.mxd.bulk.ImportReport;
+import com.dev.mxd.bulk.ParallelParser;
+import com.dev.mxd.bulk.ParsedRow;
+import com.dev.mxd.bulk.RejectedRow;
 import com.dev.mxd.exception.NotFoundException;
+import com.dev.mxd.metrics.LibraryMetrics;
+import com.dev.mxd.metrics.ServiceOperation;
 import com.dev.mxd.model.Book;
+import com.dev.mxd.persistence.Journal;
+import com.dev.mxd.persistence.Operation;
+import com.dev.mxd.search.InvertedIndex;
+import com.dev.mxd.search.PrefixIndex;
+import com.dev.mxd.search.SearchMode;
 // Servicio que maneja toda la lógica relacionada con los libros.
 // Aquí podemos agregar, eliminar, buscar y listar todos los libros.
+// Las búsquedas de texto y el autocompletado no toman candados. Las consultas
+// por ISBN y los listados dependen del almacenamiento: con el de por defecto
+// (BookStorage.inMemory) tampoco los toman; con PackedCatalog toman su candado
+// de lectura, salvo los aciertos del caché, y esperan a las altas y bajas del
+// catálogo. Las altas y bajas siempre se serializan.
 public class BookService {
 
-    // Lista donde se guardan todos los libros del sistema
-    private List<Book> books;
+    // Libros por ISBN en orden de alta: en el heap por defecto, o fuera del
+    // heap con PackedCatalog (ver BookStorage)
+    private BookStorage books;
+    // Índice de texto completo sobre título y autor, para las búsquedas de los usuarios
+    private InvertedIndex searchIndex;
+    // Índice de prefijos sobre títulos y autores completos, para autocompletar
+    private PrefixIndex autocompleteIndex;
+    // Serializa las altas y bajas (las consultas no lo usan; ver BookStorage)
+    private ReentrantLock writeLock;
+    // Journal donde se registran las altas y bajas antes de aplicarlas
+    private Journal journal;
+    // Contadores y latencias de las consultas
+    private LibraryMetrics metrics;
+    // Ordena los borrados con los préstamos de LoanService (ver DeletionGuard)
+    private volatile DeletionGuard deletionGuard = DeletionGuard.NONE;
 
-    // Constructor: inicializa la lista de libros vacía
+    // Constructor: inicializa el catálogo vacío, solo en memoria
     public BookService() {
-        books = new ArrayList<>();
+        this(Journal.NONE);
+    }
+
+    // Constructor: inicializa el catálogo vacío y registra los cambios en el journal
+    public BookService(Journal journal) {
+        this(journal, LibraryMetrics.NONE);
+    }
+
+    // Igual que el anterior, midiendo las consultas en "metrics"
+    public BookService(Journal journal, LibraryMetrics metrics) {
+        this(journal, metrics, BookStorage.inMemory());
+    }
+
+    // Igual que el anterior, guardando los libros en "books", que debe estar vacío
+    public BookService(Journal journal, LibraryMetrics metrics, BookStorage books) {
+        if (journal == null || metrics == null || books == null) {
+            throw new IllegalArgumentException("El journal, las métricas y el almacenamiento no pueden ser nulos");
+        }
+        this.journal = journal;
+        this.metrics = metrics;
+        this.books = books;
+        writeLock = new ReentrantLock();
+        searchIndex = new InvertedIndex();
+        autocompleteIndex = new PrefixIndex();
     }
 
     // Agrega un nuevo libro al sistema
@@ -26,30 +89,89 @@ public class BookService {
         if (isbn.trim().isEmpty() || title.trim().isEmpty() || author.trim().isEmpty()) {
             throw new IllegalArgumentException("Los parámetros no pueden estar vacíos");
         }
+        writeLock.lock();
+        try {
+            // El ISBN identifica al libro, no se permiten duplicados
+            if (books.contains(isbn)) {
+                throw new IllegalArgumentException("Ya existe un libro con el isbn " + isbn);
+            }
+
+            // Crea un nuevo libro y lo agrega a los índices
+            var book = new Book(isbn, title, author);
+            journal.record(Operation.ADD_BOOK, () -> {
+                books.put(book);
+                searchIndex.add(book);
+                autocompleteIndex.add(title);
+                autocompleteIndex.add(author);
+            }, isbn, title, author);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // Importa libros desde un archivo CSV o TSV con las columnas isbn, título y autor
+    // (el encabezado es opcional). Ver importBooks(Reader).
+    public ImportReport importBooks(Path file) throws IOException {
+        try (var reader = DelimitedReader.open(file)) {
+            return importBooks(reader);
+        }
+    }
 
-        // Crea un nuevo libro y lo agrega a la lista
-        books.add(new Book(isbn, title, author)); 
+    // Importa libros leyendo el contenido como CSV o TSV, fila por fila.
+    // Las filas se validan en paralelo; las inválidas o con un ISBN repetido
+    // (en el archivo o en el catálogo) se informan con su número de línea.
+    // Las válidas se publican todas juntas al final: si la lectura falla no se
+    // agrega ningún libro, y en el journal el lote queda como una sola unidad.
+    public ImportReport importBooks(Reader source) throws IOException {
+        if (source == null) {
+            throw new IllegalArgumentException("El reader no puede ser nulo");
+        }
+        return importBooks(new DelimitedReader(source));
     }
 
-    // Devuelve todos los libros registrados.
+    // Devuelve todos los libros registrados, en el orden en que se agregaron.
     public List<Book> getAllBooks() {
-        return books;
+        return books.values();
+    }
+
+    // Devuelve una página de libros en orden de alta, desde el cursor
+    // (Page.FIRST para empezar; el siguiente viene en la página)
+    public Page<Book> getBooks(long cursor, int limit) {
+        return books.page(cursor, limit);
+    }
+
+    // Recorre los libros en orden de alta sin copiarlos de antemano ni
+    // bloquear los cambios mientras se recorre
+    public Stream<Book> streamBooks() {
+        return books.stream();
+    }
+
+    // Vista fija de los libros de este momento (ver BookStorage.freeze); hay que cerrarla
+    public BookStorage.Frozen freezeBooks() {
+        return books.freeze();
     }
 
     // Busca un libro por su ISBN y lo devuelve si existe.
     public Book getBookByIsbn(String isbn) throws NotFoundException{
+        return findBookByIsbn(isbn).orElseThrow(
+                () -> new NotFoundException("El libro con el isbn " + isbn + " no fue encontrado"));
+    }
+
+    // Igual que getBookByIsbn, pero un ISBN inexistente devuelve un Optional
+    // vacío en vez de crear una excepción
+    public Optional<Book> findBookByIsbn(String isbn) {
         // No acepta ISBN nulo
         if (isbn == null) {
             throw new IllegalArgumentException("El ISBN no puede ser nulo");
         }
-        // Recorre la lista hasta encontrar coincidencia exacta de ISBN
-        for (var book : books) {
-            if (book.getIsbn().equals(isbn)) {
-                return book;// encontrado
-            }
+        // Consulta directa en el índice, sin recorrer el catálogo
+        long start = metrics.start();
+        var book = books.get(isbn);
+        if (book == null) {
+            metrics.notFound(ServiceOperation.GET_BOOK_BY_ISBN);
         }
-        // Si llega aquí, no estaba en la lista
-        throw new NotFoundException("El libro con el isbn " + isbn + " no fue encontrado"); 
+        metrics.record(ServiceOperation.GET_BOOK_BY_ISBN, start);
+        return Optional.ofNullable(book);
     }
 
     // Elimina un libro por su ISBN.
@@ -58,14 +180,166 @@ public class BookService {
         if (isbn == null) {
             throw new IllegalArgumentException("El ISBN no puede ser nulo");
         }
-        // Busca el libro y, si está, lo quita de la lista
-        for (var book : books) {
-            if (book.getIsbn().equals(isbn)) {
-                books.remove(book);
-                return; // Retornar después de eliminar el libro
+        writeLock.lock();
+        try {
+            deletionGuard.deletingBook(isbn, () -> {
+                // Si no estaba, informa con una excepción clara
+                var book = books.get(isbn);
+                if (book == null) {
+                    throw new NotFoundException("El libro con el isbn " + isbn + " no pudo ser borrado");
+                }
+                // Quita el libro de los índices
+                journal.record(Operation.DELETE_BOOK, () -> {
+                    books.remove(isbn);
+                    searchIndex.remove(book);
+                    autocompleteIndex.remove(book.getTitle());
+                    autocompleteIndex.remove(book.getAuthor());
+                }, isbn);
+            });
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // Lo llama LoanService al construirse para ordenar los borrados con sus préstamos
+    void guardDeletes(DeletionGuard guard) {
+        deletionGuard = guard;
+    }
+
+    // Busca libros por palabras del título o del autor (deben aparecer todas).
+    // No distingue mayúsculas ni tildes; los resultados van del más al menos relevante.
+    public List<Book> searchBooks(String query) {
+        return searchBooks(query, SearchMode.ALL);
+    }
+
+    // Igual que searchBooks(query), eligiendo si deben aparecer todas las palabras o alguna
+    public List<Book> searchBooks(String query, SearchMode mode) {
+        if (query == null || mode == null) {
+            throw new IllegalArgumentException("Los parámetros no pueden ser nulos");
+        }
+        var result = new ArrayList<Book>();
+        for (var isbn : searchIndex.search(query, mode)) {
+            // Un libro borrado o de un lote sin publicar mientras se buscaba no se devuelve
+            var book = books.get(isbn);
+            if (book != null) {
+                result.add(book);
+            }
+        }
+        return result;
+    }
+
+    private ImportReport importBooks(DelimitedReader reader) throws IOException {
+        reader.skipHeader("isbn", "title", "author");
+        // ISBN -> primera fila válida con ese ISBN
+        var parsed = new LinkedHashMap<String, ParsedRow<Book>>();
+        var rejected = new ArrayList<RejectedRow>();
+        ParallelParser.parse(reader, row -> parseBook(row.fields()), row -> {
+            if (!row.isValid()) {
+                rejected.add(new RejectedRow(row.line(), row.error()));
+                return;
             }
+            // La unicidad dentro del archivo se revisa en orden: gana la primera aparición
+            var isbn = row.value().getIsbn();
+            if (parsed.putIfAbsent(isbn, row) != null) {
+                rejected.add(new RejectedRow(row.line(), "El isbn " + isbn + " está repetido en el archivo"));
+            }
+        });
+
+        writeLock.lock();
+        try {
+            // Las filas que chocan con el catálogo salen del mismo mapa: lo que
+            // queda es el lote, sin copiarlo
+            for (var it = parsed.values().iterator(); it.hasNext(); ) {
+                var row = it.next();
+                var isbn = row.value().getIsbn();
+                if (books.contains(isbn)) {
+                    rejected.add(new RejectedRow(row.line(), "Ya existe un libro con el isbn " + isbn));
+                    it.remove();
+                }
+            }
+            publish(parsed);
+        } finally {
+            writeLock.unlock();
         }
-        // Si no se encontró, informa con una excepción clara
-        throw new NotFoundException("El libro con el isbn " + isbn + " no pudo ser borrado");
+        rejected.sort(Comparator.comparingLong(RejectedRow::line));
+        return new ImportReport(parsed.size(), rejected);
+    }
+
+    // Carga el lote oculto en el catálogo, lo registra en el journal, lo hace
+    // visible de una vez y recién entonces lo agrega a los índices de texto: el
+    // autocompletado no consulta el catálogo, así que no debe sugerir títulos de
+    // un lote sin publicar. Los argumentos del journal se arman al escribirlo,
+    // fila por fila. Si algo falla, el lote se quita del catálogo y de los
+    // índices. Se llama con writeLock tomado.
+    private void publish(LinkedHashMap<String, ParsedRow<Book>> accepted) {
+        var batch = new AbstractCollection<String[]>() {
+            @Override
+            public Iterator<String[]> iterator() {
+                var rows = accepted.values().iterator();
+                return new Iterator<>() {
+                    @Override
+                    public boolean hasNext() {
+                        return rows.hasNext();
+                    }
+
+                    @Override
+                    public String[] next() {
+                        var book = rows.next().value();
+                        return new String[] {book.getIsbn(), book.getTitle(), book.getAuthor()};
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return accepted.size();
+            }
+        };
+        var staged = books.stage(() -> accepted.values().stream().map(ParsedRow::value).iterator());
+        // Libros ya cargados en los índices, en el orden del lote
+        var indexed = new int[1];
+        try {
+            journal.recordBatch(Operation.ADD_BOOK, batch, () -> {
+                staged.publish();
+                for (var row : accepted.values()) {
+                    var book = row.value();
+                    searchIndex.add(book);
+                    autocompleteIndex.add(book.getTitle());
+                    autocompleteIndex.add(book.getAuthor());
+                    indexed[0]++;
+                }
+            });
+        } catch (RuntimeException e) {
+            var rows = accepted.values().iterator();
+            for (int i = 0; i < indexed[0]; i++) {
+                var book = rows.next().value();
+                searchIndex.remove(book);
+                autocompleteIndex.remove(book.getTitle());
+                autocompleteIndex.remove(book.getAuthor());
+            }
+            staged.discard();
+            throw e;
+        }
+    }
+
+    // Convierte una fila del archivo en un libro con las mismas reglas que addBook;
+    // quita los espacios alrededor de cada campo. Se llama desde varios hilos.
+    private static Book parseBook(List<String> fields) {
+        if (fields.size() != 3) {
+            throw new IllegalArgumentException("Se esperaban 3 columnas (isbn, título, autor) y hay " + fields.size());
+        }
+        var isbn = fields.get(0).trim();
+        var title = fields.get(1).trim();
+        var author = fields.get(2).trim();
+        if (isbn.isEmpty() || title.isEmpty() || author.isEmpty()) {
+            throw new IllegalArgumentException("Los parámetros no pueden estar vacíos");
+        }
+        return new Book(isbn, title, author);
+    }
+
+    // Sugiere hasta "limit" títulos o autores que empiezan con el texto escrito,
+    // sin distinguir mayúsculas ni tildes. Pensado para buscar mientras se escribe.
+    public List<String> autocomplete(String prefix, int limit) {
+        return autocompleteIndex.complete(prefix, limit);
     }
 }
@@ -0,0 +1,69 @@
+package com.dev.mxd.service;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import com.dev.mxd.model.Book;
+
+// Dónde guarda BookService los libros. Hay dos: en el heap (inMemory, la
+// opción por defecto) y fuera del heap (PackedCatalog), para catálogos muy
+// grandes. Las lecturas pueden llegar desde varios hilos a la vez; las
+// escrituras las serializa BookService. Cada implementación decide si sus
+// lecturas toman candados: las del heap no, las de PackedCatalog sí.
+public interface BookStorage {
+
+    // Almacenamiento en el heap que se lee sin candados
+    static BookStorage inMemory() {
+        return new HeapBookStorage();
+    }
+
+    // Libro visible con ese ISBN, o null
+    Book get(String isbn);
+
+    // Si el ISBN está ocupado, aunque sea por un lote todavía no publicado
+    boolean contains(String isbn);
+
+    // Agrega un libro, visible de inmediato. El ISBN no debe estar ocupado.
+    void put(Book book);
+
+    // Quita el libro; devuelve el que estaba o null
+    Book remove(String isbn);
+
+    // Libros visibles en orden de alta
+    List<Book> values();
+
+    // Página de libros visibles desde el cursor, en orden de alta
+    Page<Book> page(long cursor, int limit);
+
+    // Recorre los libros visibles en orden de alta sin copiarlos de antemano
+    Stream<Book> stream();
+
+    // Vista de los libros visibles en este momento, que no cambia con las
+    // altas y bajas posteriores. Se recorre sin frenar a los escritores (por
+    // ejemplo para escribir un snapshot fuera del checkpoint) y hay que cerrarla.
+    Frozen freeze();
+
+    // Carga los libros ocultos: ocupan su ISBN pero nadie los ve hasta
+    // publish. "books" se vuelve a recorrer al publicar o descartar.
+    Batch stage(Iterable<Book> books);
+
+    // Libros fijados con freeze
+    interface Frozen extends Iterable<Book>, AutoCloseable {
+
+        // Cantidad de libros de la vista
+        int size();
+
+        @Override
+        void close();
+    }
+
+    // Lote cargado con stage
+    interface Batch {
+
+        // Hace visibles todos los libros del lote a la vez
+        void publish();
+
+        // Quita los libros de un lote que no se llegó a publicar
+        void discard();
+    }
+}
@@ -0,0 +1,27 @@
+package com.dev.mxd.service;
+
+// Ordena los borrados de libros y usuarios con los préstamos que los usan.
+// LoanService lo instala en BookService y UserService: el borrado (búsqueda y
+// registro en el journal) corre con el mismo candado que toma un préstamo de
+// ese libro o usuario entre su búsqueda y su registro. Así el journal nunca
+// tiene un préstamo registrado después del borrado de su libro o su usuario,
+// y reproducirlo siempre da el mismo resultado.
+interface DeletionGuard {
+
+    // Sin préstamos que ordenar: el borrado corre directamente
+    DeletionGuard NONE = new DeletionGuard() {
+        @Override
+        public void deletingBook(String isbn, Runnable delete) {
+            delete.run();
+        }
+
+        @Override
+        public void deletingUser(String id, Runnable delete) {
+            delete.run();
+        }
+    };
+
+    void deletingBook(String isbn, Runnable delete);
+
+    void deletingUser(String id, Runnable delete);
+}
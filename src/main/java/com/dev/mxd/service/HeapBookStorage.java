@@ -0,0 +1,91 @@
+package com.dev.mxd.service;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import com.dev.mxd.model.Book;
+
+// Libros en un OrderedIndex: búsquedas O(1), orden de alta y lecturas sin candados
+final class HeapBookStorage implements BookStorage {
+
+    private final OrderedIndex<String, Book> books = new OrderedIndex<>();
+
+    @Override
+    public Book get(String isbn) {
+        return books.get(isbn);
+    }
+
+    @Override
+    public boolean contains(String isbn) {
+        return books.containsKey(isbn);
+    }
+
+    @Override
+    public void put(Book book) {
+        books.put(book.getIsbn(), book);
+    }
+
+    @Override
+    public Book remove(String isbn) {
+        return books.remove(isbn);
+    }
+
+    @Override
+    public List<Book> values() {
+        return books.values();
+    }
+
+    @Override
+    public Page<Book> page(long cursor, int limit) {
+        return books.page(cursor, limit);
+    }
+
+    // No copia los libros ni bloquea a los escritores (ver OrderedIndex.stream)
+    @Override
+    public Stream<Book> stream() {
+        return books.stream();
+    }
+
+    // Los libros del heap no cambian: alcanza con copiar las referencias
+    @Override
+    public Frozen freeze() {
+        var values = books.values();
+        return new Frozen() {
+            @Override
+            public int size() {
+                return values.size();
+            }
+
+            @Override
+            public Iterator<Book> iterator() {
+                return values.iterator();
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+
+    @Override
+    public Batch stage(Iterable<Book> staged) {
+        var publication = new OrderedIndex.Publication();
+        for (var book : staged) {
+            books.stage(book.getIsbn(), book, publication);
+        }
+        return new Batch() {
+            @Override
+            public void publish() {
+                books.publish(publication);
+            }
+
+            @Override
+            public void discard() {
+                for (var book : staged) {
+                    books.discard(book.getIsbn(), publication);
+                }
+            }
+        };
+    }
+}
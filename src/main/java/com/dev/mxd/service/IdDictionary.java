@@ -0,0 +1,45 @@
+package com.dev.mxd.service;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Diccionario de identificadores de texto (ISBN, ID de usuario) a códigos int
+// densos: 0, 1, 2... en el orden en que aparecen. Con el código, los índices
+// pueden ser arreglos en vez de mapas con claves String.
+// Las búsquedas no toman candados. Los códigos no se liberan: un ID borrado y
+// vuelto a usar conserva el suyo.
+final class IdDictionary {
+
+    // Código que devuelve codeOf para un texto que nunca se registró
+    static final int ABSENT = -1;
+
+    private final ConcurrentHashMap<String, Integer> codes = new ConcurrentHashMap<>();
+    private final AtomicInteger next = new AtomicInteger();
+
+    // Código del texto, registrándolo si es nuevo
+    int intern(String value) {
+        var code = codes.get(value);
+        if (code != null) {
+            return code;
+        }
+        return codes.computeIfAbsent(value, key -> next.getAndIncrement());
+    }
+
+    // Código del texto, o ABSENT si nunca se registró
+    int codeOf(String value) {
+        var code = codes.get(value);
+        return code == null ? ABSENT : code;
+    }
+
+    // Cantidad de textos registrados
+    int size() {
+        return codes.size();
+    }
+
+    // Textos registrados, indexados por su código. Llamar sin altas en curso.
+    String[] values() {
+        var values = new String[next.get()];
+        codes.forEach((value, code) -> values[code] = value);
+        return values;
+    }
+}
@@ -0,0 +1,178 @@
+package com.dev.mxd.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.OptionalDouble;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.function.IntConsumer;
+import java.util.function.IntPredicate;
+import java.util.function.IntUnaryOperator;
+import java.util.stream.IntStream;
+
+import com.dev.mxd.model.Loan;
+import com.dev.mxd.model.LoanState;
+
+// Reportes sobre una foto fija de los préstamos en memoria (LoanService.recentAnalytics):
+// los activos y los terminados recientes, sin el historial archivado en disco.
+// La foto se guarda por columnas de int (código de libro, de usuario y de autor,
+// día del préstamo y de la devolución). Las columnas se llenan en paralelo,
+// con los códigos repartidos por IdDictionary, y los reportes cuentan por
+// código repartiendo las filas entre unos pocos trabajadores.
+// Como la foto no cambia, los reportes no frenan a los préstamos y devoluciones.
+public final class LoanAnalytics {
+
+    // Filas mínimas por trabajador: por debajo de esto se cuenta en un solo hilo
+    private static final int THRESHOLD = 1 << 14;
+    // Día de devolución de un préstamo sin devolución conocida
+    private static final int NO_RETURN = Integer.MIN_VALUE;
+
+    private final int rows;
+    private final int[] bookOf;
+    private final int[] userOf;
+    private final int[] authorOf;
+    private final int[] loanDay;
+    private final int[] returnDay;
+    private final boolean[] active;
+    // Diccionarios: código -> valor
+    private final String[] isbns;
+    private final String[] userIds;
+    private final String[] authors;
+
+    // Junta los préstamos en una sola pasada (solo referencias) y después arma
+    // las columnas en paralelo. De cada préstamo lee estado y devolución juntos
+    // (Loan.getStatus); la foto queda con lo leído.
+    LoanAnalytics(Iterable<Loan> loans) {
+        var snapshot = new Loan[1024];
+        int count = 0;
+        for (var loan : loans) {
+            if (count == snapshot.length) {
+                snapshot = Arrays.copyOf(snapshot, count * 2);
+            }
+            snapshot[count++] = loan;
+        }
+        rows = count;
+        bookOf = new int[rows];
+        userOf = new int[rows];
+        authorOf = new int[rows];
+        loanDay = new int[rows];
+        returnDay = new int[rows];
+        active = new boolean[rows];
+        var bookCodes = new IdDictionary();
+        var userCodes = new IdDictionary();
+        var authorCodes = new IdDictionary();
+        var taken = snapshot;
+        IntStream.range(0, rows).parallel().forEach(i -> {
+            var loan = taken[i];
+            var book = loan.getBook();
+            var status = loan.getStatus();
+            boolean finished = status.state() == LoanState.FINISHED;
+            bookOf[i] = bookCodes.intern(book.getIsbn());
+            userOf[i] = userCodes.intern(loan.getUser().getId());
+            authorOf[i] = authorCodes.intern(book.getAuthor());
+            loanDay[i] = (int) loan.getLoanDate().toEpochDay();
+            returnDay[i] = finished && status.returnDate() != null
+                    ? (int) status.returnDate().toEpochDay() : NO_RETURN;
+            active[i] = !finished;
+        });
+        isbns = bookCodes.values();
+        userIds = userCodes.values();
+        authors = authorCodes.values();
+    }
+
+    // Cantidad de préstamos en la foto
+    public int size() {
+        return rows;
+    }
+
+    // Los "limit" libros con más préstamos, de más a menos (a igual cantidad, por ISBN)
+    public List<LoanCount> mostBorrowedBooks(int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("El límite debe ser positivo");
+        }
+        var ranking = report(count(bookOf, isbns.length, row -> true), isbns);
+        return ranking.size() > limit ? List.copyOf(ranking.subList(0, limit)) : ranking;
+    }
+
+    // Préstamos de cada usuario, de más a menos
+    public List<LoanCount> loansPerUser() {
+        return report(count(userOf, userIds.length, row -> true), userIds);
+    }
+
+    // Préstamos activos por autor, de más a menos; los autores sin activos no aparecen
+    public List<LoanCount> activeLoansByAuthor() {
+        return report(count(authorOf, authors.length, row -> active[row]), authors);
+    }
+
+    // Duración promedio en días de los préstamos devueltos con fecha conocida
+    public OptionalDouble averageLoanDays() {
+        return IntStream.range(0, rows).parallel()
+                .filter(row -> returnDay[row] != NO_RETURN)
+                .map(row -> returnDay[row] - loanDay[row])
+                .average();
+    }
+
+    // Cuenta las filas que cumplen "include" agrupadas por el código de "column".
+    // Las filas se reparten entre a lo sumo un trabajador por hilo del pool.
+    // Con pocos códigos cada trabajador cuenta en su propio arreglo y al final
+    // se suman (trabajadores x códigos, menos que las filas). Con muchos, un
+    // solo arreglo compartido con incrementos atómicos: los códigos son tantos
+    // que dos trabajadores casi nunca tocan el mismo.
+    private IntUnaryOperator count(int[] column, int codes, IntPredicate include) {
+        int workers = Math.max(1, Math.min(ForkJoinPool.getCommonPoolParallelism(), rows / THRESHOLD));
+        if (workers == 1) {
+            var counts = new int[codes];
+            countSlice(column, include, 0, rows, code -> counts[code]++);
+            return code -> counts[code];
+        }
+        if ((long) codes * workers <= rows) {
+            var partial = new int[workers][];
+            IntStream.range(0, workers).parallel().forEach(worker -> {
+                var counts = new int[codes];
+                countSlice(column, include, sliceStart(worker, workers), sliceStart(worker + 1, workers),
+                        code -> counts[code]++);
+                partial[worker] = counts;
+            });
+            var counts = partial[0];
+            for (int worker = 1; worker < workers; worker++) {
+                for (int code = 0; code < codes; code++) {
+                    counts[code] += partial[worker][code];
+                }
+            }
+            return code -> counts[code];
+        }
+        var shared = new AtomicIntegerArray(codes);
+        IntStream.range(0, workers).parallel().forEach(worker ->
+                countSlice(column, include, sliceStart(worker, workers), sliceStart(worker + 1, workers),
+                        shared::incrementAndGet));
+        return shared::get;
+    }
+
+    private static void countSlice(int[] column, IntPredicate include, int from, int to, IntConsumer add) {
+        for (int row = from; row < to; row++) {
+            if (include.test(row)) {
+                add.accept(column[row]);
+            }
+        }
+    }
+
+    // Primera fila del tramo del trabajador
+    private int sliceStart(int worker, int workers) {
+        return (int) ((long) rows * worker / workers);
+    }
+
+    // Pasa los contadores a filas ordenadas de más a menos, sin las que quedaron en cero
+    private static List<LoanCount> report(IntUnaryOperator counts, String[] keys) {
+        var result = new ArrayList<LoanCount>();
+        for (int code = 0; code < keys.length; code++) {
+            int count = counts.applyAsInt(code);
+            if (count > 0) {
+                result.add(new LoanCount(keys[code], count));
+            }
+        }
+        result.sort(Comparator.comparingLong(LoanCount::count).reversed().thenComparing(LoanCount::key));
+        return result;
+    }
+}
@@ -0,0 +1,6 @@
+package com.dev.mxd.service;
+
+// Fila de un reporte de préstamos: la clave agrupada (ISBN, ID de usuario o
+// autor) y cuántos préstamos le corresponden
+public record LoanCount(String key, long count) {
+}
@@ -0,0 +1,87 @@
+package com.dev.mxd.service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import com.dev.mxd.model.Loan;
+
+// Índice de préstamos por fecha: un ConcurrentSkipListMap por día (días desde
+// 1970) con los préstamos de ese día por número de alta. Una consulta por rango
+// cuesta O(log n) para ubicar el primer día más lo que devuelve, y contar los
+// préstamos de un día es O(log n). Se lee sin candados; el dueño serializa los cambios.
+final class LoanDateIndex {
+
+    private final ConcurrentSkipListMap<Long, Day> days = new ConcurrentSkipListMap<>();
+
+    void add(long number, Loan loan) {
+        var day = days.computeIfAbsent(loan.getLoanDate().toEpochDay(), key -> new Day());
+        if (day.loans.put(number, loan) == null) {
+            day.count++;
+        }
+    }
+
+    void remove(long number, Loan loan) {
+        long key = loan.getLoanDate().toEpochDay();
+        var day = days.get(key);
+        if (day != null && day.loans.remove(number, loan)) {
+            day.count--;
+            if (day.count == 0) {
+                days.remove(key, day);
+            }
+        }
+    }
+
+    // Préstamos con fecha entre "from" y "to" (ambas inclusive), por fecha y alta
+    List<Loan> between(LocalDate from, LocalDate to) {
+        var result = new ArrayList<Loan>();
+        for (var day : range(from.toEpochDay(), to.toEpochDay()).values()) {
+            result.addAll(day.loans.values());
+        }
+        return result;
+    }
+
+    // Préstamos con fecha anterior a "day", por fecha y alta
+    List<Loan> before(LocalDate day) {
+        var result = new ArrayList<Loan>();
+        for (var bucket : days.headMap(day.toEpochDay()).values()) {
+            result.addAll(bucket.loans.values());
+        }
+        return result;
+    }
+
+    // Cantidad de préstamos de cada día con préstamos entre "from" y "to"
+    NavigableMap<LocalDate, Integer> countsBetween(LocalDate from, LocalDate to) {
+        var counts = new TreeMap<LocalDate, Integer>();
+        for (var entry : range(from.toEpochDay(), to.toEpochDay()).entrySet()) {
+            int count = entry.getValue().count;
+            if (count > 0) {
+                counts.put(LocalDate.ofEpochDay(entry.getKey()), count);
+            }
+        }
+        return counts;
+    }
+
+    // Cantidad de préstamos del día
+    int countOn(LocalDate date) {
+        var day = days.get(date.toEpochDay());
+        return day == null ? 0 : day.count;
+    }
+
+    private NavigableMap<Long, Day> range(long from, long to) {
+        if (from > to) {
+            return new TreeMap<>();
+        }
+        return days.subMap(from, true, to, true);
+    }
+
+    // Préstamos de un día. La cantidad se lleva aparte porque
+    // ConcurrentSkipListMap.size() recorre todo el mapa.
+    private static final class Day {
+        final ConcurrentSkipListMap<Long, Loan> loans = new ConcurrentSkipListMap<>();
+        volatile int count;
+    }
+}
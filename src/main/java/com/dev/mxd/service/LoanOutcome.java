@@ -0,0 +1,14 @@
+package com.dev.mxd.service;
+
+// Resultado de un ISBN dentro de un préstamo o una devolución en lote:
+// si se pudo hacer y, si no, el motivo
+public record LoanOutcome(String isbn, boolean succeeded, String reason) {
+
+    static LoanOutcome ok(String isbn) {
+        return new LoanOutcome(isbn, true, null);
+    }
+
+    static LoanOutcome failed(String isbn, String reason) {
+        return new LoanOutcome(isbn, false, reason);
+    }
+}
@@ -2,26 +2,97 @@ package com.dev.mxd.service;
 
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 import com.dev.mxd.exception.NotFoundException;
+import com.dev.mxd.metrics.LibraryMetrics;
+import com.dev.mxd.metrics.ServiceOperation;
+import com.dev.mxd.model.Book;
 import com.dev.mxd.model.Loan;
 import com.dev.mxd.model.LoanState;
+import com.dev.mxd.model.User;
+import com.dev.mxd.persistence.Journal;
+import com.dev.mxd.persistence.Operation;
 
 // Servicio que se encarga de los prestamos de libros:
 // crear un préstamo, devolver un libro, listar prestamos y consultar la fecha.
+// Es seguro usarlo desde varios hilos: préstamos y devoluciones del mismo ISBN
+// se serializan con un candado por ISBN, y los de libros distintos van en
+// paralelo, aunque sean del mismo usuario. Del usuario un préstamo solo toma
+// la parte compartida de su candado, que únicamente lo ordena con el borrado
+// de ese usuario.
 public class LoanService {
-    // Base de datos en memoria con todos los préstamos
-    private List<Loan> loans;
+    // Base de datos en memoria con todos los préstamos, por número de alta.
+    // Se lee sin candados y se puede recorrer mientras otros hilos prestan.
+    private ConcurrentSkipListMap<Long, Loan> loans;
+    // Próximo número de alta (se asigna dentro de append; los reportes lo leen
+    // sin candados como límite de lo que existía al empezar)
+    private volatile long nextLoan;
+    // Los mismos préstamos ordenados por fecha, para consultas por rango
+    private LoanDateIndex loansByDate;
+    // Rueda de tiempo con los préstamos activos, para detectar los vencidos
+    private OverdueTracker overdueTracker;
+    // Préstamos activos (STARTED): como máximo uno por libro, indexados por el
+    // código int del ISBN. Evita recorrer todo el historial para saber si un
+    // libro está prestado y sirve también para las devoluciones.
+    private ActiveLoans activeLoans;
+    // Candados repartidos por ISBN que protegen la comprobación y el cambio de estado
+    private StripedLocks isbnLocks;
+    // Candados de lectura y escritura repartidos por usuario. Un préstamo toma
+    // la lectura del usuario y después el candado del ISBN; un borrado de
+    // usuario toma la escritura (ver DeletionGuard). Los préstamos no se
+    // esperan entre sí por el usuario: solo esperan a un borrado en curso.
+    private StripedReadWriteLocks userLocks;
     // Dependencias para consultar libros y usuarios existentes
     private BookService bookService;
     private UserService userService;
+    // Journal donde se registran préstamos y devoluciones antes de aplicarlos
+    private Journal journal;
+    // Contadores y latencias de préstamos y devoluciones
+    private LibraryMetrics metrics;
 
     // Al construir el servicio, inyectamos los otros servicios y arrancamos la lista vacía
     public LoanService(BookService bookService, UserService userService) {
+        this(bookService, userService, Journal.NONE);
+    }
+
+    // Igual que el anterior, registrando préstamos y devoluciones en el journal
+    public LoanService(BookService bookService, UserService userService, Journal journal) {
+        this(bookService, userService, journal, LibraryMetrics.NONE);
+    }
+
+    // Igual que el anterior, midiendo préstamos y devoluciones en "metrics"
+    public LoanService(BookService bookService, UserService userService, Journal journal,
+                       LibraryMetrics metrics) {
+        if (journal == null || metrics == null) {
+            throw new IllegalArgumentException("El journal y las métricas no pueden ser nulos");
+        }
+        this.journal = journal;
+        this.metrics = metrics;
         this.bookService = bookService;
         this.userService = userService;
-        this.loans = new ArrayList<>();
+        this.loans = new ConcurrentSkipListMap<>();
+        this.loansByDate = new LoanDateIndex();
+        this.overdueTracker = new OverdueTracker(LocalDate.now());
+        this.activeLoans = new ActiveLoans();
+        this.isbnLocks = StripedLocks.forAvailableProcessors();
+        this.userLocks = StripedReadWriteLocks.forAvailableProcessors();
+        var guard = new LoanDeletionGuard();
+        if (bookService != null) {
+            bookService.guardDeletes(guard);
+        }
+        if (userService != null) {
+            userService.guardDeletes(guard);
+        }
     }
 
     // Crea un nuevo préstamo para el usuario (id) y el libro (isbn).
@@ -30,22 +101,113 @@ public class LoanService {
         if (id == null || isbn == null) {
             throw new IllegalArgumentException("Los parámetros no pueden ser nulos");
         }
+        addLoan(id, isbn, LocalDate.now());
+    }
 
-        // Busca el usuario y el libro (si no existen, los servicios lanzan NotFoundException)
-        var user = userService.getUserById(id);
-        var book = bookService.getBookByIsbn(isbn);
+    // Crea un préstamo indicando la fecha; útil para cargar préstamos existentes.
+    // Vence a los Loan.DEFAULT_LOAN_DAYS días.
+    public void addLoan(String id, String isbn, LocalDate loanDate) throws NotFoundException {
+        if (id == null || isbn == null || loanDate == null) {
+            throw new IllegalArgumentException("Los parámetros no pueden ser nulos");
+        }
+        addLoan(id, isbn, loanDate, loanDate.plusDays(Loan.DEFAULT_LOAN_DAYS));
+    }
 
-        // Antes de prestar, asegura que el libro no tenga un préstamo activo
-        for (var loan : loans) {
-            if (loan.getBook().getIsbn().equals(isbn) && loan.getState().equals(LoanState.STARTED)) {
+    // Crea un préstamo indicando la fecha y el último día para devolver el libro
+    public void addLoan(String id, String isbn, LocalDate loanDate, LocalDate dueDate) throws NotFoundException {
+        if (id == null || isbn == null || loanDate == null || dueDate == null) {
+            throw new IllegalArgumentException("Los parámetros no pueden ser nulos");
+        }
+        if (dueDate.isBefore(loanDate)) {
+            throw new IllegalArgumentException("La fecha de devolución no puede ser anterior al préstamo");
+        }
+        long start = metrics.start();
+        try {
+            // Busca el usuario y el libro (si no existen, los servicios lanzan NotFoundException)
+            var status = lend(id, isbn, loanDate, dueDate,
+                    userId -> Optional.of(userService.getUserById(userId)),
+                    key -> Optional.of(bookService.getBookByIsbn(key)));
+            if (status == LoanStatus.ALREADY_LENT) {
                 // Si ya hay un préstamo activo para ese ISBN, no permite otro
                 throw new NotFoundException("El libro con el ISBN: "
                                     +isbn + " ya esta prestado");
             }
+        } catch (NotFoundException e) {
+            metrics.notFound(ServiceOperation.ADD_LOAN);
+            throw e;
+        } finally {
+            metrics.record(ServiceOperation.ADD_LOAN, start);
+        }
+    }
+
+    // Igual que addLoan con la fecha de hoy, pero informa el resultado en vez
+    // de lanzar NotFoundException
+    public LoanStatus tryAddLoan(String id, String isbn) {
+        if (id == null || isbn == null) {
+            throw new IllegalArgumentException("Los parámetros no pueden ser nulos");
+        }
+        return tryAddLoan(id, isbn, LocalDate.now());
+    }
+
+    // Igual que addLoan, pero un usuario o libro inexistente o un libro ya
+    // prestado vuelven como estado, sin crear excepciones. Pensado para las
+    // consultas de disponibilidad, donde fallar es lo habitual.
+    public LoanStatus tryAddLoan(String id, String isbn, LocalDate loanDate) {
+        if (id == null || isbn == null || loanDate == null) {
+            throw new IllegalArgumentException("Los parámetros no pueden ser nulos");
+        }
+        long start = metrics.start();
+        var status = lend(id, isbn, loanDate, loanDate.plusDays(Loan.DEFAULT_LOAN_DAYS),
+                userService::findUserById, bookService::findBookByIsbn);
+        // Solo cuentan como "no encontrado" el usuario o el libro inexistentes
+        if (status == LoanStatus.USER_NOT_FOUND || status == LoanStatus.BOOK_NOT_FOUND) {
+            metrics.notFound(ServiceOperation.ADD_LOAN);
+        }
+        metrics.record(ServiceOperation.ADD_LOAN, start);
+        return status;
+    }
+
+    // Alta del préstamo. El usuario y el libro se buscan con sus candados
+    // tomados, así un borrado no puede quedar en el journal entre la búsqueda
+    // y el registro del préstamo. Del usuario basta la lectura: lo único
+    // exclusivo es el candado del ISBN.
+    private LoanStatus lend(String id, String isbn, LocalDate loanDate, LocalDate dueDate,
+                            Function<String, Optional<User>> findUser,
+                            Function<String, Optional<Book>> findBook) {
+        var userLock = userLocks.lockFor(id).readLock();
+        userLock.lock();
+        try {
+            var user = findUser.apply(id);
+            if (user.isEmpty()) {
+                return LoanStatus.USER_NOT_FOUND;
+            }
+            // La comprobación y el alta van bajo el candado del ISBN,
+            // así dos hilos no pueden prestar el mismo libro a la vez
+            var lock = isbnLocks.lockFor(isbn);
+            lock.lock();
+            try {
+                var book = findBook.apply(isbn);
+                if (book.isEmpty()) {
+                    return LoanStatus.BOOK_NOT_FOUND;
+                }
+                // Antes de prestar, asegura que el libro no tenga un préstamo activo
+                if (findActiveLoan(isbn) != null) {
+                    return LoanStatus.ALREADY_LENT;
+                }
+
+                // Si todo bien, crea el préstamo en estado STARTED
+                var loan = new Loan(user.get(), book.get(), loanDate, dueDate, LoanState.STARTED);
+                journal.record(Operation.ADD_LOAN, () -> {
+                    append(List.of(loan));
+                    activeLoans.put(loan);
+                }, id, isbn, loanDate.toString(), dueDate.toString());
+                return LoanStatus.LENT;
+            } finally {
+                lock.unlock();
+            }
+        } finally {
+            userLock.unlock();
         }
-        
-        // Si todo bien, crea el préstamo; Loan pone fecha y estado STARTED
-        loans.add(new Loan(user, book)); 
     }
 
      // Marca como devuelto el préstamo que coincide con usuario + isbn y que esté STARTED.
@@ -53,35 +215,415 @@ public class LoanService {
         if (id == null || isbn == null) {
             throw new IllegalArgumentException("Los parámetros no pueden ser nulos");
         }
-        // Busca un préstamo activo que coincida con el usuario y el ISBN
-        for (var loan : loans) {
-            if (loan.getUser().getId().equals(id)
-                  && loan.getBook().getIsbn().equals(isbn)
-                  && loan.getState().equals(LoanState.STARTED)) {
-                loan.setState(LoanState.FINISHED);
-                return;
+        returnBook(id, isbn, LocalDate.now());
+    }
+
+    // Devuelve el libro indicando el día de la devolución; útil para cargar devoluciones existentes.
+    public void returnBook(String id, String isbn, LocalDate returnDate) throws NotFoundException {
+        if (id == null || isbn == null || returnDate == null) {
+            throw new IllegalArgumentException("Los parámetros no pueden ser nulos");
+        }
+        long start = metrics.start();
+        try {
+            if (!giveBack(id, isbn, returnDate)) {
+                // Si no encuentra un préstamo que coincida, avisa con una excepción clara
+                throw new NotFoundException("no hay un prestamo del libro:"
+                                            +isbn + " para el usuario: "+id);
+            }
+        } catch (NotFoundException e) {
+            metrics.notFound(ServiceOperation.RETURN_BOOK);
+            throw e;
+        } finally {
+            metrics.record(ServiceOperation.RETURN_BOOK, start);
+        }
+    }
+
+    // Igual que returnBook con la fecha de hoy, pero devuelve false en vez de
+    // lanzar NotFoundException si el usuario no tiene ese libro prestado
+    public boolean tryReturnBook(String id, String isbn) {
+        if (id == null || isbn == null) {
+            throw new IllegalArgumentException("Los parámetros no pueden ser nulos");
+        }
+        long start = metrics.start();
+        boolean returned = giveBack(id, isbn, LocalDate.now());
+        if (!returned) {
+            metrics.notFound(ServiceOperation.RETURN_BOOK);
+        }
+        metrics.record(ServiceOperation.RETURN_BOOK, start);
+        return returned;
+    }
+
+    // Devolución del préstamo, con los parámetros ya validados.
+    // Devuelve false si no hay un préstamo activo que coincida.
+    private boolean giveBack(String id, String isbn, LocalDate returnDate) {
+        var lock = isbnLocks.lockFor(isbn);
+        lock.lock();
+        try {
+            // Busca el préstamo activo de ese usuario para ese ISBN directamente en el índice
+            var loan = activeLoans.get(id, isbn);
+            if (loan != null && loan.getState() == LoanState.STARTED) {
+                journal.record(Operation.RETURN_BOOK, () -> {
+                    loan.finish(returnDate);
+                    forget(loan);
+                }, id, isbn, returnDate.toString());
+                return true;
+            }
+            // Una entrada que ya no está STARTED se cerró fuera del servicio: se descarta
+            if (loan != null) {
+                forget(loan);
+            }
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Presta varios libros al mismo usuario de una vez (por ejemplo, una canasta
+    // de autopréstamo). El usuario se busca una sola vez, los candados de todos
+    // los ISBN se toman juntos y en orden, y los préstamos van al journal como un lote.
+    // Devuelve un resultado por ISBN, en el mismo orden: un ISBN inexistente o ya
+    // prestado no impide prestar los demás.
+    public List<LoanOutcome> addLoans(String id, List<String> isbns) throws NotFoundException {
+        if (id == null || isbns == null) {
+            throw new IllegalArgumentException("Los parámetros no pueden ser nulos");
+        }
+        var loanDate = LocalDate.now();
+        var dueDate = loanDate.plusDays(Loan.DEFAULT_LOAN_DAYS);
+        var outcomes = new LoanOutcome[isbns.size()];
+        var keys = new ArrayList<String>(isbns.size());
+        for (var isbn : isbns) {
+            if (isbn != null) {
+                keys.add(isbn);
+            }
+        }
+
+        // Como en addLoan, el usuario y los libros se buscan con sus candados tomados
+        var userLock = userLocks.lockFor(id).readLock();
+        userLock.lock();
+        try {
+            // Si el usuario no existe no se puede prestar nada: falla todo el lote
+            var user = userService.getUserById(id);
+            var locks = isbnLocks.locksFor(keys);
+            locks.forEach(ReentrantLock::lock);
+            try {
+                var created = new ArrayList<Loan>();
+                var batch = new ArrayList<String[]>();
+                // Un ISBN repetido en la canasta se presta una sola vez
+                var claimed = new HashSet<String>();
+                for (int i = 0; i < isbns.size(); i++) {
+                    var isbn = isbns.get(i);
+                    if (isbn == null) {
+                        outcomes[i] = LoanOutcome.failed(null, "El ISBN no puede ser nulo");
+                        continue;
+                    }
+                    // Un ISBN inexistente es un resultado del lote, no una excepción
+                    var book = bookService.findBookByIsbn(isbn).orElse(null);
+                    if (book == null) {
+                        outcomes[i] = LoanOutcome.failed(isbn, "El libro con el isbn " + isbn + " no fue encontrado");
+                        continue;
+                    }
+                    if (findActiveLoan(isbn) != null || !claimed.add(isbn)) {
+                        outcomes[i] = LoanOutcome.failed(isbn, "El libro con el ISBN: " + isbn + " ya esta prestado");
+                        continue;
+                    }
+                    created.add(new Loan(user, book, loanDate, dueDate, LoanState.STARTED));
+                    batch.add(new String[] {id, isbn, loanDate.toString(), dueDate.toString()});
+                    outcomes[i] = LoanOutcome.ok(isbn);
+                }
+                if (!created.isEmpty()) {
+                    journal.recordBatch(Operation.ADD_LOAN, batch, () -> {
+                        append(created);
+                        for (var loan : created) {
+                            activeLoans.put(loan);
+                        }
+                    });
+                }
+            } finally {
+                unlockAll(locks);
+            }
+        } finally {
+            userLock.unlock();
+        }
+        return List.of(outcomes);
+    }
+
+    // Devuelve varios libros del mismo usuario de una vez, con los candados de
+    // todos los ISBN tomados juntos y en orden, y las devoluciones en un solo lote
+    // del journal. Devuelve un resultado por ISBN, en el mismo orden.
+    public List<LoanOutcome> returnBooks(String id, List<String> isbns) {
+        if (id == null || isbns == null) {
+            throw new IllegalArgumentException("Los parámetros no pueden ser nulos");
+        }
+        var returnDate = LocalDate.now();
+        var outcomes = new LoanOutcome[isbns.size()];
+        var keys = new ArrayList<String>(isbns.size());
+        for (var isbn : isbns) {
+            if (isbn != null) {
+                keys.add(isbn);
+            }
+        }
+
+        var locks = isbnLocks.locksFor(keys);
+        locks.forEach(ReentrantLock::lock);
+        try {
+            var returned = new ArrayList<Loan>();
+            var batch = new ArrayList<String[]>();
+            var claimed = new HashSet<String>();
+            for (int i = 0; i < isbns.size(); i++) {
+                var isbn = isbns.get(i);
+                if (isbn == null) {
+                    outcomes[i] = LoanOutcome.failed(null, "El ISBN no puede ser nulo");
+                    continue;
+                }
+                var loan = activeLoans.get(id, isbn);
+                if (loan != null && loan.getState() == LoanState.STARTED && claimed.add(isbn)) {
+                    returned.add(loan);
+                    batch.add(new String[] {id, isbn, returnDate.toString()});
+                    outcomes[i] = LoanOutcome.ok(isbn);
+                    continue;
+                }
+                // Una entrada que ya no está STARTED se cerró fuera del servicio: se descarta
+                if (loan != null && loan.getState() != LoanState.STARTED) {
+                    forget(loan);
+                }
+                outcomes[i] = LoanOutcome.failed(isbn, "no hay un prestamo del libro:"
+                                    + isbn + " para el usuario: " + id);
+            }
+            if (!returned.isEmpty()) {
+                journal.recordBatch(Operation.RETURN_BOOK, batch, () -> {
+                    for (var loan : returned) {
+                        loan.finish(returnDate);
+                        forget(loan);
+                    }
+                });
             }
+        } finally {
+            unlockAll(locks);
         }
+        return List.of(outcomes);
+    }
 
-        // Si no encuentra un préstamo que coincida, avisa con una excepción clara
-        throw new NotFoundException("no hay un prestamo del libro:"
-                                    +isbn + " para el usuario: "+id);
+    // Carga un préstamo ya existente (por ejemplo, desde un snapshot) tal como está,
+    // sin registrarlo en el journal. Si está STARTED vuelve a ocupar el libro.
+    public void restoreLoan(Loan loan) throws NotFoundException {
+        if (loan == null || loan.getUser() == null || loan.getBook() == null
+                || loan.getLoanDate() == null || loan.getDueDate() == null || loan.getState() == null) {
+            throw new IllegalArgumentException("Los parámetros no pueden ser nulos");
+        }
+        var isbn = loan.getBook().getIsbn();
+        var lock = isbnLocks.lockFor(isbn);
+        lock.lock();
+        try {
+            if (loan.getState() == LoanState.STARTED) {
+                if (findActiveLoan(isbn) != null) {
+                    throw new NotFoundException("El libro con el ISBN: "
+                                        +isbn + " ya esta prestado");
+                }
+                activeLoans.put(loan);
+            }
+            append(List.of(loan));
+        } finally {
+            lock.unlock();
+        }
     }
 
-    // Devuelve la lista de préstamos
+    // Devuelve una copia de la lista de préstamos, en orden de alta
     public List<Loan> getLoans() {
-        return loans;
+        return new ArrayList<>(loans.values());
+    }
+
+    // Devuelve una página de préstamos en orden de alta, desde el cursor
+    // (Page.FIRST para empezar; el siguiente viene en la página)
+    public Page<Loan> getLoans(long cursor, int limit) {
+        return Page.collect(loans, cursor, limit, loan -> loan);
+    }
+
+    // Recorre los préstamos en orden de alta sin copiarlos ni bloquear a los
+    // otros hilos. Solo incluye los préstamos que existían al crear el stream.
+    public Stream<Loan> streamLoans() {
+        var last = loans.lastEntry();
+        if (last == null) {
+            return Stream.empty();
+        }
+        return loans.headMap(last.getKey(), true).values().stream();
     }
 
     // Devuelve la fecha del primer préstamo de la lista
     public LocalDate getLoanDate() {
         // Si no hay préstamos, avisa con un error claro
-        if (loans.isEmpty()) {
+        var first = loans.firstEntry();
+        if (first == null) {
             throw new IndexOutOfBoundsException("No hay préstamos registrados");
         }
-        return loans.get(0).getLoanDate();
+        return first.getValue().getLoanDate();
+    }
+
+    // Las consultas por fecha solo ven los préstamos en memoria: los activos y
+    // los terminados recientes. Los que LibraryStore ya pasó al historial en
+    // disco se consultan con LoanArchive.loansBetween.
+
+    // Préstamos en memoria con fecha entre "from" y "to", ambas inclusive, ordenados por fecha
+    public List<Loan> getRecentLoansBetween(LocalDate from, LocalDate to) {
+        if (from == null || to == null) {
+            throw new IllegalArgumentException("Las fechas no pueden ser nulas");
+        }
+        return loansByDate.between(from, to);
+    }
+
+    // Préstamos en memoria hechos hace más de "days" días, del más viejo al más nuevo
+    public List<Loan> getLoansOlderThan(int days) {
+        if (days < 0) {
+            throw new IllegalArgumentException("La cantidad de días no puede ser negativa");
+        }
+        return loansByDate.before(LocalDate.now().minusDays(days));
+    }
+
+    // Cantidad de préstamos en memoria por día entre "from" y "to"; los días sin préstamos no aparecen
+    public NavigableMap<LocalDate, Integer> countRecentLoansByDay(LocalDate from, LocalDate to) {
+        if (from == null || to == null) {
+            throw new IllegalArgumentException("Las fechas no pueden ser nulas");
+        }
+        return loansByDate.countsBetween(from, to);
+    }
+
+    // Cantidad de préstamos en memoria hechos en el día
+    public int countRecentLoansOn(LocalDate day) {
+        if (day == null) {
+            throw new IllegalArgumentException("La fecha no puede ser nula");
+        }
+        return loansByDate.countOn(day);
+    }
+
+    // Avanza hasta hoy y devuelve los préstamos que vencieron desde la última
+    // consulta. Es barato llamarlo seguido (por ejemplo, desde una tarea programada):
+    // solo mira los días que pasaron, no todos los préstamos.
+    public List<Loan> checkOverdue() {
+        return checkOverdue(LocalDate.now());
+    }
+
+    // Igual que el anterior, tomando "today" como el día actual
+    public List<Loan> checkOverdue(LocalDate today) {
+        if (today == null) {
+            throw new IllegalArgumentException("La fecha no puede ser nula");
+        }
+        return overdueTracker.advance(today);
+    }
+
+    // Préstamos vencidos que todavía no se devolvieron, en el orden en que vencieron
+    public List<Loan> getOverdueLoans() {
+        var overdue = overdueTracker.overdue();
+        overdue.removeIf(loan -> loan.getState() != LoanState.STARTED);
+        return overdue;
+    }
+
+    // Foto de los préstamos en memoria para armar reportes, sin candados.
+    // Recorre el mapa hasta el último número de alta asignado al empezar y de
+    // cada préstamo lee estado y devolución de una sola vez (Loan.getStatus), así
+    // ninguno aparece a medio devolver. Un préstamo que se archive mientras tanto
+    // puede quedar afuera. Préstamos y devoluciones siguen sin esperar al reporte.
+    // Solo cubre los préstamos en memoria: los activos y los terminados recientes.
+    // Los que LibraryStore ya pasó al historial en disco no están (ver LoanArchive).
+    public LoanAnalytics recentAnalytics() {
+        return new LoanAnalytics(loans.headMap(nextLoan).values());
+    }
+
+    // Préstamos FINISHED que se pueden sacar de memoria: todos menos los
+    // "keepRecent" terminados más nuevos. Van por número de alta, del más viejo al más nuevo.
+    public NavigableMap<Long, Loan> archivableLoans(int keepRecent) {
+        if (keepRecent < 0) {
+            throw new IllegalArgumentException("La cantidad a conservar no puede ser negativa");
+        }
+        var archivable = new TreeMap<Long, Loan>();
+        int kept = 0;
+        for (var entry : loans.descendingMap().entrySet()) {
+            if (entry.getValue().getState() != LoanState.FINISHED) {
+                continue;
+            }
+            if (kept < keepRecent) {
+                kept++;
+            } else {
+                archivable.put(entry.getKey(), entry.getValue());
+            }
+        }
+        return archivable;
+    }
+
+    // Quita de memoria los préstamos ya guardados en el historial (los devuelve
+    // archivableLoans). Los números de alta de los demás no cambian.
+    public synchronized void evict(Map<Long, Loan> archived) {
+        if (archived == null) {
+            throw new IllegalArgumentException("Los préstamos no pueden ser nulos");
+        }
+        archived.forEach((number, loan) -> {
+            if (loans.remove(number, loan)) {
+                loansByDate.remove(number, loan);
+            }
+        });
     }
-    
 
+    // Agrega préstamos al final con números consecutivos. Es sincronizado para
+    // que los números se publiquen en orden y un cursor nunca salte un préstamo.
+    private synchronized void append(List<Loan> created) {
+        for (var loan : created) {
+            long number = nextLoan++;
+            loans.put(number, loan);
+            loansByDate.add(number, loan);
+            if (loan.getState() == LoanState.STARTED) {
+                overdueTracker.schedule(loan);
+            }
+        }
+    }
 
+    // Devuelve el préstamo activo del ISBN, o null si el libro está disponible.
+    // Se llama con el candado del ISBN tomado.
+    // Si alguien finalizó el préstamo directamente con Loan.setState,
+    // la entrada ya no está STARTED: se descarta y el libro queda libre.
+    private Loan findActiveLoan(String isbn) {
+        var loan = activeLoans.get(isbn);
+        if (loan != null && loan.getState() != LoanState.STARTED) {
+            forget(loan);
+            return null;
+        }
+        return loan;
+    }
+
+    // Suelta los candados en el orden inverso al que se tomaron
+    private static void unlockAll(List<ReentrantLock> locks) {
+        for (int i = locks.size() - 1; i >= 0; i--) {
+            locks.get(i).unlock();
+        }
+    }
+
+    // Quita un préstamo de los índices de préstamos activos y de la rueda de
+    // vencimientos (con el candado del ISBN tomado)
+    private void forget(Loan loan) {
+        activeLoans.remove(loan);
+        overdueTracker.cancel(loan);
+    }
+
+    // Borrados de libros y usuarios con el mismo candado que usan los préstamos
+    private final class LoanDeletionGuard implements DeletionGuard {
+
+        @Override
+        public void deletingBook(String isbn, Runnable delete) {
+            var lock = isbnLocks.lockFor(isbn);
+            lock.lock();
+            try {
+                delete.run();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public void deletingUser(String id, Runnable delete) {
+            var lock = userLocks.lockFor(id).writeLock();
+            lock.lock();
+            try {
+                delete.run();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
 }
@@ -0,0 +1,13 @@
+package com.dev.mxd.service;
+
+// Resultado de LoanService.tryAddLoan
+public enum LoanStatus {
+    // Se creó el préstamo
+    LENT,
+    // No existe un usuario con ese ID
+    USER_NOT_FOUND,
+    // No existe un libro con ese ISBN
+    BOOK_NOT_FOUND,
+    // El libro ya tiene un préstamo activo
+    ALREADY_LENT
+}
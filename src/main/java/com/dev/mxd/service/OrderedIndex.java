@@ -0,0 +1,143 @@
+package com.dev.mxd.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Stream;
+
+// Índice por clave que conserva el orden de inserción y se puede leer desde
+// varios hilos sin candados: un ConcurrentHashMap para buscar por clave y un
+// ConcurrentSkipListMap por número de inserción para listar en orden.
+// Las escrituras no se sincronizan entre sí: el dueño las serializa.
+// Un lote se puede cargar oculto con stage y hacer visible de una vez con
+// publish, así los lectores ven todo el lote o nada.
+final class OrderedIndex<K, V> {
+
+    private final ConcurrentHashMap<K, Slot<V>> byKey = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<Long, Slot<V>> byOrder = new ConcurrentSkipListMap<>();
+    // Próximo número de inserción (lo cambian solo los escritores; los lectores
+    // lo usan como límite de lo que existía al empezar a recorrer)
+    private volatile long nextOrder;
+
+    // Valor visible de la clave, o null
+    V get(K key) {
+        var slot = byKey.get(key);
+        return slot != null && slot.visible() ? slot.value() : null;
+    }
+
+    // Si la clave está ocupada, aunque sea por un lote todavía no publicado
+    boolean containsKey(K key) {
+        return byKey.containsKey(key);
+    }
+
+    // Agrega o reemplaza el valor de la clave, visible de inmediato
+    void put(K key, V value) {
+        insert(key, value, null);
+    }
+
+    // Cambia el valor de una clave existente sin moverla de su lugar en el orden.
+    // Los lectores ven el valor anterior o el nuevo, nunca ninguno.
+    void replace(K key, V value) {
+        var slot = byKey.get(key);
+        if (slot == null) {
+            throw new IllegalArgumentException("La clave no existe: " + key);
+        }
+        var updated = new Slot<>(slot.order(), value, slot.publication());
+        byOrder.put(updated.order(), updated);
+        byKey.put(key, updated);
+    }
+
+    // Quita la clave; devuelve el valor que tenía o null
+    V remove(K key) {
+        var slot = byKey.remove(key);
+        if (slot == null) {
+            return null;
+        }
+        byOrder.remove(slot.order());
+        return slot.value();
+    }
+
+    // Valores visibles en orden de inserción
+    List<V> values() {
+        var values = new ArrayList<V>();
+        for (var slot : byOrder.values()) {
+            if (slot.visible()) {
+                values.add(slot.value());
+            }
+        }
+        return values;
+    }
+
+    // Página de valores visibles desde el cursor, en orden de inserción
+    Page<V> page(long cursor, int limit) {
+        return Page.collect(byOrder, cursor, limit, slot -> slot.visible() ? slot.value() : null);
+    }
+
+    // Recorre los valores visibles sin copiarlos. Solo incluye lo que existía al
+    // crear el stream; lo que se borre mientras tanto puede aparecer o no, pero
+    // nunca se lanza ConcurrentModificationException ni se bloquea a los escritores.
+    Stream<V> stream() {
+        return byOrder.headMap(nextOrder).values().stream()
+                .filter(Slot::visible)
+                .map(Slot::value);
+    }
+
+    // Carga las entradas ocultas, en el orden del mapa. Las claves quedan
+    // ocupadas para los escritores pero los lectores todavía no las ven.
+    Publication stage(Map<K, V> entries) {
+        var publication = new Publication();
+        for (var entry : entries.entrySet()) {
+            stage(entry.getKey(), entry.getValue(), publication);
+        }
+        return publication;
+    }
+
+    // Carga una entrada oculta como parte del lote "publication"
+    void stage(K key, V value, Publication publication) {
+        insert(key, value, publication);
+    }
+
+    // Hace visibles todas las entradas del lote con una sola escritura volátil
+    void publish(Publication publication) {
+        publication.published = true;
+    }
+
+    // Descarta un lote que no se llegó a publicar
+    void discard(Map<K, ?> entries, Publication publication) {
+        for (var key : entries.keySet()) {
+            discard(key, publication);
+        }
+    }
+
+    // Quita la entrada si sigue siendo parte del lote sin publicar
+    void discard(K key, Publication publication) {
+        var slot = byKey.get(key);
+        if (slot != null && slot.publication() == publication) {
+            remove(key);
+        }
+    }
+
+    private void insert(K key, V value, Publication publication) {
+        var slot = new Slot<>(nextOrder++, value, publication);
+        var previous = byKey.put(key, slot);
+        if (previous != null) {
+            byOrder.remove(previous.order());
+        }
+        byOrder.put(slot.order(), slot);
+    }
+
+    // Marca compartida por las entradas de un mismo lote
+    static final class Publication {
+        private volatile boolean published;
+    }
+
+    // Valor guardado, su número de inserción y el lote al que pertenece (null si no es de un lote)
+    private record Slot<V>(long order, V value, Publication publication) {
+
+        boolean visible() {
+            return publication == null || publication.published;
+        }
+    }
+}
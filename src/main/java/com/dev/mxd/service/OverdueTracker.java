@@ -0,0 +1,129 @@
+package com.dev.mxd.service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.dev.mxd.model.Loan;
+
+// Detecta préstamos vencidos con una rueda de tiempo (timing wheel) de un día
+// por casillero. Cada préstamo activo va al casillero del día en que vence, con
+// la cantidad de vueltas que faltan si cae más allá de una vuelta de la rueda.
+// Avanzar un día solo mira su casillero, agendar y cancelar cuestan O(1),
+// y nunca hace falta recorrer todos los préstamos.
+// Un préstamo está vencido desde el día siguiente a su fecha de devolución.
+final class OverdueTracker {
+
+    // Casilleros de la rueda (días por vuelta)
+    static final int SLOTS = 512;
+
+    private final Entry[] wheel = new Entry[SLOTS];
+    // Entrada de cada préstamo agendado, para cancelarlo al devolverlo
+    private final Map<Loan, Entry> scheduled = new IdentityHashMap<>();
+    // Préstamos que vencieron y todavía no se entregaron con advance
+    private final List<Loan> pending = new ArrayList<>();
+    // Préstamos vencidos y no devueltos, en el orden en que vencieron
+    // (Loan no redefine equals, así que el conjunto compara por identidad)
+    private final Set<Loan> overdue = new LinkedHashSet<>();
+    // Último día procesado (días desde 1970)
+    private long today;
+
+    OverdueTracker(LocalDate today) {
+        this.today = today.toEpochDay();
+    }
+
+    // Agenda el préstamo para el día siguiente a su vencimiento
+    synchronized void schedule(Loan loan) {
+        if (scheduled.containsKey(loan) || overdue.contains(loan)) {
+            return;
+        }
+        long expires = loan.getDueDate().toEpochDay() + 1;
+        if (expires <= today) {
+            // Ya estaba vencido: sale en el próximo advance
+            pending.add(loan);
+            return;
+        }
+        var entry = new Entry(loan, (expires - today - 1) / SLOTS);
+        int slot = (int) Math.floorMod(expires, (long) SLOTS);
+        entry.slot = slot;
+        entry.next = wheel[slot];
+        if (entry.next != null) {
+            entry.next.previous = entry;
+        }
+        wheel[slot] = entry;
+        scheduled.put(loan, entry);
+    }
+
+    // Quita el préstamo de la rueda y de los vencidos (por ejemplo, al devolverlo)
+    synchronized void cancel(Loan loan) {
+        var entry = scheduled.remove(loan);
+        if (entry != null) {
+            unlink(entry);
+        } else if (!overdue.remove(loan)) {
+            pending.remove(loan);
+        }
+    }
+
+    // Avanza la rueda hasta "date" y devuelve los préstamos que vencieron desde
+    // el último avance, en el orden en que vencieron
+    synchronized List<Loan> advance(LocalDate date) {
+        long target = date.toEpochDay();
+        var expired = new ArrayList<>(pending);
+        pending.clear();
+        while (today < target) {
+            today++;
+            int slot = (int) Math.floorMod(today, (long) SLOTS);
+            var entry = wheel[slot];
+            while (entry != null) {
+                var next = entry.next;
+                if (entry.rounds == 0) {
+                    unlink(entry);
+                    scheduled.remove(entry.loan);
+                    expired.add(entry.loan);
+                } else {
+                    entry.rounds--;
+                }
+                entry = next;
+            }
+        }
+        overdue.addAll(expired);
+        return expired;
+    }
+
+    // Préstamos vencidos y no devueltos
+    synchronized List<Loan> overdue() {
+        return new ArrayList<>(overdue);
+    }
+
+    private void unlink(Entry entry) {
+        if (entry.previous != null) {
+            entry.previous.next = entry.next;
+        } else {
+            wheel[entry.slot] = entry.next;
+        }
+        if (entry.next != null) {
+            entry.next.previous = entry.previous;
+        }
+        entry.previous = null;
+        entry.next = null;
+    }
+
+    // Nodo de la lista doblemente enlazada de un casillero
+    private static final class Entry {
+        final Loan loan;
+        // Vueltas completas de la rueda que faltan para que venza
+        long rounds;
+        int slot;
+        Entry previous;
+        Entry next;
+
+        Entry(Loan loan, long rounds) {
+            this.loan = loan;
+            this.rounds = rounds;
+        }
+    }
+}
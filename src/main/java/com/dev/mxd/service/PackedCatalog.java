@@ -0,0 +1,726 @@
+package com.dev.mxd.service;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import com.dev.mxd.exception.NotFoundException;
+import com.dev.mxd.model.Book;
+
+// Catálogo de libros guardado fuera del heap, pensado para colecciones muy
+// grandes (decenas de millones de libros). Se puede usar solo o como
+// almacenamiento de BookService (ver BookStorage). Los datos de cada libro van
+// uno detrás de otro en bloques de memoria directa (ByteBuffer.allocateDirect):
+// [byte estado][long orden de alta][int largo ISBN][int largo título][int código de autor][bytes UTF-8]
+// y el índice por ISBN es una tabla hash abierta en dos arreglos primitivos
+// (dirección del registro y hash del ISBN). El recolector de basura no tiene
+// nada que recorrer por libro, así sus pausas no dependen del tamaño del catálogo.
+// Los autores se repiten mucho: se guardan una sola vez en un diccionario y
+// todos los libros del mismo autor comparten el mismo String. Los libros leídos
+// hace poco quedan en un caché chico, así las lecturas repetidas no arman un
+// Book nuevo cada vez.
+// Los borrados marcan el registro; cuando los borrados ocupan la mitad de los
+// bytes, el catálogo se compacta copiando los registros vivos a bloques nuevos.
+// Las lecturas toman el candado de lectura (los bloques pueden cambiar al
+// compactar), salvo las que encuentran el libro en el caché: no compiten
+// entre sí, pero esperan a las escrituras en curso.
+public class PackedCatalog implements BookStorage {
+
+    // Tamaño por defecto de cada bloque de memoria directa
+    public static final int DEFAULT_CHUNK_BYTES = 1 << 26;
+
+    private static final int HEADER_BYTES = 1 + 8 + 4 * 3;
+    private static final byte LIVE = 0;
+    private static final byte DELETED = 1;
+    // Registro de un lote sin publicar: ocupa su ISBN pero no se ve
+    private static final byte STAGED = 2;
+    // Casilleros de la tabla: 0 libre, TOMBSTONE borrado, si no dirección + 1
+    private static final long TOMBSTONE = -1;
+    // Una dirección es [bloque (16 bits)][posición (32 bits)]; el cursor agrega
+    // arriba la generación, que cambia al compactar
+    private static final int MAX_CHUNKS = 1 << 16;
+    private static final int GENERATION_SHIFT = 48;
+    private static final long ADDRESS_MASK = (1L << GENERATION_SHIFT) - 1;
+    private static final int GENERATION_MASK = (1 << 15) - 1;
+    // Libros leídos hace poco, por hash del ISBN
+    private static final int CACHE_SIZE = 4096;
+    // Libros que stream y las vistas fijas leen con cada toma del candado
+    private static final int BATCH = 256;
+
+    private final int chunkBytes;
+    private List<ByteBuffer> chunks = new ArrayList<>();
+    private long[] slots = new long[1024];
+    private int[] hashes = new int[1024];
+    // Libros visibles, casilleros ocupados (visibles y de lotes) y marcas de borrado
+    private int size;
+    private int occupied;
+    private int tombstones;
+    private long usedBytes;
+    private long deletedBytes;
+    private int generation;
+    // Orden de alta del próximo registro; la compactación lo conserva
+    private long nextOrdinal = 1;
+    // Diccionario de autores: código -> autor y autor -> código
+    private final List<String> authors = new ArrayList<>();
+    private final HashMap<String, Integer> authorCodes = new HashMap<>();
+    private final AtomicReferenceArray<Book> recent = new AtomicReferenceArray<>(CACHE_SIZE);
+    // Con una vista fija abierta, los registros anteriores a "frozenEnd" no se
+    // tocan: sus cambios de estado esperan en "pending" hasta cerrar la vista
+    private long frozenEnd = -1;
+    private final HashMap<Long, Byte> pending = new HashMap<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public PackedCatalog() {
+        this(DEFAULT_CHUNK_BYTES);
+    }
+
+    // Bloques más chicos sirven para catálogos chicos o para pruebas
+    public PackedCatalog(int chunkBytes) {
+        if (chunkBytes < HEADER_BYTES) {
+            throw new IllegalArgumentException("El bloque debe tener al menos " + HEADER_BYTES + " bytes");
+        }
+        this.chunkBytes = chunkBytes;
+    }
+
+    // Agrega un libro; el ISBN no se puede repetir
+    public void addBook(String isbn, String title, String author) {
+        if (isbn == null || title == null || author == null
+                || isbn.isBlank() || title.isBlank() || author.isBlank()) {
+            throw new IllegalArgumentException("Los parámetros no pueden ser nulos ni vacíos");
+        }
+        put(new Book(isbn, title, author));
+    }
+
+    // Devuelve el libro con ese ISBN
+    public Book getBookByIsbn(String isbn) throws NotFoundException {
+        if (isbn == null) {
+            throw new IllegalArgumentException("El ISBN no puede ser nulo");
+        }
+        var book = get(isbn);
+        if (book == null) {
+            throw new NotFoundException("El libro con el isbn " + isbn + " no existe");
+        }
+        return book;
+    }
+
+    // Borra el libro con ese ISBN
+    public void deleteBook(String isbn) throws NotFoundException {
+        if (isbn == null) {
+            throw new IllegalArgumentException("El ISBN no puede ser nulo");
+        }
+        if (remove(isbn) == null) {
+            throw new NotFoundException("El libro con el isbn " + isbn + " no pudo ser borrado");
+        }
+    }
+
+    @Override
+    public Book get(String isbn) {
+        int hash = isbn.hashCode();
+        // El caché solo tiene libros visibles: los borrados lo limpian con el candado de escritura
+        var cached = recent.get(spread(hash) & (CACHE_SIZE - 1));
+        if (cached != null && cached.getIsbn().equals(isbn)) {
+            return cached;
+        }
+        lock.readLock().lock();
+        try {
+            int slot = find(isbn.getBytes(StandardCharsets.UTF_8), hash);
+            if (slot < 0 || state(slots[slot] - 1) != LIVE) {
+                return null;
+            }
+            var book = read(slots[slot] - 1);
+            recent.set(spread(hash) & (CACHE_SIZE - 1), book);
+            return book;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean contains(String isbn) {
+        lock.readLock().lock();
+        try {
+            return find(isbn.getBytes(StandardCharsets.UTF_8), isbn.hashCode()) >= 0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void put(Book book) {
+        lock.writeLock().lock();
+        try {
+            add(book, LIVE);
+            size++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Book remove(String isbn) {
+        lock.writeLock().lock();
+        try {
+            int slot = find(isbn.getBytes(StandardCharsets.UTF_8), isbn.hashCode());
+            if (slot < 0 || state(slots[slot] - 1) != LIVE) {
+                return null;
+            }
+            var book = read(slots[slot] - 1);
+            release(slot);
+            size--;
+            compactIfSparse();
+            return book;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Book> values() {
+        var values = new ArrayList<Book>();
+        forEach(values::add);
+        return values;
+    }
+
+    @Override
+    public Page<Book> page(long cursor, int limit) {
+        return getBooks(cursor, limit);
+    }
+
+    // Lee los libros de a tandas, cada una con el candado tomado un momento: no
+    // copia el catálogo al heap ni frena a los escritores mientras se recorre.
+    // Como el almacenamiento en el heap, refleja los cambios hechos durante el
+    // recorrido que caen más adelante; una compactación en el medio no lo corta.
+    @Override
+    public Stream<Book> stream() {
+        var walker = new Iterator<Book>() {
+            private final ArrayList<Book> batch = new ArrayList<>(BATCH);
+            private int index;
+            // Orden de alta del último registro visitado
+            private long ordinal;
+            private long address = -2;
+            private int walkGeneration;
+
+            @Override
+            public boolean hasNext() {
+                if (index == batch.size()) {
+                    fill();
+                }
+                return index < batch.size();
+            }
+
+            @Override
+            public Book next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return batch.get(index++);
+            }
+
+            private void fill() {
+                batch.clear();
+                index = 0;
+                if (address == Page.END) {
+                    return;
+                }
+                lock.readLock().lock();
+                try {
+                    if (address == -2 || walkGeneration != generation) {
+                        // Primera tanda, o el catálogo se compactó: se sigue por orden de alta
+                        address = locate(ordinal + 1);
+                        walkGeneration = generation;
+                    }
+                    while (address != Page.END && batch.size() < BATCH) {
+                        ordinal = ordinal(address);
+                        if (state(address) == LIVE) {
+                            batch.add(read(address));
+                        }
+                        address = following(chunks, address);
+                    }
+                } finally {
+                    lock.readLock().unlock();
+                }
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(walker,
+                Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    // Mientras la vista está abierta no se compacta y los registros anteriores
+    // no cambian de estado en los bloques: las bajas y publicaciones quedan
+    // anotadas aparte y se aplican al cerrarla. Se admite una sola a la vez.
+    @Override
+    public Frozen freeze() {
+        long end;
+        int frozenSize;
+        lock.writeLock().lock();
+        try {
+            if (frozenEnd >= 0) {
+                throw new IllegalStateException("Ya hay una vista fija abierta");
+            }
+            end = chunks.isEmpty() ? 0 : ((long) (chunks.size() - 1) << 32) | chunks.get(chunks.size() - 1).position();
+            frozenEnd = end;
+            frozenSize = size;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return new Frozen() {
+            private boolean closed;
+
+            @Override
+            public int size() {
+                return frozenSize;
+            }
+
+            @Override
+            public Iterator<Book> iterator() {
+                return new Iterator<>() {
+                    private final ArrayList<Book> batch = new ArrayList<>(BATCH);
+                    private int index;
+                    private long address = Page.FIRST;
+
+                    @Override
+                    public boolean hasNext() {
+                        if (index == batch.size()) {
+                            fill();
+                        }
+                        return index < batch.size();
+                    }
+
+                    @Override
+                    public Book next() {
+                        if (!hasNext()) {
+                            throw new NoSuchElementException();
+                        }
+                        return batch.get(index++);
+                    }
+
+                    private void fill() {
+                        batch.clear();
+                        index = 0;
+                        lock.readLock().lock();
+                        try {
+                            if (closed) {
+                                throw new IllegalStateException("La vista fija ya se cerró");
+                            }
+                            address = address == Page.END ? Page.END : start(chunks, address);
+                            while (address != Page.END && address < end && batch.size() < BATCH) {
+                                // El byte del bloque es el estado al abrir la vista
+                                if (chunk(chunks, address).get(offset(address)) == LIVE) {
+                                    batch.add(read(address));
+                                }
+                                address = following(chunks, address);
+                            }
+                            if (address != Page.END && address >= end) {
+                                address = Page.END;
+                            }
+                        } finally {
+                            lock.readLock().unlock();
+                        }
+                    }
+                };
+            }
+
+            @Override
+            public void close() {
+                lock.writeLock().lock();
+                try {
+                    if (closed) {
+                        return;
+                    }
+                    closed = true;
+                    frozenEnd = -1;
+                    pending.forEach((address, state) -> chunk(chunks, address).put(offset(address), state));
+                    pending.clear();
+                    compactIfSparse();
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }
+        };
+    }
+
+    // Carga el lote como registros ocultos. Si algo falla a mitad de camino,
+    // quita lo que ya había cargado.
+    @Override
+    public Batch stage(Iterable<Book> books) {
+        lock.writeLock().lock();
+        try {
+            int staged = 0;
+            try {
+                for (var book : books) {
+                    add(book, STAGED);
+                    staged++;
+                }
+            } catch (RuntimeException e) {
+                unstage(books, staged);
+                throw e;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return new Batch() {
+            @Override
+            public void publish() {
+                lock.writeLock().lock();
+                try {
+                    for (var book : books) {
+                        int slot = find(book.getIsbn().getBytes(StandardCharsets.UTF_8), book.getIsbn().hashCode());
+                        if (slot >= 0 && state(slots[slot] - 1) == STAGED) {
+                            setState(slots[slot] - 1, LIVE);
+                            size++;
+                        }
+                    }
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }
+
+            @Override
+            public void discard() {
+                lock.writeLock().lock();
+                try {
+                    unstage(books, Integer.MAX_VALUE);
+                    compactIfSparse();
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }
+        };
+    }
+
+    // Cantidad de libros
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Bytes ocupados en memoria directa, incluidos los libros borrados que
+    // todavía no se compactaron
+    public long usedBytes() {
+        lock.readLock().lock();
+        try {
+            return usedBytes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Página de libros en orden de alta. El cursor es la dirección del próximo
+    // registro: Page.FIRST o el que devolvió la página anterior. Un cursor de
+    // antes de una compactación ya no sirve y se rechaza.
+    public Page<Book> getBooks(long cursor, int limit) {
+        if (cursor < 0) {
+            throw new IllegalArgumentException("El cursor no es válido: " + cursor);
+        }
+        if (limit <= 0) {
+            throw new IllegalArgumentException("El tamaño de página debe ser positivo");
+        }
+        lock.readLock().lock();
+        try {
+            if (cursor != Page.FIRST && (int) (cursor >>> GENERATION_SHIFT) != generation) {
+                throw new IllegalArgumentException("El cursor ya no es válido: el catálogo se compactó");
+            }
+            var items = new ArrayList<Book>(Math.min(limit, 1024));
+            for (long address = start(chunks, cursor & ADDRESS_MASK); address != Page.END;
+                    address = following(chunks, address)) {
+                if (state(address) != LIVE) {
+                    continue;
+                }
+                if (items.size() == limit) {
+                    return new Page<>(items, ((long) generation << GENERATION_SHIFT) | address);
+                }
+                items.add(read(address));
+            }
+            return new Page<>(items, Page.END);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Recorre todos los libros en orden de alta (la acción no debe modificar el catálogo)
+    public void forEach(Consumer<Book> action) {
+        if (action == null) {
+            throw new IllegalArgumentException("La acción no puede ser nula");
+        }
+        lock.readLock().lock();
+        try {
+            for (long address = start(chunks, Page.FIRST); address != Page.END;
+                    address = following(chunks, address)) {
+                if (state(address) == LIVE) {
+                    action.accept(read(address));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Agrega el registro con el estado indicado. Primero hace lugar en la
+    // tabla: si eso falla, no queda un registro sin casillero.
+    private void add(Book book, byte state) {
+        var isbn = book.getIsbn().getBytes(StandardCharsets.UTF_8);
+        int hash = book.getIsbn().hashCode();
+        if (find(isbn, hash) >= 0) {
+            throw new IllegalArgumentException("Ya existe un libro con el isbn " + book.getIsbn());
+        }
+        if ((occupied + tombstones + 1) * 2 > slots.length) {
+            rehash(occupied * 4 > slots.length ? slots.length * 2 : slots.length);
+        }
+        var title = book.getTitle().getBytes(StandardCharsets.UTF_8);
+        long address = append(chunks, state, nextOrdinal, isbn, title, authorCode(book.getAuthor()));
+        nextOrdinal++;
+        insert(address, hash);
+        occupied++;
+    }
+
+    // Quita los primeros "count" libros del lote que sigan sin publicar
+    private void unstage(Iterable<Book> books, int count) {
+        int seen = 0;
+        for (var book : books) {
+            if (seen++ == count) {
+                return;
+            }
+            int slot = find(book.getIsbn().getBytes(StandardCharsets.UTF_8), book.getIsbn().hashCode());
+            if (slot >= 0 && state(slots[slot] - 1) == STAGED) {
+                release(slot);
+            }
+        }
+    }
+
+    // Marca borrado el registro del casillero y libera el casillero
+    private void release(int slot) {
+        long address = slots[slot] - 1;
+        var chunk = chunk(chunks, address);
+        recent.set(spread(hashes[slot]) & (CACHE_SIZE - 1), null);
+        setState(address, DELETED);
+        deletedBytes += length(chunk, offset(address));
+        slots[slot] = TOMBSTONE;
+        occupied--;
+        tombstones++;
+    }
+
+    // Si los registros borrados ocupan la mitad de los bytes (y al menos un
+    // bloque), copia los demás a bloques nuevos y suelta los viejos. Con una
+    // vista fija abierta se deja para cuando se cierre.
+    private void compactIfSparse() {
+        if (frozenEnd >= 0 || deletedBytes < chunkBytes || deletedBytes * 2 < usedBytes) {
+            return;
+        }
+        var old = chunks;
+        var compacted = new ArrayList<ByteBuffer>();
+        slots = new long[slots.length];
+        hashes = new int[hashes.length];
+        tombstones = 0;
+        usedBytes = 0;
+        deletedBytes = 0;
+        for (long address = start(old, Page.FIRST); address != Page.END; address = following(old, address)) {
+            var chunk = chunk(old, address);
+            int offset = offset(address);
+            byte state = chunk.get(offset);
+            if (state == DELETED) {
+                continue;
+            }
+            int isbnLength = chunk.getInt(offset + 9);
+            var isbn = new byte[isbnLength];
+            chunk.get(offset + HEADER_BYTES, isbn);
+            var title = new byte[chunk.getInt(offset + 13)];
+            chunk.get(offset + HEADER_BYTES + isbnLength, title);
+            long moved = append(compacted, state, chunk.getLong(offset + 1), isbn, title, chunk.getInt(offset + 17));
+            insert(moved, new String(isbn, StandardCharsets.UTF_8).hashCode());
+        }
+        chunks = compacted;
+        generation = (generation + 1) & GENERATION_MASK;
+    }
+
+    // Copia el registro al final del último bloque (o de uno nuevo) y devuelve su dirección
+    private long append(List<ByteBuffer> into, byte state, long ordinal, byte[] isbn, byte[] title, int author) {
+        int length = HEADER_BYTES + isbn.length + title.length;
+        var chunk = into.isEmpty() ? null : into.get(into.size() - 1);
+        if (chunk == null || chunk.remaining() < length) {
+            if (into.size() == MAX_CHUNKS) {
+                throw new IllegalStateException("El catálogo no tiene más bloques disponibles");
+            }
+            chunk = ByteBuffer.allocateDirect(Math.max(chunkBytes, length));
+            into.add(chunk);
+        }
+        long address = ((long) (into.size() - 1) << 32) | chunk.position();
+        chunk.put(state).putLong(ordinal).putInt(isbn.length).putInt(title.length).putInt(author)
+                .put(isbn).put(title);
+        usedBytes += length;
+        return address;
+    }
+
+    // Código del autor en el diccionario; lo agrega si es nuevo
+    private int authorCode(String author) {
+        var code = authorCodes.putIfAbsent(author, authors.size());
+        if (code == null) {
+            authors.add(author);
+            return authors.size() - 1;
+        }
+        return code;
+    }
+
+    // Dirección del primer registro con orden de alta "ordinal" o posterior, o
+    // Page.END. Los bloques están en orden de alta: se elige el bloque por su
+    // primer registro y se recorre solo ese.
+    private long locate(long ordinal) {
+        int low = 0;
+        int high = chunks.size() - 1;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (chunks.get(middle).getLong(1) <= ordinal) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+        for (long address = start(chunks, (long) low << 32); address != Page.END;
+                address = following(chunks, address)) {
+            if (ordinal(address) >= ordinal) {
+                return address;
+            }
+        }
+        return Page.END;
+    }
+
+    // Casillero del ISBN (de un libro visible o de un lote), o -1 si no está
+    private int find(byte[] isbn, int hash) {
+        int mask = slots.length - 1;
+        for (int slot = spread(hash) & mask; ; slot = (slot + 1) & mask) {
+            long value = slots[slot];
+            if (value == 0) {
+                return -1;
+            }
+            if (value != TOMBSTONE && hashes[slot] == hash && sameIsbn(value - 1, isbn)) {
+                return slot;
+            }
+        }
+    }
+
+    private void insert(long address, int hash) {
+        int mask = slots.length - 1;
+        int slot = spread(hash) & mask;
+        while (slots[slot] != 0 && slots[slot] != TOMBSTONE) {
+            slot = (slot + 1) & mask;
+        }
+        if (slots[slot] == TOMBSTONE) {
+            tombstones--;
+        }
+        slots[slot] = address + 1;
+        hashes[slot] = hash;
+    }
+
+    // Rearma la tabla con "capacity" casilleros, descartando las marcas de borrado
+    private void rehash(int capacity) {
+        var oldSlots = slots;
+        var oldHashes = hashes;
+        slots = new long[capacity];
+        hashes = new int[capacity];
+        tombstones = 0;
+        for (int i = 0; i < oldSlots.length; i++) {
+            if (oldSlots[i] != 0 && oldSlots[i] != TOMBSTONE) {
+                insert(oldSlots[i] - 1, oldHashes[i]);
+            }
+        }
+    }
+
+    private boolean sameIsbn(long address, byte[] isbn) {
+        var chunk = chunk(chunks, address);
+        int offset = offset(address);
+        if (chunk.getInt(offset + 9) != isbn.length) {
+            return false;
+        }
+        return chunk.slice(offset + HEADER_BYTES, isbn.length).equals(ByteBuffer.wrap(isbn));
+    }
+
+    // Arma el Book a partir de los bytes del registro; el autor sale del diccionario
+    private Book read(long address) {
+        var chunk = chunk(chunks, address);
+        int offset = offset(address);
+        int isbnLength = chunk.getInt(offset + 9);
+        int titleLength = chunk.getInt(offset + 13);
+        int start = offset + HEADER_BYTES;
+        return new Book(string(chunk, start, isbnLength),
+                string(chunk, start + isbnLength, titleLength),
+                authors.get(chunk.getInt(offset + 17)));
+    }
+
+    // Estado actual del registro, contando los cambios que esperan a que se cierre la vista fija
+    private byte state(long address) {
+        if (!pending.isEmpty()) {
+            var state = pending.get(address);
+            if (state != null) {
+                return state;
+            }
+        }
+        return chunk(chunks, address).get(offset(address));
+    }
+
+    private void setState(long address, byte state) {
+        if (address < frozenEnd) {
+            pending.put(address, state);
+        } else {
+            chunk(chunks, address).put(offset(address), state);
+        }
+    }
+
+    private long ordinal(long address) {
+        return chunk(chunks, address).getLong(offset(address) + 1);
+    }
+
+    // Primer registro desde la dirección (la misma si apunta a uno), o Page.END
+    private static long start(List<ByteBuffer> in, long address) {
+        for (int index = (int) (address >>> 32); index < in.size(); index++) {
+            int offset = index == (int) (address >>> 32) ? offset(address) : 0;
+            if (offset < in.get(index).position()) {
+                return ((long) index << 32) | offset;
+            }
+        }
+        return Page.END;
+    }
+
+    // Dirección del registro siguiente, o Page.END si era el último
+    private static long following(List<ByteBuffer> in, long address) {
+        int index = (int) (address >>> 32);
+        int offset = offset(address);
+        return start(in, ((long) index << 32) | (offset + length(in.get(index), offset)));
+    }
+
+    private static int length(ByteBuffer chunk, int offset) {
+        return HEADER_BYTES + chunk.getInt(offset + 9) + chunk.getInt(offset + 13);
+    }
+
+    private static ByteBuffer chunk(List<ByteBuffer> in, long address) {
+        return in.get((int) (address >>> 32));
+    }
+
+    private static int offset(long address) {
+        return (int) address;
+    }
+
+    private static String string(ByteBuffer chunk, int offset, int length) {
+        var bytes = new byte[length];
+        chunk.get(offset, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // Mezcla los bits altos del hash en los bajos, como StripedLocks
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+}
@@ -0,0 +1,53 @@
+package com.dev.mxd.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.function.Function;
+
+// Una página de resultados y el cursor para pedir la siguiente.
+// El cursor es la posición de inserción del próximo elemento (paginado por
+// clave, no por desplazamiento): pedir la página siguiente no recorre las
+// anteriores y no se corre aunque otros hilos agreguen o borren mientras tanto.
+public record Page<T>(List<T> items, long nextCursor) {
+
+    // Cursor para pedir la primera página
+    public static final long FIRST = 0;
+    // Cursor que indica que no hay más páginas
+    public static final long END = -1;
+
+    public Page {
+        if (items == null) {
+            throw new IllegalArgumentException("Los parámetros no pueden ser nulos");
+        }
+        items = List.copyOf(items);
+    }
+
+    // Si hay una página siguiente
+    public boolean hasNext() {
+        return nextCursor != END;
+    }
+
+    // Arma una página recorriendo "source" desde "cursor". "valueOf" convierte cada
+    // elemento y devuelve null para los que todavía no se deben ver.
+    static <S, T> Page<T> collect(NavigableMap<Long, S> source, long cursor, int limit, Function<S, T> valueOf) {
+        if (cursor < 0) {
+            throw new IllegalArgumentException("El cursor no es válido: " + cursor);
+        }
+        if (limit <= 0) {
+            throw new IllegalArgumentException("El tamaño de página debe ser positivo");
+        }
+        var items = new ArrayList<T>(Math.min(limit, 1024));
+        for (var entry : source.tailMap(cursor, true).entrySet()) {
+            var value = valueOf.apply(entry.getValue());
+            if (value == null) {
+                continue;
+            }
+            if (items.size() == limit) {
+                return new Page<>(items, entry.getKey());
+            }
+            items.add(value);
+        }
+        return new Page<>(items, END);
+    }
+}
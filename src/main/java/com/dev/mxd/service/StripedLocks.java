@@ -0,0 +1,69 @@
+package com.dev.mxd.service;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Conjunto fijo de candados repartidos por hash de la clave (lock striping).
+// Dos claves distintas casi siempre caen en candados distintos y avanzan en
+// paralelo; la misma clave siempre usa el mismo candado.
+final class StripedLocks {
+
+    // Candados disponibles; la cantidad es potencia de dos para usar una máscara
+    private final ReentrantLock[] locks;
+    private final int mask;
+
+    // Crea al menos "stripes" candados, redondeando a la potencia de dos siguiente
+    StripedLocks(int stripes) {
+        if (stripes <= 0) {
+            throw new IllegalArgumentException("La cantidad de candados debe ser positiva");
+        }
+        int size = Integer.highestOneBit(stripes - 1) << 1;
+        if (size <= 0) {
+            size = 1;
+        }
+        locks = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        mask = size - 1;
+    }
+
+    // Tamaño por defecto: varios candados por núcleo para que los choques sean raros
+    static StripedLocks forAvailableProcessors() {
+        return new StripedLocks(Math.max(64, Runtime.getRuntime().availableProcessors() * 16));
+    }
+
+    // Devuelve el candado que protege la clave
+    ReentrantLock lockFor(String key) {
+        return locks[stripeOf(key)];
+    }
+
+    // Candados de todas las claves, sin repetir y ordenados por posición.
+    // Quien necesita varios los toma siempre en este orden, así dos hilos con
+    // conjuntos de claves cruzados nunca quedan esperándose entre sí.
+    List<ReentrantLock> locksFor(Collection<String> keys) {
+        var stripes = new BitSet(locks.length);
+        for (var key : keys) {
+            stripes.set(stripeOf(key));
+        }
+        var ordered = new ArrayList<ReentrantLock>(stripes.cardinality());
+        for (int i = stripes.nextSetBit(0); i >= 0; i = stripes.nextSetBit(i + 1)) {
+            ordered.add(locks[i]);
+        }
+        return ordered;
+    }
+
+    // Posición del candado de la clave; mezcla los bits altos del hash en los bajos
+    int stripeOf(String key) {
+        int h = key.hashCode();
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    // Cantidad total de candados
+    int size() {
+        return locks.length;
+    }
+}
@@ -0,0 +1,46 @@
+package com.dev.mxd.service;
+
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Como StripedLocks, pero cada posición es un candado de lectura y escritura.
+// Sirve cuando casi todos los que usan una clave solo necesitan que no cambie
+// mientras trabajan (lectura, compartida) y pocos la cambian (escritura,
+// exclusiva): las lecturas de claves que caen en la misma posición no se
+// esperan entre sí.
+final class StripedReadWriteLocks {
+
+    private final ReentrantReadWriteLock[] locks;
+    private final int mask;
+
+    // Crea al menos "stripes" candados, redondeando a la potencia de dos siguiente
+    StripedReadWriteLocks(int stripes) {
+        if (stripes <= 0) {
+            throw new IllegalArgumentException("La cantidad de candados debe ser positiva");
+        }
+        int size = Integer.highestOneBit(stripes - 1) << 1;
+        if (size <= 0) {
+            size = 1;
+        }
+        locks = new ReentrantReadWriteLock[size];
+        for (int i = 0; i < size; i++) {
+            locks[i] = new ReentrantReadWriteLock();
+        }
+        mask = size - 1;
+    }
+
+    // Mismo tamaño por defecto que StripedLocks
+    static StripedReadWriteLocks forAvailableProcessors() {
+        return new StripedReadWriteLocks(Math.max(64, Runtime.getRuntime().availableProcessors() * 16));
+    }
+
+    // Devuelve el candado que protege la clave
+    ReentrantReadWriteLock lockFor(String key) {
+        int h = key.hashCode();
+        return locks[(h ^ (h >>> 16)) & mask];
+    }
+
+    // Cantidad total de candados
+    int size() {
+        return locks.length;
+    }
+}
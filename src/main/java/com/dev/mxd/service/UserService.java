@@ -1,18 +1,70 @@
 package com.dev.mxd.service;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Path;
 import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
+import com.dev.mxd.bulk.DelimitedReader;
+import com.dev.mxd.bulk.ImportReport;
+import com.dev.mxd.bulk.ParallelParser;
+import com.dev.mxd.bulk.ParsedRow;
+import com.dev.mxd.bulk.RejectedRow;
 import com.dev.mxd.exception.NotFoundException;
+import com.dev.mxd.metrics.LibraryMetrics;
+import com.dev.mxd.metrics.ServiceOperation;
 import com.dev.mxd.model.User;
+import com.dev.mxd.persistence.Journal;
+import com.dev.mxd.persistence.Operation;
 
 // Servicio que maneja todo lo relacionado con los USUARIOS.
 //  registrar nuevos usuarios, buscarlos y listar todos.
+// Las consultas no toman candados; los cambios se hacen de a uno con writeLock.
 public class UserService {
 
-    // Lista en memoria donde guardamos a todos los usuarios
-    private List<User> users = new ArrayList<>();
+    // Índice principal: usuarios por ID, en orden de registro
+    private OrderedIndex<String, User> users = new OrderedIndex<>();
+    // Índice secundario: ID del usuario por email normalizado (sin distinguir mayúsculas)
+    private ConcurrentHashMap<String, String> idsByEmail = new ConcurrentHashMap<>();
+    // Serializa las altas, bajas y modificaciones (las lecturas no lo usan)
+    private ReentrantLock writeLock = new ReentrantLock();
+    // Journal donde se registran los cambios antes de aplicarlos
+    private Journal journal;
+    // Contadores y latencias de las consultas
+    private LibraryMetrics metrics;
+    // Ordena los borrados con los préstamos de LoanService (ver DeletionGuard)
+    private volatile DeletionGuard deletionGuard = DeletionGuard.NONE;
+
+    // Crea el servicio solo en memoria
+    public UserService() {
+        this(Journal.NONE);
+    }
+
+    // Crea el servicio registrando los cambios en el journal
+    public UserService(Journal journal) {
+        this(journal, LibraryMetrics.NONE);
+    }
+
+    // Igual que el anterior, midiendo las consultas en "metrics"
+    public UserService(Journal journal, LibraryMetrics metrics) {
+        if (journal == null || metrics == null) {
+            throw new IllegalArgumentException("El journal y las métricas no pueden ser nulos");
+        }
+        this.journal = journal;
+        this.metrics = metrics;
+    }
 
     // Agrega un usuario con la fecha de registro actual
     public void addUser(String id, String name, String email) {
@@ -25,7 +77,7 @@ public class UserService {
             throw new IllegalArgumentException("Los parámetros no pueden estar vacíos");
         }
         // Si todo está correcto, lo agregam con la fecha actual
-        users.add(new User(id, name, email));
+        register(new User(id, name, email));
     }
 
     // Agrega un usuario pero permitiendo especificar la fecha de registro
@@ -36,25 +88,80 @@ public class UserService {
         if (id.trim().isEmpty() || name.trim().isEmpty() || email.trim().isEmpty()) {
             throw new IllegalArgumentException("Los parámetros no pueden estar vacíos");
         }
-        users.add(new User(id, name, email, registerDate));
+        register(new User(id, name, email, registerDate));
+    }
+
+    // Importa usuarios desde un archivo CSV o TSV con las columnas id, nombre,
+    // email y, opcionalmente, fecha de registro (AAAA-MM-DD). Ver importUsers(Reader).
+    public ImportReport importUsers(Path file) throws IOException {
+        try (var reader = DelimitedReader.open(file)) {
+            return importUsers(reader);
+        }
+    }
+
+    // Importa usuarios leyendo el contenido como CSV o TSV, fila por fila.
+    // La validación se hace en paralelo; ante un ID o email repetido gana la
+    // primera fila válida del archivo. Las filas rechazadas se informan con su
+    // línea y el motivo.
+    // Los usuarios válidos se cargan ocultos y se publican todos juntos: las
+    // consultas nunca esperan ni ven el lote a medias.
+    public ImportReport importUsers(Reader source) throws IOException {
+        if (source == null) {
+            throw new IllegalArgumentException("El reader no puede ser nulo");
+        }
+        return importUsers(new DelimitedReader(source));
     }
 
-    // Devuelve la lista completa de usuarios
+    // Devuelve la lista completa de usuarios, en orden de registro
     public List<User> getAllUsers() {
-        return users;
+        return users.values();
+    }
+
+    // Devuelve una página de usuarios en orden de registro, desde el cursor
+    // (Page.FIRST para empezar; el siguiente viene en la página)
+    public Page<User> getUsers(long cursor, int limit) {
+        return users.page(cursor, limit);
+    }
+
+    // Recorre los usuarios en orden de registro sin copiarlos ni bloquear los cambios
+    public Stream<User> streamUsers() {
+        return users.stream();
     }
 
     // Busca un usuario por su ID, si no lo encuentra lanza una excepción
     public User getUserById(String id) throws NotFoundException {
+        return findUserById(id).orElseThrow(
+                () -> new NotFoundException("El usuario con el id " + id + " no fue encontrado"));
+    }
+
+    // Igual que getUserById, pero un ID inexistente devuelve un Optional vacío
+    // en vez de crear una excepción
+    public Optional<User> findUserById(String id) {
         if (id == null) {
             throw new IllegalArgumentException("El ID no puede ser nulo");
         }
-        for (var user : users) {
-            if (user.getId().equals(id)) {
-                return user;
-            }
+        long start = metrics.start();
+        var user = users.get(id);
+        if (user == null) {
+            metrics.notFound(ServiceOperation.GET_USER_BY_ID);
+        }
+        metrics.record(ServiceOperation.GET_USER_BY_ID, start);
+        return Optional.ofNullable(user);
+    }
+
+    // Busca un usuario por su email, sin distinguir mayúsculas de minúsculas
+    public Optional<User> findUserByEmail(String email) {
+        if (email == null) {
+            throw new IllegalArgumentException("El email no puede ser nulo");
+        }
+        var key = emailKey(email);
+        var id = idsByEmail.get(key);
+        var user = id == null ? null : users.get(id);
+        // Si el email se está cambiando en este momento, el usuario ya no corresponde
+        if (user == null || !emailKey(user.getEmail()).equals(key)) {
+            return Optional.empty();
         }
-        throw new NotFoundException("El usuario con el id " + id + " no fue encontrado");
+        return Optional.of(user);
     }
 
     // Cambia el correo electrónico de un usuario
@@ -65,8 +172,24 @@ public class UserService {
         if (email.trim().isEmpty()) {
             throw new IllegalArgumentException("El email no puede estar vacío");
         }
-        var user = getUserById(id);
-        user.setEmail(email);
+        writeLock.lock();
+        try {
+            var user = getUserById(id);
+            // El nuevo email no puede pertenecer a otro usuario
+            var key = emailKey(email);
+            var owner = idsByEmail.get(key);
+            if (owner != null && !owner.equals(id)) {
+                throw new IllegalArgumentException("El email " + email + " ya está registrado");
+            }
+            // Reindexa: quita la clave vieja y agrega la nueva
+            journal.record(Operation.UPDATE_USER_EMAIL, () -> {
+                users.replace(id, user.withEmail(email));
+                idsByEmail.remove(emailKey(user.getEmail()));
+                idsByEmail.put(key, id);
+            }, id, email);
+        } finally {
+            writeLock.unlock();
+        }
     }
 
     // Cambia el nombre de un usuario
@@ -77,8 +200,13 @@ public class UserService {
         if (name.trim().isEmpty()) {
             throw new IllegalArgumentException("El nombre no puede estar vacío");
         }
-        var user = getUserById(id);// Si no existe, lanza NotFoundException
-        user.setName(name);// Actualiza el correo
+        writeLock.lock();
+        try {
+            var user = getUserById(id);// Si no existe, lanza NotFoundException
+            journal.record(Operation.UPDATE_USER_NAME, () -> users.replace(id, user.withName(name)), id, name);// Actualiza el nombre
+        } finally {
+            writeLock.unlock();
+        }
     }
 
     // Elimina un usuario por su ID
@@ -86,7 +214,161 @@ public class UserService {
         if (id == null) {
             throw new IllegalArgumentException("El ID no puede ser nulo");
         }
-        var user = getUserById(id);
-        users.remove(user);
+        writeLock.lock();
+        try {
+            deletionGuard.deletingUser(id, () -> {
+                var user = getUserById(id);
+                journal.record(Operation.DELETE_USER, () -> {
+                    users.remove(id);
+                    idsByEmail.remove(emailKey(user.getEmail()));
+                }, id);
+            });
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // Lo llama LoanService al construirse para ordenar los borrados con sus préstamos
+    void guardDeletes(DeletionGuard guard) {
+        deletionGuard = guard;
+    }
+
+    // Guarda el usuario en ambos índices, rechazando IDs o emails repetidos
+    private void register(User user) {
+        writeLock.lock();
+        try {
+            var reason = conflict(user);
+            if (reason != null) {
+                throw new IllegalArgumentException(reason);
+            }
+            var key = emailKey(user.getEmail());
+            journal.record(Operation.ADD_USER, () -> {
+                users.put(user.getId(), user);
+                idsByEmail.put(key, user.getId());
+            }, user.getId(), user.getName(), user.getEmail(), user.getRegisterDate().toString());
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private ImportReport importUsers(DelimitedReader reader) throws IOException {
+        if (!reader.skipHeader("id", "name", "email", "registerDate")) {
+            reader.skipHeader("id", "name", "email");
+        }
+        // Primera fila válida con cada ID y con cada email. La unicidad dentro del
+        // archivo se revisa en orden y solo sobre las filas válidas: una fila
+        // rechazada no le quita el ID ni el email a las que siguen.
+        var firstById = new HashMap<String, Long>();
+        var firstByEmail = new HashMap<String, Long>();
+        var valid = new ArrayList<ParsedRow<User>>();
+        var rejected = new ArrayList<RejectedRow>();
+        ParallelParser.parse(reader, row -> parseUser(row.fields()), row -> {
+            if (!row.isValid()) {
+                rejected.add(new RejectedRow(row.line(), row.error()));
+                return;
+            }
+            var user = row.value();
+            var firstId = firstById.putIfAbsent(user.getId(), row.line());
+            if (firstId != null) {
+                rejected.add(new RejectedRow(row.line(),
+                        "El id " + user.getId() + " está repetido en el archivo (línea " + firstId + ")"));
+                return;
+            }
+            var firstEmail = firstByEmail.putIfAbsent(emailKey(user.getEmail()), row.line());
+            if (firstEmail != null) {
+                // El ID queda libre para una fila posterior
+                firstById.remove(user.getId());
+                rejected.add(new RejectedRow(row.line(),
+                        "El email " + user.getEmail() + " está repetido en el archivo (línea " + firstEmail + ")"));
+                return;
+            }
+            valid.add(row);
+        });
+
+        // Segunda pasada, en paralelo: descarta los que ya existen en el servicio
+        var reasons = new String[valid.size()];
+        IntStream.range(0, valid.size()).parallel().forEach(i -> reasons[i] = conflict(valid.get(i).value()));
+
+        var accepted = new LinkedHashMap<String, User>();
+        writeLock.lock();
+        try {
+            for (int i = 0; i < reasons.length; i++) {
+                var row = valid.get(i);
+                // Se vuelve a revisar con el candado: otro hilo pudo registrar el mismo ID o email
+                var reason = reasons[i] != null ? reasons[i] : conflict(row.value());
+                if (reason != null) {
+                    rejected.add(new RejectedRow(row.line(), reason));
+                } else {
+                    accepted.put(row.value().getId(), row.value());
+                }
+            }
+            publish(accepted);
+        } finally {
+            writeLock.unlock();
+        }
+        rejected.sort(Comparator.comparingLong(RejectedRow::line));
+        return new ImportReport(accepted.size(), rejected);
+    }
+
+    // Carga el lote oculto, lo registra en el journal y lo hace visible de una vez.
+    // Se llama con writeLock tomado.
+    private void publish(LinkedHashMap<String, User> accepted) {
+        var batch = new ArrayList<String[]>(accepted.size());
+        for (var user : accepted.values()) {
+            batch.add(new String[] {user.getId(), user.getName(), user.getEmail(),
+                    user.getRegisterDate().toString()});
+        }
+        var publication = users.stage(accepted);
+        try {
+            for (var user : accepted.values()) {
+                idsByEmail.put(emailKey(user.getEmail()), user.getId());
+            }
+            journal.recordBatch(Operation.ADD_USER, batch, () -> users.publish(publication));
+        } catch (RuntimeException e) {
+            for (var user : accepted.values()) {
+                idsByEmail.remove(emailKey(user.getEmail()), user.getId());
+            }
+            users.discard(accepted, publication);
+            throw e;
+        }
+    }
+
+    // Motivo por el que el usuario no se puede registrar, o null si se puede
+    private String conflict(User user) {
+        if (users.containsKey(user.getId())) {
+            return "Ya existe un usuario con el id " + user.getId();
+        }
+        if (idsByEmail.containsKey(emailKey(user.getEmail()))) {
+            return "El email " + user.getEmail() + " ya está registrado";
+        }
+        return null;
+    }
+
+    // Convierte una fila del archivo en un usuario con las mismas reglas que addUser;
+    // quita los espacios alrededor de cada campo. Se llama desde varios hilos.
+    private static User parseUser(List<String> fields) {
+        if (fields.size() != 3 && fields.size() != 4) {
+            throw new IllegalArgumentException(
+                    "Se esperaban 3 o 4 columnas (id, nombre, email, fecha de registro) y hay " + fields.size());
+        }
+        var id = fields.get(0).trim();
+        var name = fields.get(1).trim();
+        var email = fields.get(2).trim();
+        if (id.isEmpty() || name.isEmpty() || email.isEmpty()) {
+            throw new IllegalArgumentException("Los parámetros no pueden estar vacíos");
+        }
+        if (fields.size() == 3 || fields.get(3).isBlank()) {
+            return new User(id, name, email);
+        }
+        try {
+            return new User(id, name, email, LocalDate.parse(fields.get(3).trim()));
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("La fecha de registro " + fields.get(3).trim() + " no es válida");
+        }
+    }
+
+    // Normaliza el email para compararlo sin importar mayúsculas ni espacios
+    private static String emailKey(String email) {
+        return email.trim().toLowerCase(Locale.ROOT);
     }
 }
@@ -0,0 +1,195 @@
+package com.dev.mxd.async;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+
+import com.dev.mxd.exception.NotFoundException;
+import com.dev.mxd.model.Book;
+import com.dev.mxd.persistence.FileJournal;
+import com.dev.mxd.persistence.FsyncPolicy;
+import com.dev.mxd.persistence.Operation;
+import com.dev.mxd.service.BookService;
+import com.dev.mxd.service.LoanService;
+import com.dev.mxd.service.UserService;
+
+/**
+ * Pruebas unitarias para AsyncLibrary.
+ * Se valida que las operaciones lleguen a los servicios, que los errores
+ * viajen en el futuro y que se respeten el tiempo máximo y la concurrencia.
+ */
+class AsyncLibraryTest {
+
+    /**
+     * Verifica un flujo completo de alta, préstamo y devolución con muchas
+     * operaciones en curso a la vez.
+     */
+    @Test
+    void testOperationsReachServices() throws Exception {
+        // Given
+        var books = new BookService();
+        var users = new UserService();
+        var loans = new LoanService(books, users);
+        try (var library = new AsyncLibrary(books, users, loans)) {
+            library.addUser("u1", "Ana", "ana@mail.com").get(5, TimeUnit.SECONDS);
+
+            // When
+            var added = new ArrayList<CompletableFuture<Void>>();
+            for (int i = 0; i < 1000; i++) {
+                added.add(library.addBook(String.valueOf(i), "Titulo " + i, "Autor"));
+            }
+            CompletableFuture.allOf(added.toArray(CompletableFuture[]::new)).get(10, TimeUnit.SECONDS);
+            library.addLoan("u1", "7").get(5, TimeUnit.SECONDS);
+            library.returnBook("u1", "7").get(5, TimeUnit.SECONDS);
+            var day = LocalDate.of(2024, 3, 1);
+            library.addLoan("u1", "8", day, day.plusDays(7)).get(5, TimeUnit.SECONDS);
+            library.returnBook("u1", "8", day.plusDays(2)).get(5, TimeUnit.SECONDS);
+            library.importUsers(new StringReader("u2,Beto,beto@mail.com\n")).get(5, TimeUnit.SECONDS);
+
+            // Then
+            assertEquals(Map.of(day, 1), library.countRecentLoansByDay(day, day).get(5, TimeUnit.SECONDS));
+            assertEquals(1, library.getLoansOlderThan(30).get(5, TimeUnit.SECONDS).size());
+            assertEquals("Beto", library.getUserById("u2").get(5, TimeUnit.SECONDS).getName());
+            assertEquals(1000, library.getAllBooks().get(5, TimeUnit.SECONDS).size());
+            assertEquals("Titulo 7", library.getBookByIsbn("7").get(5, TimeUnit.SECONDS).getTitle());
+            assertEquals(2, library.getLoans().get(5, TimeUnit.SECONDS).size());
+            assertEquals(loans.getLoanDate(), library.getLoanDate().get(5, TimeUnit.SECONDS));
+            assertEquals("Titulo 7", library.searchBooks("titulo 7").get(5, TimeUnit.SECONDS).get(0).getTitle());
+            var seen = new ArrayList<String>();
+            library.forEachBook(book -> seen.add(book.getIsbn())).get(5, TimeUnit.SECONDS);
+            assertEquals(1000, seen.size());
+            var loanCount = new AtomicInteger();
+            library.forEachLoan(loan -> loanCount.incrementAndGet()).get(5, TimeUnit.SECONDS);
+            assertEquals(2, loanCount.get());
+            var userIds = new ArrayList<String>();
+            library.forEachUser(user -> userIds.add(user.getId())).get(5, TimeUnit.SECONDS);
+            assertEquals(List.of("u1", "u2"), userIds);
+            var error = assertThrows(ExecutionException.class,
+                    () -> library.getBookByIsbn("no existe").get(5, TimeUnit.SECONDS));
+            assertInstanceOf(NotFoundException.class, error.getCause());
+        }
+    }
+
+    /**
+     * Verifica que una operación que tarda más que el tiempo máximo falle con
+     * TimeoutException y que el límite de concurrencia haga esperar a las demás.
+     */
+    @Test
+    void testTimeoutAndConcurrencyLimit() throws Exception {
+        // Given: un servicio que se queda bloqueado hasta que se lo libera
+        var books = Mockito.mock(BookService.class);
+        var release = new CountDownLatch(1);
+        Mockito.when(books.getBookByIsbn("lento")).thenAnswer(invocation -> {
+            release.await();
+            return new Book("lento", "T", "A");
+        });
+        Mockito.when(books.getBookByIsbn("rapido")).thenReturn(new Book("rapido", "T", "A"));
+        var users = Mockito.mock(UserService.class);
+        try (var library = new AsyncLibrary(books, users, new LoanService(books, users), 1, Duration.ofSeconds(5))) {
+
+            // When
+            var slow = library.getBookByIsbn("lento");
+            var waiting = library.getBookByIsbn("rapido");
+            Thread.sleep(200);
+
+            // Then: con un solo permiso la segunda espera a la primera
+            assertFalse(waiting.isDone());
+            release.countDown();
+            assertEquals("lento", slow.get(5, TimeUnit.SECONDS).getIsbn());
+            assertEquals("rapido", waiting.get(5, TimeUnit.SECONDS).getIsbn());
+
+            var blocked = new CountDownLatch(1);
+            Mockito.when(books.getBookByIsbn("colgado")).thenAnswer(invocation -> {
+                blocked.await();
+                return null;
+            });
+            var error = assertThrows(ExecutionException.class, () -> library.withTimeout(Duration.ofMillis(100))
+                    .getBookByIsbn("colgado").get(5, TimeUnit.SECONDS));
+            assertInstanceOf(TimeoutException.class, error.getCause());
+            // La que venció esperando su turno no llega a correr
+            var queued = library.withTimeout(Duration.ofMillis(100)).deleteBook("en espera");
+            assertInstanceOf(TimeoutException.class,
+                    assertThrows(ExecutionException.class, () -> queued.get(5, TimeUnit.SECONDS)).getCause());
+            // La tarea vencida no se interrumpe: termina y devuelve su permiso
+            blocked.countDown();
+            assertEquals("rapido", library.getBookByIsbn("rapido").get(5, TimeUnit.SECONDS).getIsbn());
+            Mockito.verify(books, Mockito.never()).deleteBook("en espera");
+        }
+        assertThrows(IllegalArgumentException.class,
+                () -> new AsyncLibrary(books, users, new LoanService(books, users), 0, Duration.ofSeconds(1)));
+    }
+
+    /**
+     * Verifica con un journal real que una operación vencida no se interrumpa:
+     * termina, queda registrada y el journal sigue aceptando escrituras.
+     */
+    @Test
+    void testTimeoutKeepsJournalOpen(@TempDir Path dir) throws Exception {
+        // Given: una importación que sigue leyendo después de vencer su tiempo
+        var file = dir.resolve("journal-1.log");
+        var release = new AtomicBoolean();
+        var slow = new Reader() {
+            private final Reader data = new StringReader("1,Ficciones,Jorge Luis Borges\n");
+
+            @Override
+            public int read(char[] buffer, int offset, int length) throws IOException {
+                while (!release.get()) {
+                    Thread.onSpinWait();
+                }
+                return data.read(buffer, offset, length);
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        try (var journal = FileJournal.open(file, FsyncPolicy.ALWAYS)) {
+            var books = new BookService(journal);
+            var users = new UserService(journal);
+            try (var library = new AsyncLibrary(books, users, new LoanService(books, users, journal),
+                    10, Duration.ofSeconds(5))) {
+
+                // When
+                var imported = library.withTimeout(Duration.ofMillis(100)).importBooks(slow);
+                var error = assertThrows(ExecutionException.class, () -> imported.get(5, TimeUnit.SECONDS));
+                release.set(true);
+                library.addBook("2", "El Aleph", "Jorge Luis Borges").get(5, TimeUnit.SECONDS);
+
+                // Then
+                assertInstanceOf(TimeoutException.class, error.getCause());
+            }
+            assertEquals("Ficciones", books.getBookByIsbn("1").getTitle());
+        }
+        var recorded = new HashSet<String>();
+        FileJournal.read(file, entry -> {
+            if (entry.operation() == Operation.ADD_BOOK) {
+                recorded.add(entry.arg(0));
+            }
+        });
+        assertEquals(Set.of("1", "2"), recorded);
+    }
+}
@@ -0,0 +1,82 @@
+package com.dev.mxd.bulk;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Pruebas unitarias para DelimitedReader.
+ * Se valida la detección del separador, las comillas de CSV,
+ * el encabezado opcional y los números de línea.
+ */
+class DelimitedReaderTest {
+
+    /**
+     * Verifica que en CSV se respeten las comillas, incluso con comas,
+     * comillas dobles y saltos de línea adentro.
+     */
+    @Test
+    void testCsvWithQuotes() throws IOException {
+        // Given
+        var csv = "1,\"Cien años, de soledad\",García\n"
+                + "\n"
+                + "2,\"El \"\"Aleph\"\"\",\"Jorge\nLuis Borges\"\n"
+                + "3,Rayuela,Cortázar\n";
+
+        // When
+        try (var reader = new DelimitedReader(new StringReader(csv))) {
+            var first = reader.next();
+            var second = reader.next();
+            var third = reader.next();
+
+            // Then
+            assertEquals(1, first.line());
+            assertEquals(List.of("1", "Cien años, de soledad", "García"), first.fields());
+            assertEquals(3, second.line());
+            assertEquals(List.of("2", "El \"Aleph\"", "Jorge\nLuis Borges"), second.fields());
+            assertEquals(5, third.line());
+            assertNull(reader.next());
+        }
+    }
+
+    /**
+     * Verifica que con tabuladores se use TSV y que el encabezado se descarte.
+     */
+    @Test
+    void testTsvWithHeader() throws IOException {
+        // Given
+        var tsv = "ISBN\tTitle\tAuthor\n1\tTitulo, con coma\tAutor\n";
+
+        // When
+        try (var reader = new DelimitedReader(new StringReader(tsv))) {
+            assertTrue(reader.skipHeader("isbn", "title", "author"));
+            var rows = reader.next(10);
+
+            // Then
+            assertEquals(1, rows.size());
+            assertEquals(2, rows.get(0).line());
+            assertEquals(List.of("1", "Titulo, con coma", "Autor"), rows.get(0).fields());
+        }
+    }
+
+    /**
+     * Verifica que si la primera fila no es un encabezado no se pierda.
+     */
+    @Test
+    void testSkipHeaderKeepsDataRow() throws IOException {
+        try (var reader = new DelimitedReader(new StringReader("1,Titulo,Autor\n"))) {
+            assertFalse(reader.skipHeader("isbn", "title", "author"));
+            assertEquals("1", reader.next().fields().get(0));
+            assertNull(reader.next());
+        }
+        assertThrows(IllegalArgumentException.class, () -> new DelimitedReader(null));
+    }
+}
@@ -0,0 +1,95 @@
+package com.dev.mxd.bulk;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Pruebas unitarias para ParallelParser.
+ * Se valida que los resultados lleguen en el orden del archivo
+ * y que las filas inválidas se informen con su línea.
+ */
+class ParallelParserTest {
+
+    /**
+     * Verifica el orden y los rechazos con varios bloques de filas.
+     */
+    @Test
+    void testParseKeepsOrderAcrossChunks() throws Exception {
+        // Given
+        int rows = ParallelParser.CHUNK_ROWS * 3 + 17;
+        var text = new StringBuilder();
+        for (int i = 1; i <= rows; i++) {
+            text.append(i % 1000 == 0 ? "x" : String.valueOf(i)).append(",dato\n");
+        }
+        var parsed = new ArrayList<ParsedRow<Integer>>();
+
+        // When
+        try (var reader = new DelimitedReader(new StringReader(text.toString()))) {
+            ParallelParser.parse(reader, row -> {
+                var first = row.fields().get(0);
+                try {
+                    return Integer.parseInt(first);
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("No es un número: " + first);
+                }
+            }, parsed::add);
+        }
+
+        // Then
+        assertEquals(rows, parsed.size());
+        for (int i = 0; i < rows; i++) {
+            var row = parsed.get(i);
+            assertEquals(i + 1, row.line());
+            if ((i + 1) % 1000 == 0) {
+                assertEquals("No es un número: x", row.error());
+            } else {
+                assertEquals(i + 1, row.value());
+            }
+        }
+    }
+
+    /**
+     * Verifica que una fila se rechace aunque la excepción no traiga mensaje
+     * o el parser no devuelva valor.
+     */
+    @Test
+    void testRowWithoutMessageIsRejected() throws Exception {
+        // Given
+        var parsed = new ArrayList<ParsedRow<String>>();
+
+        // When
+        try (var reader = new DelimitedReader(new StringReader("ok\nsin mensaje\nnulo\n"))) {
+            ParallelParser.parse(reader, row -> switch (row.fields().get(0)) {
+                case "ok" -> "ok";
+                case "nulo" -> null;
+                default -> throw new IllegalArgumentException();
+            }, parsed::add);
+        }
+
+        // Then
+        assertTrue(parsed.get(0).isValid());
+        assertFalse(parsed.get(1).isValid());
+        assertEquals(ParsedRow.UNKNOWN_ERROR, parsed.get(1).error());
+        assertFalse(parsed.get(2).isValid());
+        assertEquals(ParsedRow.UNKNOWN_ERROR, parsed.get(2).error());
+    }
+
+    /**
+     * Verifica que un error que no es de validación se relance.
+     */
+    @Test
+    void testUnexpectedErrorIsRethrown() {
+        var reader = new DelimitedReader(new StringReader("1\n2\n"));
+        assertThrows(IllegalStateException.class, () -> ParallelParser.parse(reader, row -> {
+            throw new IllegalStateException("falla");
+        }, row -> { }));
+        assertThrows(IllegalArgumentException.class, () -> ParallelParser.parse(null, row -> 1, row -> { }));
+    }
+}
@@ -0,0 +1,166 @@
+package com.dev.mxd.events;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.StringReader;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import com.dev.mxd.persistence.Journal;
+import com.dev.mxd.service.BookService;
+import com.dev.mxd.service.LoanService;
+import com.dev.mxd.service.UserService;
+
+/**
+ * Pruebas unitarias para LibraryEvents.
+ * Se valida que cada cambio de los servicios llegue como evento, en orden,
+ * y que un suscriptor lento no frene a los servicios.
+ */
+class LibraryEventsTest {
+
+    /**
+     * Verifica los eventos de libros, usuarios y préstamos, incluidos los lotes.
+     */
+    @Test
+    void testPublishesServiceChanges() throws Exception {
+        // Given
+        var events = new LibraryEvents();
+        var books = new BookService(events);
+        var users = new UserService(events);
+        var loans = new LoanService(books, users, events);
+        var subscriber = new Collector(11, Long.MAX_VALUE);
+        events.subscribe(subscriber);
+
+        // When
+        books.addBook("1", "Rayuela", "Julio Cortázar");
+        books.importBooks(new StringReader("2\tFicciones\tJorge Luis Borges\n3\tAura\tCarlos Fuentes\n"));
+        users.addUser("u1", "Ana", "ana@mail.com", LocalDate.of(2020, 5, 1));
+        users.updateUserName("u1", "Ana María");
+        users.updateUserEmail("u1", "ana.maria@mail.com");
+        loans.addLoan("u1", "1", LocalDate.of(2024, 3, 1));
+        loans.returnBook("u1", "1", LocalDate.of(2024, 3, 9));
+        books.deleteBook("3");
+        users.addUser("u2", "Luis", "luis@mail.com", LocalDate.of(2021, 1, 2));
+        users.deleteUser("u2");
+
+        // Then
+        assertTrue(subscriber.done.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of(
+                new LibraryEvent.BookAdded("1", "Rayuela", "Julio Cortázar"),
+                new LibraryEvent.BookAdded("2", "Ficciones", "Jorge Luis Borges"),
+                new LibraryEvent.BookAdded("3", "Aura", "Carlos Fuentes"),
+                new LibraryEvent.UserAdded("u1", "Ana", "ana@mail.com", LocalDate.of(2020, 5, 1)),
+                new LibraryEvent.UserNameChanged("u1", "Ana María"),
+                new LibraryEvent.UserEmailChanged("u1", "ana.maria@mail.com"),
+                new LibraryEvent.LoanStarted("u1", "1", LocalDate.of(2024, 3, 1), LocalDate.of(2024, 3, 15)),
+                new LibraryEvent.BookReturned("u1", "1", LocalDate.of(2024, 3, 9)),
+                new LibraryEvent.BookDeleted("3"),
+                new LibraryEvent.UserAdded("u2", "Luis", "luis@mail.com", LocalDate.of(2021, 1, 2)),
+                new LibraryEvent.UserDeleted("u2")), subscriber.received);
+        events.close();
+    }
+
+    /**
+     * Verifica que un suscriptor que no pide eventos no bloquee los préstamos:
+     * cuando su buffer se llena, los eventos se descartan y se cuentan.
+     */
+    @Test
+    void testSlowSubscriberDoesNotBlock() throws Exception {
+        // Given: buffer de 4 eventos y un suscriptor que no pide ninguno
+        var events = new LibraryEvents(Journal.NONE, 4);
+        var books = new BookService(events);
+        var subscriber = new Collector(1, 0);
+        events.subscribe(subscriber);
+        assertTrue(subscriber.subscribed.await(5, TimeUnit.SECONDS));
+
+        // When
+        for (int i = 0; i < 100; i++) {
+            books.addBook(String.valueOf(i), "Titulo", "Autor");
+        }
+
+        // Then
+        assertEquals(100, books.getAllBooks().size());
+        assertTrue(events.droppedEvents() > 0);
+        assertTrue(subscriber.received.isEmpty());
+        events.close();
+    }
+
+    /**
+     * Verifica que con una espera configurada se espere al suscriptor lento
+     * antes de descartar, y que un evento que llega a tiempo no se pierda.
+     */
+    @Test
+    void testWaitsForSlowSubscriber() throws Exception {
+        // Given: buffer de 1 evento, espera de 2 segundos y un suscriptor que pide de a uno
+        var events = new LibraryEvents(Journal.NONE, 1, Duration.ofSeconds(2));
+        var books = new BookService(events);
+        var subscriber = new Collector(3, 0);
+        events.subscribe(subscriber);
+        assertTrue(subscriber.subscribed.await(5, TimeUnit.SECONDS));
+        var consumer = Executors.newSingleThreadScheduledExecutor();
+        try {
+            // When: el suscriptor pide eventos recién después de un rato
+            consumer.schedule(() -> subscriber.subscription.request(3), 200, TimeUnit.MILLISECONDS);
+            for (int i = 0; i < 3; i++) {
+                books.addBook(String.valueOf(i), "Titulo", "Autor");
+            }
+
+            // Then
+            assertTrue(subscriber.done.await(5, TimeUnit.SECONDS));
+            assertEquals(0, events.droppedEvents());
+        } finally {
+            consumer.shutdown();
+            events.close();
+        }
+        assertThrows(IllegalArgumentException.class,
+                () -> new LibraryEvents(Journal.NONE, 1, Duration.ofSeconds(-1)));
+    }
+
+    // Suscriptor que pide "demand" eventos y los guarda
+    private static final class Collector implements Flow.Subscriber<LibraryEvent> {
+
+        final List<LibraryEvent> received = new CopyOnWriteArrayList<>();
+        final CountDownLatch subscribed = new CountDownLatch(1);
+        final CountDownLatch done;
+        volatile Flow.Subscription subscription;
+        private final long demand;
+
+        Collector(int expected, long demand) {
+            this.done = new CountDownLatch(expected);
+            this.demand = demand;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            if (demand > 0) {
+                subscription.request(demand);
+            }
+            subscribed.countDown();
+        }
+
+        @Override
+        public void onNext(LibraryEvent event) {
+            received.add(event);
+            done.countDown();
+        }
+
+        @Override
+        public void onError(Throwable error) {
+        }
+
+        @Override
+        public void onComplete() {
+        }
+    }
+}
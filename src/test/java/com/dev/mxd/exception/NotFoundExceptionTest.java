@@ -0,0 +1,38 @@
+package com.dev.mxd.exception;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Pruebas unitarias para NotFoundException.
+ */
+class NotFoundExceptionTest {
+
+    /**
+     * Verifica que por defecto la excepción lleve la traza de la pila.
+     */
+    @Test
+    void testHasStackTraceByDefault() {
+        // When
+        var exception = new NotFoundException("no existe");
+
+        // Then
+        assertEquals("no existe", exception.getMessage());
+        assertTrue(exception.getStackTrace().length > 0);
+    }
+
+    /**
+     * Verifica que se pueda crear sin traza de la pila.
+     */
+    @Test
+    void testWithoutStackTrace() {
+        // When
+        var exception = new NotFoundException("no existe", false);
+
+        // Then
+        assertEquals("no existe", exception.getMessage());
+        assertEquals(0, exception.getStackTrace().length);
+    }
+}
@@ -0,0 +1,83 @@
+package com.dev.mxd.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Pruebas unitarias para LatencyHistogram y LatencySnapshot.
+ */
+class LatencyHistogramTest {
+
+    /**
+     * Verifica que los casilleros sean contiguos y que cada valor caiga en uno
+     * cuyo mayor valor esté a menos del 3% de distancia.
+     */
+    @Test
+    void testBucketsAreContiguousAndPrecise() {
+        // Given / When / Then
+        for (long value = 0; value < 1_000_000; value++) {
+            int index = LatencyHistogram.index(value);
+            long highest = LatencyHistogram.highestValue(index);
+            assertTrue(highest >= value);
+            assertTrue(highest - value <= value / 32, "valor " + value);
+            if (value > 0) {
+                int previous = LatencyHistogram.index(value - 1);
+                assertTrue(index == previous || index == previous + 1);
+            }
+        }
+        assertEquals(LatencyHistogram.BUCKETS - 1, LatencyHistogram.index(LatencyHistogram.MAX_VALUE));
+    }
+
+    /**
+     * Verifica percentiles, promedio y máximo de una serie conocida.
+     */
+    @Test
+    void testPercentiles() {
+        // Given: de 1 a 10.000 microsegundos, uno de cada uno
+        var histogram = new LatencyHistogram();
+        for (long micros = 1; micros <= 10_000; micros++) {
+            histogram.record(micros * 1000);
+        }
+
+        // When
+        var snapshot = histogram.snapshot();
+
+        // Then
+        assertEquals(10_000, snapshot.count());
+        assertEquals(10_000_000, snapshot.maxNanos());
+        assertEquals(5_000_500, snapshot.meanNanos(), 0.001);
+        assertWithin(5_000_000, snapshot.percentile(50));
+        assertWithin(9_900_000, snapshot.percentile(99));
+        assertWithin(9_990_000, snapshot.percentile(99.9));
+        assertEquals(10_000_000, snapshot.percentile(100));
+    }
+
+    /**
+     * Verifica los casos borde: sin mediciones, valores negativos o enormes y percentiles inválidos.
+     */
+    @Test
+    void testEdgeCases() {
+        // Given
+        var histogram = new LatencyHistogram();
+        assertEquals(0, histogram.snapshot().percentile(99));
+
+        // When
+        histogram.record(-5);
+        histogram.record(Long.MAX_VALUE);
+        var snapshot = histogram.snapshot();
+
+        // Then
+        assertEquals(2, snapshot.count());
+        assertEquals(0, snapshot.percentile(50));
+        assertEquals(LatencyHistogram.MAX_VALUE, snapshot.percentile(100));
+        assertThrows(IllegalArgumentException.class, () -> snapshot.percentile(0));
+        assertThrows(IllegalArgumentException.class, () -> snapshot.percentile(101));
+    }
+
+    private static void assertWithin(long expected, long actual) {
+        assertTrue(Math.abs(actual - expected) <= expected / 32, "esperado " + expected + ", fue " + actual);
+    }
+}
@@ -0,0 +1,145 @@
+package com.dev.mxd.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.time.LocalDate;
+
+import javax.management.ObjectName;
+import javax.management.openmbean.TabularData;
+
+import org.junit.jupiter.api.Test;
+
+import com.dev.mxd.exception.NotFoundException;
+import com.dev.mxd.persistence.Journal;
+import com.dev.mxd.service.BookService;
+import com.dev.mxd.service.LoanService;
+import com.dev.mxd.service.UserService;
+
+/**
+ * Pruebas unitarias para LibraryMetrics y sus exportadores, con los servicios reales.
+ */
+class LibraryMetricsTest {
+
+    /**
+     * Verifica que se cuenten las llamadas y los NotFoundException de cada operación.
+     */
+    @Test
+    void testCountsCallsAndNotFound() throws Exception {
+        // Given
+        var metrics = new LibraryMetrics();
+        var loanService = services(metrics);
+
+        // When
+        loanService.addLoan("u1", "1", LocalDate.of(2024, 1, 10));
+        assertThrows(NotFoundException.class, () -> loanService.addLoan("u1", "1", LocalDate.of(2024, 1, 11)));
+        assertThrows(NotFoundException.class, () -> loanService.addLoan("u9", "1", LocalDate.of(2024, 1, 11)));
+        loanService.returnBook("u1", "1", LocalDate.of(2024, 1, 20));
+        assertThrows(NotFoundException.class, () -> loanService.returnBook("u1", "1", LocalDate.of(2024, 1, 21)));
+
+        // Then
+        var addLoan = metrics.stats(ServiceOperation.ADD_LOAN);
+        assertEquals(3, addLoan.calls());
+        assertEquals(2, addLoan.notFound());
+        assertTrue(addLoan.latency().maxNanos() > 0);
+        var returnBook = metrics.stats(ServiceOperation.RETURN_BOOK);
+        assertEquals(2, returnBook.calls());
+        assertEquals(1, returnBook.notFound());
+        // Los préstamos buscan usuario y libro: el usuario u9 no existe
+        assertEquals(3, metrics.stats(ServiceOperation.GET_USER_BY_ID).calls());
+        assertEquals(1, metrics.stats(ServiceOperation.GET_USER_BY_ID).notFound());
+        assertEquals(2, metrics.stats(ServiceOperation.GET_BOOK_BY_ISBN).calls());
+        assertEquals(0, metrics.stats(ServiceOperation.GET_BOOK_BY_ISBN).notFound());
+    }
+
+    /**
+     * Verifica que tryAddLoan cuente como no encontrado solo al usuario o al
+     * libro inexistentes, no al libro que ya está prestado.
+     */
+    @Test
+    void testTryAddLoanCountsOnlyMisses() {
+        // Given
+        var metrics = new LibraryMetrics();
+        var loanService = services(metrics);
+        var date = LocalDate.of(2024, 1, 10);
+
+        // When
+        loanService.tryAddLoan("u1", "1", date);
+        loanService.tryAddLoan("u1", "1", date);
+        loanService.tryAddLoan("u9", "1", date);
+        loanService.tryAddLoan("u1", "9", date);
+
+        // Then
+        assertEquals(4, metrics.stats(ServiceOperation.ADD_LOAN).calls());
+        assertEquals(2, metrics.stats(ServiceOperation.ADD_LOAN).notFound());
+    }
+
+    /**
+     * Verifica que NONE no registre nada.
+     */
+    @Test
+    void testNoneRecordsNothing() throws Exception {
+        // Given
+        var loanService = services(LibraryMetrics.NONE);
+
+        // When
+        loanService.addLoan("u1", "1", LocalDate.of(2024, 1, 10));
+
+        // Then
+        assertEquals(0, LibraryMetrics.NONE.stats(ServiceOperation.ADD_LOAN).calls());
+        assertEquals(0, LibraryMetrics.NONE.stats(ServiceOperation.ADD_LOAN).latency().percentile(99));
+    }
+
+    /**
+     * Verifica la tabla de texto: encabezado y una línea por operación.
+     */
+    @Test
+    void testTextExporter() throws Exception {
+        // Given
+        var metrics = new LibraryMetrics();
+        services(metrics).addLoan("u1", "1", LocalDate.of(2024, 1, 10));
+        var out = new StringBuilder();
+
+        // When
+        metrics.export(new TextMetricsExporter(out));
+
+        // Then
+        var lines = out.toString().split("\n");
+        assertEquals(1 + ServiceOperation.values().length, lines.length);
+        assertTrue(lines[0].startsWith("operation"));
+        assertTrue(lines[3].matches("add_loan\\s+1\\s+0\\s.*"), lines[3]);
+    }
+
+    /**
+     * Verifica que el MXBean registrado devuelva las métricas actuales.
+     */
+    @Test
+    void testJmxExporter() throws Exception {
+        // Given
+        var metrics = new LibraryMetrics();
+        var server = ManagementFactory.getPlatformMBeanServer();
+        var name = JmxMetricsExporter.register(metrics, server, new ObjectName("com.dev.mxd:type=LibraryMetricsTest"));
+        try {
+            // When
+            services(metrics).addLoan("u1", "1", LocalDate.of(2024, 1, 10));
+            var calls = (TabularData) server.getAttribute(name, "Calls");
+
+            // Then
+            assertEquals(1L, calls.get(new Object[] {"ADD_LOAN"}).get("value"));
+            assertEquals(0L, calls.get(new Object[] {"RETURN_BOOK"}).get("value"));
+        } finally {
+            server.unregisterMBean(name);
+        }
+    }
+
+    // Servicios en memoria con un usuario u1 y un libro 1
+    private static LoanService services(LibraryMetrics metrics) {
+        var books = new BookService(Journal.NONE, metrics);
+        var users = new UserService(Journal.NONE, metrics);
+        books.addBook("1", "Rayuela", "Julio Cortázar");
+        users.addUser("u1", "Ana", "ana@mail.com");
+        return new LoanService(books, users, Journal.NONE, metrics);
+    }
+}
@@ -54,4 +54,24 @@ public class LoanTest {
         assertEquals(LoanState.STARTED, loan.getState());
     } 
 
+
+    /**
+     * Verifica que la fecha de devolución sea la indicada o, si no se indica,
+     * la del préstamo más DEFAULT_LOAN_DAYS.
+     */
+    @Test
+    void dueDateDefaultsToLoanPeriod() {
+        // Given
+        var user = new User("U1", "John Doe", "john@doe.com");
+        var book = new Book("111", "Clean Code", "Robert C. Martin");
+        var loanDate = LocalDate.of(2025, 8, 9);
+
+        // When
+        var byDefault = new Loan(user, book, loanDate);
+        var custom = new Loan(user, book, loanDate, LocalDate.of(2025, 9, 1), LoanState.STARTED);
+
+        // Then
+        assertEquals(loanDate.plusDays(Loan.DEFAULT_LOAN_DAYS), byDefault.getDueDate());
+        assertEquals(LocalDate.of(2025, 9, 1), custom.getDueDate());
+    }
 }
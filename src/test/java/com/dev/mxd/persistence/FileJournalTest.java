@@ -0,0 +1,260 @@
+package com.dev.mxd.persistence;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+/**
+ * Pruebas unitarias para FileJournal.
+ * Se valida que lo registrado se pueda reproducir con cada política de fsync,
+ * que un registro a medio escribir se descarte y que varios hilos
+ * puedan escribir a la vez sin perder registros.
+ */
+class FileJournalTest {
+
+    @TempDir
+    Path dir;
+
+    /**
+     * Verifica que los registros se reproduzcan en orden y con sus argumentos,
+     * y que "apply" se ejecute al registrar.
+     */
+    @ParameterizedTest
+    @EnumSource(FsyncPolicy.class)
+    void testRecordAndReplay(FsyncPolicy policy) throws IOException {
+        // Given
+        var file = dir.resolve("journal.log");
+        var applied = new AtomicInteger();
+        try (var journal = FileJournal.open(file, policy, Duration.ofMillis(10))) {
+            // When
+            journal.record(Operation.ADD_BOOK, applied::incrementAndGet, "1", "Cien años de soledad", "García Márquez");
+            journal.record(Operation.DELETE_BOOK, applied::incrementAndGet, "1");
+        }
+
+        // Then
+        assertEquals(2, applied.get());
+        var entries = readAll(file, policy);
+        assertEquals(2, entries.size());
+        assertEquals(new JournalEntry(1, Operation.ADD_BOOK, List.of("1", "Cien años de soledad", "García Márquez")),
+                entries.get(0));
+        assertEquals(new JournalEntry(2, Operation.DELETE_BOOK, List.of("1")), entries.get(1));
+    }
+
+    /**
+     * Verifica que al reabrir se continúe la secuencia y que lo registrado
+     * durante replay no se vuelva a escribir.
+     */
+    @Test
+    void testReopenContinuesSequence() throws IOException {
+        var file = dir.resolve("journal.log");
+        try (var journal = FileJournal.open(file, FsyncPolicy.ALWAYS)) {
+            journal.record(Operation.ADD_USER, () -> { }, "u1", "Ana", "ana@mail.com", "2024-01-01");
+        }
+
+        try (var journal = FileJournal.open(file, FsyncPolicy.ALWAYS)) {
+            journal.replay(entry -> journal.record(entry.operation(), () -> { }, entry.args().toArray(String[]::new)));
+            assertEquals(1, journal.lastSequence());
+            journal.record(Operation.DELETE_USER, () -> { }, "u1");
+        }
+
+        var entries = readAll(file, FsyncPolicy.ALWAYS);
+        assertEquals(2, entries.size());
+        assertEquals(2, entries.get(1).sequence());
+    }
+
+    /**
+     * Verifica que withoutRecording afecte solo al hilo que la llama: lo que
+     * registra otro hilo al mismo tiempo se escribe igual.
+     */
+    @Test
+    void testWithoutRecordingIsScopedToThread() throws Exception {
+        var file = dir.resolve("journal.log");
+        var pool = Executors.newSingleThreadExecutor();
+        try (var journal = FileJournal.open(file, FsyncPolicy.ALWAYS)) {
+            journal.withoutRecording(() -> {
+                journal.record(Operation.ADD_USER, () -> { }, "u1", "Ana", "ana@mail.com", "2024-01-01");
+                try {
+                    pool.submit(() -> journal.record(Operation.DELETE_USER, () -> { }, "u2")).get();
+                } catch (Exception e) {
+                    throw new IOException(e);
+                }
+            });
+        } finally {
+            pool.shutdown();
+        }
+
+        var entries = readAll(file, FsyncPolicy.ALWAYS);
+        assertEquals(List.of(new JournalEntry(1, Operation.DELETE_USER, List.of("u2"))), entries);
+    }
+
+    /**
+     * Verifica que un registro incompleto al final del archivo
+     * (corte durante la escritura) se descarte al abrir.
+     */
+    @Test
+    void testTornTailIsDiscarded() throws IOException {
+        var file = dir.resolve("journal.log");
+        try (var journal = FileJournal.open(file, FsyncPolicy.ALWAYS)) {
+            journal.record(Operation.ADD_BOOK, () -> { }, "1", "Titulo", "Autor");
+            journal.record(Operation.ADD_BOOK, () -> { }, "2", "Titulo", "Autor");
+        }
+        long size = Files.size(file);
+        try (var channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(size - 3);
+        }
+
+        try (var journal = FileJournal.open(file, FsyncPolicy.ALWAYS)) {
+            assertEquals(1, journal.lastSequence());
+            journal.record(Operation.ADD_BOOK, () -> { }, "3", "Titulo", "Autor");
+        }
+
+        var entries = readAll(file, FsyncPolicy.ALWAYS);
+        assertEquals(List.of("1", "3"), List.of(entries.get(0).arg(0), entries.get(1).arg(0)));
+        assertEquals(2, entries.get(1).sequence());
+    }
+
+    /**
+     * Verifica que con GROUP_COMMIT varios hilos escriban a la vez
+     * sin perder ni repetir registros.
+     */
+    @Test
+    void testGroupCommitConcurrentWriters() throws Exception {
+        var file = dir.resolve("journal.log");
+        int threads = 8;
+        int perThread = 200;
+        try (var journal = FileJournal.open(file, FsyncPolicy.GROUP_COMMIT)) {
+            var pool = Executors.newFixedThreadPool(threads);
+            for (int t = 0; t < threads; t++) {
+                var prefix = "t" + t + "-";
+                pool.submit(() -> {
+                    for (int i = 0; i < perThread; i++) {
+                        journal.record(Operation.DELETE_BOOK, () -> { }, prefix + i);
+                    }
+                });
+            }
+            pool.shutdown();
+            assertTrue(pool.awaitTermination(30, TimeUnit.SECONDS));
+        }
+
+        var entries = readAll(file, FsyncPolicy.GROUP_COMMIT);
+        assertEquals(threads * perThread, entries.size());
+        for (int i = 0; i < entries.size(); i++) {
+            assertEquals(i + 1, entries.get(i).sequence());
+        }
+    }
+
+    /**
+     * Verifica que no se pueda registrar en un journal cerrado
+     * ni abrirlo con parámetros inválidos.
+     */
+    @Test
+    void testClosedAndInvalidParameters() throws IOException {
+        var file = dir.resolve("journal.log");
+        var journal = FileJournal.open(file, FsyncPolicy.PERIODIC);
+        journal.close();
+        journal.close();
+
+        assertThrows(IllegalStateException.class, () -> journal.record(Operation.DELETE_USER, () -> { }, "u1"));
+        assertThrows(IllegalArgumentException.class, () -> FileJournal.open(null, FsyncPolicy.ALWAYS));
+        assertThrows(IllegalArgumentException.class, () -> FileJournal.open(file, FsyncPolicy.ALWAYS, Duration.ZERO));
+    }
+
+    /**
+     * Verifica que checkpoint capture el estado con la última secuencia,
+     * pase a un segmento nuevo y que la secuencia continúe en él.
+     */
+    @Test
+    void testCheckpointRotatesSegment() throws IOException {
+        // Given
+        var first = dir.resolve("journal-1.log");
+        var applied = new AtomicInteger();
+        try (var journal = FileJournal.open(first, FsyncPolicy.GROUP_COMMIT)) {
+            journal.record(Operation.ADD_BOOK, applied::incrementAndGet, "1", "Titulo", "Autor");
+            journal.record(Operation.ADD_BOOK, applied::incrementAndGet, "2", "Titulo", "Autor");
+
+            // When
+            var checkpoint = journal.checkpoint(applied::get, start -> dir.resolve("journal-" + start + ".log"));
+            journal.record(Operation.DELETE_BOOK, applied::incrementAndGet, "1");
+
+            // Then
+            assertEquals(2, checkpoint.sequence());
+            assertEquals(2, checkpoint.state());
+            assertEquals(dir.resolve("journal-3.log"), journal.currentSegment());
+        }
+        var old = new ArrayList<JournalEntry>();
+        FileJournal.read(first, old::add);
+        assertEquals(2, old.size());
+
+        // El segmento nuevo empieza vacío al reabrir; skipTo continúa la secuencia
+        var entries = new ArrayList<JournalEntry>();
+        try (var journal = FileJournal.open(dir.resolve("journal-3.log"), FsyncPolicy.ALWAYS)) {
+            journal.skipTo(2);
+            journal.replay(entries::add);
+            journal.record(Operation.DELETE_BOOK, () -> { }, "2");
+            assertEquals(4, journal.lastSequence());
+        }
+        assertEquals(1, entries.size());
+        assertEquals(3, entries.get(0).sequence());
+    }
+
+    /**
+     * Verifica que un lote se reproduzca completo y que un lote cortado
+     * a mitad de la escritura se descarte entero al reabrir.
+     */
+    @Test
+    void testRecordBatch() throws IOException {
+        // Given
+        var file = dir.resolve("journal.log");
+        var applied = new AtomicInteger();
+        try (var journal = FileJournal.open(file, FsyncPolicy.GROUP_COMMIT)) {
+            journal.record(Operation.DELETE_BOOK, () -> { }, "0");
+            journal.recordBatch(Operation.ADD_BOOK, List.of(new String[] {"1", "T", "A"}, new String[] {"2", "T", "A"}),
+                    applied::incrementAndGet);
+        }
+        assertEquals(1, applied.get());
+        var entries = readAll(file, FsyncPolicy.ALWAYS);
+        assertEquals(List.of(Operation.DELETE_BOOK, Operation.BEGIN_BATCH, Operation.ADD_BOOK, Operation.ADD_BOOK),
+                entries.stream().map(JournalEntry::operation).toList());
+        assertEquals("2", entries.get(1).arg(0));
+
+        // When: se pierde el último registro del lote
+        long size = Files.size(file);
+        try (var channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(size - 3);
+        }
+
+        // Then
+        try (var journal = FileJournal.open(file, FsyncPolicy.ALWAYS)) {
+            assertEquals(1, journal.lastSequence());
+            journal.record(Operation.DELETE_BOOK, () -> { }, "9");
+        }
+        entries = readAll(file, FsyncPolicy.ALWAYS);
+        assertEquals(2, entries.size());
+        assertEquals(2, entries.get(1).sequence());
+    }
+
+    private static List<JournalEntry> readAll(Path file, FsyncPolicy policy) throws IOException {
+        var entries = new ArrayList<JournalEntry>();
+        try (var journal = FileJournal.open(file, policy)) {
+            journal.replay(entries::add);
+        }
+        return entries;
+    }
+}
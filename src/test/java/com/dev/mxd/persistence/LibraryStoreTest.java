@@ -0,0 +1,421 @@
+package com.dev.mxd.persistence;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.dev.mxd.exception.NotFoundException;
+import com.dev.mxd.model.Book;
+import com.dev.mxd.model.LoanState;
+import com.dev.mxd.service.PackedCatalog;
+
+/**
+ * Pruebas unitarias para LibraryStore.
+ * Se valida que al reabrir el directorio de datos se recupere
+ * el estado de libros, usuarios y préstamos.
+ */
+class LibraryStoreTest {
+
+    @TempDir
+    Path dir;
+
+    /**
+     * Verifica que todas las operaciones registradas se recuperen al reabrir.
+     */
+    @Test
+    void testReopenRestoresState() throws IOException {
+        // Given
+        try (var store = LibraryStore.open(dir, FsyncPolicy.GROUP_COMMIT)) {
+            store.bookService().addBook("1", "Cien años de soledad", "Gabriel García Márquez");
+            store.bookService().addBook("2", "Rayuela", "Julio Cortázar");
+            store.bookService().deleteBook("2");
+            store.userService().addUser("u1", "Ana", "ana@mail.com", LocalDate.of(2020, 5, 1));
+            store.userService().addUser("u2", "Luis", "luis@mail.com");
+            store.userService().updateUserEmail("u1", "ana.maria@mail.com");
+            store.userService().updateUserName("u1", "Ana María");
+            store.userService().deleteUser("u2");
+            store.loanService().addLoan("u1", "1", LocalDate.of(2024, 3, 1));
+            store.loanService().returnBook("u1", "1");
+            store.loanService().addLoan("u1", "1", LocalDate.of(2024, 4, 1));
+        }
+
+        // When
+        try (var store = LibraryStore.open(dir, FsyncPolicy.GROUP_COMMIT)) {
+            // Then
+            assertEquals(1, store.bookService().getAllBooks().size());
+            assertThrows(NotFoundException.class, () -> store.bookService().getBookByIsbn("2"));
+            var user = store.userService().getUserById("u1");
+            assertEquals("Ana María", user.getName());
+            assertEquals("ana.maria@mail.com", user.getEmail());
+            assertEquals(LocalDate.of(2020, 5, 1), user.getRegisterDate());
+            assertThrows(NotFoundException.class, () -> store.userService().getUserById("u2"));
+
+            var loans = store.loanService().getLoans();
+            assertEquals(2, loans.size());
+            assertEquals(LoanState.FINISHED, loans.get(0).getState());
+            assertEquals(LocalDate.now(), loans.get(0).getReturnDate());
+            assertEquals(LocalDate.of(2024, 4, 1), loans.get(1).getLoanDate());
+            assertEquals(LoanState.STARTED, loans.get(1).getState());
+
+            // Lo reproducido no se duplica en el journal: se puede seguir operando
+            store.loanService().returnBook("u1", "1");
+        }
+        try (var store = LibraryStore.open(dir, FsyncPolicy.ALWAYS)) {
+            assertEquals(2, store.loanService().getLoans().size());
+            assertEquals(LoanState.FINISHED, store.loanService().getLoans().get(1).getState());
+        }
+    }
+
+    /**
+     * Verifica que al reabrir se cargue el snapshot y solo se reproduzcan
+     * las operaciones posteriores, incluidos préstamos de usuarios y libros borrados.
+     */
+    @Test
+    void testReopenFromSnapshotAndJournalTail() throws IOException {
+        // Given
+        long sequence;
+        try (var store = LibraryStore.open(dir, FsyncPolicy.GROUP_COMMIT)) {
+            store.bookService().addBook("1", "Cien años de soledad", "Gabriel García Márquez");
+            store.bookService().addBook("2", "Rayuela", "Julio Cortázar");
+            store.userService().addUser("u1", "Ana", "ana@mail.com", LocalDate.of(2020, 5, 1));
+            store.userService().addUser("u2", "Luis", "luis@mail.com", LocalDate.of(2021, 1, 2));
+            store.loanService().addLoan("u1", "1", LocalDate.of(2024, 3, 1));
+            store.loanService().addLoan("u2", "2", LocalDate.of(2024, 3, 2), LocalDate.of(2024, 4, 15));
+            store.userService().deleteUser("u2");
+            store.bookService().deleteBook("2");
+            store.userService().updateUserName("u1", "Ana María");
+
+            // When
+            sequence = store.snapshot();
+            store.loanService().returnBook("u1", "1");
+            store.bookService().addBook("3", "Ficciones", "Jorge Luis Borges");
+        }
+
+        // Then
+        assertEquals(9, sequence);
+        assertTrue(Files.exists(dir.resolve(LibraryStore.snapshotName(9))));
+        try (var store = LibraryStore.open(dir, FsyncPolicy.GROUP_COMMIT)) {
+            assertEquals(2, store.bookService().getAllBooks().size());
+            assertEquals("Ana María", store.userService().getUserById("u1").getName());
+            assertThrows(NotFoundException.class, () -> store.userService().getUserById("u2"));
+
+            var loans = store.loanService().getLoans();
+            assertEquals(2, loans.size());
+            assertEquals(LoanState.FINISHED, loans.get(0).getState());
+            assertEquals("Luis", loans.get(1).getUser().getName());
+            assertEquals("Rayuela", loans.get(1).getBook().getTitle());
+            assertEquals(LoanState.STARTED, loans.get(1).getState());
+            assertEquals(LocalDate.of(2024, 3, 15), loans.get(0).getDueDate());
+            assertEquals(LocalDate.of(2024, 4, 15), loans.get(1).getDueDate());
+
+            // El libro 1 quedó libre y la secuencia sigue después del snapshot
+            store.loanService().addLoan("u1", "1", LocalDate.of(2024, 5, 1), LocalDate.of(2024, 5, 31));
+            assertThrows(NotFoundException.class, () -> store.loanService().addLoan("u1", "1"));
+        }
+        try (var store = LibraryStore.open(dir, FsyncPolicy.ALWAYS)) {
+            var loans = store.loanService().getLoans();
+            assertEquals(3, loans.size());
+            assertEquals(LocalDate.of(2024, 5, 31), loans.get(2).getDueDate());
+        }
+    }
+
+    /**
+     * Verifica que se conserven solo los dos últimos snapshots y que,
+     * si el último está dañado, se arranque desde el anterior.
+     */
+    @Test
+    void testCorruptedSnapshotFallsBackToPrevious() throws IOException {
+        // Given
+        try (var store = LibraryStore.open(dir, FsyncPolicy.ALWAYS)) {
+            store.bookService().addBook("1", "Titulo 1", "Autor");
+            store.snapshot();
+            store.bookService().addBook("2", "Titulo 2", "Autor");
+            store.snapshot();
+            store.bookService().addBook("3", "Titulo 3", "Autor");
+            long last = store.snapshot();
+            store.bookService().addBook("4", "Titulo 4", "Autor");
+
+            // When
+            Files.write(dir.resolve(LibraryStore.snapshotName(last)), new byte[] {1, 2, 3});
+        }
+
+        // Then
+        try (var files = Files.list(dir)) {
+            assertEquals(2, files.filter(path -> path.toString().endsWith(".bin")).count());
+        }
+        try (var store = LibraryStore.open(dir, FsyncPolicy.ALWAYS)) {
+            assertEquals(4, store.bookService().getAllBooks().size());
+        }
+    }
+
+    /**
+     * Verifica que el snapshot pase los préstamos terminados más viejos al
+     * historial en disco y que no vuelvan a memoria al reabrir.
+     */
+    @Test
+    void testFinishedLoansAreArchived() throws IOException {
+        // Given
+        try (var store = LibraryStore.open(dir, FsyncPolicy.GROUP_COMMIT)) {
+            store.setRecentLoans(1);
+            store.userService().addUser("u1", "Ana", "ana@mail.com");
+            for (int i = 1; i <= 3; i++) {
+                store.bookService().addBook(String.valueOf(i), "Titulo " + i, "Autor");
+                store.loanService().addLoan("u1", String.valueOf(i), LocalDate.of(2024, i, 1));
+                store.loanService().returnBook("u1", String.valueOf(i));
+            }
+            store.loanService().addLoan("u1", "1", LocalDate.of(2024, 6, 1));
+
+            // When
+            store.snapshot();
+
+            // Then
+            assertEquals(2, store.loanService().getLoans().size());
+            assertEquals(2, store.loanArchive().count());
+        }
+        try (var store = LibraryStore.open(dir, FsyncPolicy.GROUP_COMMIT)) {
+            var loans = store.loanService().getLoans();
+            assertEquals(2, loans.size());
+            assertEquals(LocalDate.of(2024, 3, 1), loans.get(0).getLoanDate());
+            assertEquals(LocalDate.now(), loans.get(0).getReturnDate());
+            assertEquals(LoanState.STARTED, loans.get(1).getState());
+            var today = LocalDate.now();
+            assertEquals(List.of(new ArchivedLoan("u1", "1", LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 15), today),
+                            new ArchivedLoan("u1", "2", LocalDate.of(2024, 2, 1), LocalDate.of(2024, 2, 15), today)),
+                    store.loanArchive().loansOfUser("u1"));
+            // Las consultas por fecha del servicio solo ven lo que quedó en memoria
+            var january = LocalDate.of(2024, 1, 1);
+            assertEquals(0, store.loanService().countRecentLoansOn(january));
+            assertEquals(1, store.loanArchive().loansBetween(january, january).size());
+            assertThrows(IllegalArgumentException.class, () -> store.setRecentLoans(-1));
+        }
+    }
+
+    /**
+     * Verifica que dos snapshots seguidos en la misma secuencia no pisen el
+     * segmento del historial del primero: al reabrir no falta ningún préstamo.
+     */
+    @Test
+    void testSnapshotsAtSameSequenceKeepArchive() throws IOException {
+        // Given
+        long first;
+        try (var store = LibraryStore.open(dir, FsyncPolicy.ALWAYS)) {
+            store.userService().addUser("u1", "Ana", "ana@mail.com");
+            for (int i = 1; i <= 3; i++) {
+                store.bookService().addBook(String.valueOf(i), "Titulo " + i, "Autor");
+                store.loanService().addLoan("u1", String.valueOf(i), LocalDate.of(2024, i, 1));
+                store.loanService().returnBook("u1", String.valueOf(i), LocalDate.of(2024, i, 5));
+            }
+            store.setRecentLoans(2);
+            first = store.snapshot();
+
+            // When: sin cambios en el medio, con menos préstamos en memoria
+            store.setRecentLoans(0);
+            long second = store.snapshot();
+
+            // Then: el segundo no archiva y los préstamos siguen en memoria
+            assertEquals(first, second);
+            assertEquals(1, store.loanArchive().count());
+            assertEquals(2, store.loanService().getLoans().size());
+
+            // El próximo snapshot con cambios archiva lo que faltaba
+            store.bookService().addBook("4", "Titulo 4", "Autor");
+            store.snapshot();
+            assertEquals(3, store.loanArchive().count());
+        }
+        try (var store = LibraryStore.open(dir, FsyncPolicy.ALWAYS)) {
+            assertEquals(3, store.loanArchive().count());
+            assertEquals(0, store.loanService().getLoans().size());
+        }
+        try (var store = LibraryStore.open(dir, FsyncPolicy.ALWAYS)) {
+            assertThrows(IllegalStateException.class, () -> store.loanArchive().append(first, List.of()));
+        }
+    }
+
+    /**
+     * Verifica que una importación masiva quede en el journal y se recupere al reabrir.
+     */
+    @Test
+    void testImportedBooksSurviveReopen() throws IOException {
+        try (var store = LibraryStore.open(dir, FsyncPolicy.ALWAYS)) {
+            var report = store.bookService().importBooks(new StringReader("1\tUno\tAutor\n2\tDos\tAutor\n"));
+            assertEquals(2, report.imported());
+        }
+        try (var store = LibraryStore.open(dir, FsyncPolicy.ALWAYS)) {
+            assertEquals("Dos", store.bookService().getBookByIsbn("2").getTitle());
+        }
+    }
+
+    /**
+     * Verifica que el estado se recupere igual guardando los libros en un
+     * PackedCatalog, desde el snapshot y desde el journal.
+     */
+    @Test
+    void testReopenWithPackedCatalog() throws IOException {
+        try (var store = LibraryStore.open(dir, FsyncPolicy.ALWAYS, new PackedCatalog(256))) {
+            store.bookService().addBook("1", "Uno", "Autor");
+            store.snapshot();
+            store.bookService().addBook("2", "Dos", "Autor");
+        }
+        try (var store = LibraryStore.open(dir, FsyncPolicy.ALWAYS, new PackedCatalog(256))) {
+            assertEquals(List.of("1", "2"),
+                    store.bookService().getAllBooks().stream().map(Book::getIsbn).toList());
+        }
+        var used = new PackedCatalog(256);
+        used.addBook("3", "Tres", "Autor");
+        assertThrows(IllegalArgumentException.class, () -> LibraryStore.open(dir, FsyncPolicy.ALWAYS, used));
+    }
+
+    /**
+     * Verifica que con PackedCatalog el snapshot no guarde como borrados a los
+     * libros prestados: al reabrir, el préstamo apunta al libro del catálogo.
+     */
+    @Test
+    void testSnapshotRoundTripWithPackedCatalog() throws IOException {
+        // Given
+        long sequence;
+        try (var store = LibraryStore.open(dir, FsyncPolicy.ALWAYS, new PackedCatalog(256))) {
+            store.userService().addUser("u1", "Ana", "ana@mail.com");
+            store.bookService().addBook("1", "Uno", "Autor");
+            store.bookService().addBook("2", "Dos", "Autor");
+            store.loanService().addLoan("u1", "1", LocalDate.of(2024, 3, 1));
+            store.loanService().addLoan("u1", "2", LocalDate.of(2024, 3, 2));
+            store.bookService().deleteBook("2");
+
+            // When
+            sequence = store.snapshot();
+        }
+
+        // Then: solo el libro borrado va completo en su préstamo
+        var snapshot = SnapshotFile.read(dir.resolve(LibraryStore.snapshotName(sequence)));
+        assertEquals(1, snapshot.books().size());
+        assertEquals(null, snapshot.loans().get(0).inlineBook());
+        assertEquals("Dos", snapshot.loans().get(1).inlineBook().getTitle());
+        try (var store = LibraryStore.open(dir, FsyncPolicy.ALWAYS, new PackedCatalog(256))) {
+            var loans = store.loanService().getLoans();
+            assertSame(store.bookService().getBookByIsbn("1"), loans.get(0).getBook());
+            assertEquals("Dos", loans.get(1).getBook().getTitle());
+            assertThrows(NotFoundException.class, () -> store.bookService().getBookByIsbn("2"));
+        }
+    }
+
+    /**
+     * Verifica que préstamos y borrados concurrentes de los mismos usuarios y
+     * libros queden en el journal en un orden que se puede reproducir: al
+     * reabrir se recuperan exactamente los préstamos confirmados.
+     */
+    @Test
+    void testConcurrentLoansAndDeletesReplay() throws Exception {
+        // Given
+        int n = 200;
+        var lent = new AtomicInteger();
+        try (var store = LibraryStore.open(dir, FsyncPolicy.GROUP_COMMIT)) {
+            for (int i = 0; i < n; i++) {
+                store.bookService().addBook("b" + i, "Libro " + i, "Autor");
+                store.userService().addUser("u" + i, "Usuario " + i, "u" + i + "@mail.com");
+            }
+            var pool = Executors.newFixedThreadPool(4);
+            var tasks = new ArrayList<Future<?>>();
+            for (int i = 0; i < n; i++) {
+                var index = i;
+                tasks.add(pool.submit(() -> {
+                    try {
+                        store.loanService().addLoan("u" + index, "b" + index);
+                        lent.incrementAndGet();
+                    } catch (NotFoundException e) {
+                        // el borrado llegó antes
+                    }
+                }));
+                tasks.add(pool.submit(() -> {
+                    if (index % 2 == 0) {
+                        store.userService().deleteUser("u" + index);
+                    } else {
+                        store.bookService().deleteBook("b" + index);
+                    }
+                }));
+            }
+            for (var task : tasks) {
+                task.get();
+            }
+            pool.shutdown();
+        }
+
+        // When
+        try (var store = LibraryStore.open(dir, FsyncPolicy.GROUP_COMMIT)) {
+            // Then
+            assertEquals(lent.get(), store.loanService().getLoans().size());
+        }
+    }
+
+    /**
+     * Verifica que un registro del journal que no se puede aplicar se informe
+     * como daño del directorio en vez de ignorarse.
+     */
+    @Test
+    void testUnappliableEntryFailsOpen() throws IOException {
+        // Given: un préstamo de un usuario que nunca existió
+        try (var journal = FileJournal.open(dir.resolve(LibraryStore.segmentName(1)), FsyncPolicy.ALWAYS)) {
+            journal.record(Operation.ADD_LOAN, () -> { }, "u1", "1", "2024-01-01");
+        }
+
+        // When / Then
+        var error = assertThrows(IOException.class, () -> LibraryStore.open(dir, FsyncPolicy.ALWAYS));
+        assertTrue(error.getMessage().contains("registro 1"));
+    }
+
+    /**
+     * Verifica que una devolución sin fecha no se reproduzca con la fecha de hoy.
+     */
+    @Test
+    void testReturnWithoutDateFailsOpen() throws IOException {
+        // Given
+        try (var journal = FileJournal.open(dir.resolve(LibraryStore.segmentName(1)), FsyncPolicy.ALWAYS)) {
+            journal.record(Operation.ADD_BOOK, () -> { }, "1", "Rayuela", "Julio Cortázar");
+            journal.record(Operation.ADD_USER, () -> { }, "u1", "Ana", "ana@mail.com", "2020-05-01");
+            journal.record(Operation.ADD_LOAN, () -> { }, "u1", "1", "2024-01-01");
+            journal.record(Operation.RETURN_BOOK, () -> { }, "u1", "1");
+        }
+
+        // When / Then
+        var error = assertThrows(IOException.class, () -> LibraryStore.open(dir, FsyncPolicy.ALWAYS));
+        assertTrue(error.getMessage().contains("registro 4"));
+    }
+
+    /**
+     * Verifica que no se acepten parámetros nulos.
+     */
+    @Test
+    void testOpenWithNullParameters() {
+        assertThrows(IllegalArgumentException.class, () -> LibraryStore.open(null, FsyncPolicy.ALWAYS));
+        assertThrows(IllegalArgumentException.class, () -> LibraryStore.open(dir, null));
+    }
+
+    /**
+     * Verifica que los snapshots periódicos no acepten intervalos inválidos
+     * ni se programen dos veces.
+     */
+    @Test
+    void testScheduleSnapshots() throws IOException {
+        try (var store = LibraryStore.open(dir, FsyncPolicy.PERIODIC)) {
+            assertThrows(IllegalArgumentException.class, () -> store.scheduleSnapshots(null));
+            assertThrows(IllegalArgumentException.class, () -> store.scheduleSnapshots(Duration.ZERO));
+            store.scheduleSnapshots(Duration.ofHours(1));
+            assertThrows(IllegalStateException.class, () -> store.scheduleSnapshots(Duration.ofHours(1)));
+        }
+    }
+}
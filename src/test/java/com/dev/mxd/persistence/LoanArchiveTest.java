@@ -0,0 +1,127 @@
+package com.dev.mxd.persistence;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.dev.mxd.model.Loan;
+
+/**
+ * Pruebas unitarias para LoanArchive.
+ * Se valida que los préstamos archivados se puedan consultar por usuario,
+ * por libro y por fechas, y que un segmento dañado se rechace.
+ */
+class LoanArchiveTest {
+
+    @TempDir
+    Path dir;
+
+    /**
+     * Verifica las consultas sobre varios segmentos y que al reabrir se vean igual.
+     */
+    @Test
+    void testAppendAndQuery() throws IOException {
+        // Given
+        var archive = LoanArchive.open(dir);
+        var march = new ArchivedLoan("u1", "1", LocalDate.of(2024, 3, 1), LocalDate.of(2024, 3, 15),
+                LocalDate.of(2024, 3, 10));
+        var april = new ArchivedLoan("u2", "1", LocalDate.of(2024, 4, 1), LocalDate.of(2024, 4, 30), null);
+        var may = new ArchivedLoan("u1", "2", LocalDate.of(2024, 5, 1), LocalDate.of(2024, 5, 15),
+                LocalDate.of(2024, 5, 20));
+
+        // When
+        archive.append(5, List.of(march, april));
+        archive.append(9, List.of(may));
+        var reopened = LoanArchive.open(dir);
+
+        // Then
+        assertEquals(3, reopened.count());
+        assertEquals(List.of(march, may), reopened.loansOfUser("u1"));
+        assertEquals(List.of(march, april), reopened.loansOfBook("1"));
+        assertEquals(List.of(april, may),
+                reopened.loansBetween(LocalDate.of(2024, 3, 15), LocalDate.of(2024, 5, 1)));
+        assertTrue(reopened.loansOfUser("u9").isEmpty());
+        var all = new ArrayList<ArchivedLoan>();
+        reopened.forEach(all::add);
+        assertEquals(List.of(march, april, may), all);
+
+        // Los segmentos de un snapshot que no se escribió se descartan
+        reopened.discardFrom(9);
+        assertEquals(2, reopened.count());
+        assertEquals(2, LoanArchive.open(dir).count());
+        assertThrows(IllegalArgumentException.class, () -> reopened.loansOfUser(null));
+    }
+
+    /**
+     * Verifica que un byte cambiado en un segmento se detecte al abrir.
+     */
+    @Test
+    void testCorruptedSegmentIsRejected() throws IOException {
+        // Given
+        LoanArchive.open(dir).append(1, List.of(new ArchivedLoan("u1", "1", LocalDate.of(2024, 3, 1),
+                LocalDate.of(2024, 3, 15), null)));
+
+        // When
+        try (var channel = FileChannel.open(dir.resolve(LoanArchive.segmentName(1)), StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[] {'X'}), 30);
+        }
+
+        // Then
+        assertThrows(IOException.class, () -> LoanArchive.open(dir));
+    }
+
+    /**
+     * Verifica que un segmento de la versión 1, sin vencimiento ni devolución,
+     * se siga pudiendo leer con el plazo por defecto.
+     */
+    @Test
+    void testReadsVersionOneSegment() throws IOException {
+        // Given: [MAGIC][1][filas][primer día][último día][usuarios][libros][días][usuarios][libros][crc]
+        int day = (int) LocalDate.of(2024, 3, 1).toEpochDay();
+        var bytes = new ByteArrayOutputStream();
+        var checked = new CheckedOutputStream(bytes, new CRC32());
+        var out = new DataOutputStream(checked);
+        out.writeLong(0x4249424C41524348L);
+        out.writeInt(1);
+        out.writeInt(1);
+        out.writeInt(day);
+        out.writeInt(day);
+        out.writeInt(1);
+        out.writeInt(2);
+        out.writeBytes("u1");
+        out.writeInt(1);
+        out.writeInt(1);
+        out.writeBytes("7");
+        out.writeInt(day);
+        out.writeInt(0);
+        out.writeInt(0);
+        out.flush();
+        out.writeInt((int) checked.getChecksum().getValue());
+        Files.write(dir.resolve(LoanArchive.segmentName(3)), bytes.toByteArray());
+
+        // When
+        var archive = LoanArchive.open(dir);
+
+        // Then
+        assertEquals(List.of(new ArchivedLoan("u1", "7", LocalDate.of(2024, 3, 1),
+                        LocalDate.of(2024, 3, 1).plusDays(Loan.DEFAULT_LOAN_DAYS), null)),
+                archive.loansOfBook("7"));
+    }
+}
@@ -0,0 +1,95 @@
+package com.dev.mxd.persistence;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.dev.mxd.model.Book;
+import com.dev.mxd.model.LoanState;
+
+/**
+ * Pruebas unitarias para SnapshotFile.
+ * Se valida que un snapshot se lea igual a como se escribió
+ * y que un archivo dañado se rechace.
+ */
+class SnapshotFileTest {
+
+    @TempDir
+    Path dir;
+
+    /**
+     * Verifica que libros, usuarios y préstamos (con y sin datos completos)
+     * se recuperen tal como se guardaron.
+     */
+    @Test
+    void testWriteAndRead() throws IOException {
+        // Given
+        var file = dir.resolve("snapshot.bin");
+        var ana = new Snapshot.UserRow("u1", "Ana María", "ana@mail.com", LocalDate.of(2020, 5, 1));
+        var deleted = new Snapshot.UserRow("u2", "Luis", "luis@mail.com", LocalDate.of(2021, 1, 2));
+        var snapshot = new Snapshot(42,
+                List.of(new Book("1", "Cien años de soledad", "Gabriel García Márquez")),
+                List.of(ana),
+                List.of(new Snapshot.LoanRow("u1", "1", null, null, LocalDate.of(2024, 3, 1), LoanState.FINISHED,
+                                LocalDate.of(2024, 3, 9)),
+                        new Snapshot.LoanRow("u2", "2", deleted, new Book("2", "Rayuela", "Julio Cortázar"),
+                                LocalDate.of(2024, 4, 1), LoanState.STARTED, null, LocalDate.of(2024, 4, 30))));
+
+        // When
+        SnapshotFile.write(file, snapshot);
+        var read = SnapshotFile.read(file);
+
+        // Then
+        assertEquals(42, read.sequence());
+        assertEquals("Cien años de soledad", read.books().iterator().next().getTitle());
+        assertEquals(List.of(ana), read.users());
+        var first = read.loans().get(0);
+        assertNull(first.inlineUser());
+        assertNull(first.inlineBook());
+        assertEquals(LoanState.FINISHED, first.state());
+        assertEquals(LocalDate.of(2024, 3, 9), first.returnDate());
+        assertEquals(LocalDate.of(2024, 3, 15), first.dueDate());
+        var second = read.loans().get(1);
+        assertEquals(deleted, second.inlineUser());
+        assertEquals("Rayuela", second.inlineBook().getTitle());
+        assertEquals("2", second.isbn());
+        assertEquals(LocalDate.of(2024, 4, 1), second.loanDate());
+        assertEquals(LoanState.STARTED, second.state());
+        assertNull(second.returnDate());
+        assertEquals(LocalDate.of(2024, 4, 30), second.dueDate());
+    }
+
+    /**
+     * Verifica que un byte cambiado o un archivo cortado se detecten.
+     */
+    @Test
+    void testCorruptedFileIsRejected() throws IOException {
+        // Given
+        var file = dir.resolve("snapshot.bin");
+        SnapshotFile.write(file, new Snapshot(1, List.of(new Book("1", "Titulo", "Autor")), List.of(), List.of()));
+
+        // When
+        try (var channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[] {'X'}), 30);
+        }
+
+        // Then
+        assertThrows(IOException.class, () -> SnapshotFile.read(file));
+        try (var channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(Files.size(file) / 2);
+        }
+        assertThrows(IOException.class, () -> SnapshotFile.read(file));
+    }
+}
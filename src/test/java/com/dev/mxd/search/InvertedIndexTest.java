@@ -0,0 +1,100 @@
+package com.dev.mxd.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.dev.mxd.model.Book;
+
+/**
+ * Pruebas unitarias para InvertedIndex.
+ * Se validan las búsquedas AND y OR, el orden por relevancia,
+ * la búsqueda sin tildes y el mantenimiento al quitar libros.
+ */
+class InvertedIndexTest {
+
+    private InvertedIndex index;
+    private Book soledad;
+    private Book colera;
+    private Book quijote;
+
+    @BeforeEach
+    void setUp() {
+        index = new InvertedIndex();
+        soledad = new Book("1", "Cien años de soledad", "Gabriel García Márquez");
+        colera = new Book("2", "El amor en los tiempos del cólera", "Gabriel García Márquez");
+        quijote = new Book("3", "Don Quijote de la Mancha", "Miguel de Cervantes");
+        index.add(soledad);
+        index.add(colera);
+        index.add(quijote);
+    }
+
+    /**
+     * Verifica que con ALL se devuelvan solo los libros que tienen todos los términos.
+     */
+    @Test
+    void testSearchAll() {
+        assertEquals(List.of("1"), index.search("soledad marquez", SearchMode.ALL));
+        assertEquals(List.of(), index.search("soledad cervantes", SearchMode.ALL));
+        assertEquals(List.of(), index.search("inexistente", SearchMode.ALL));
+    }
+
+    /**
+     * Verifica que con ANY se devuelvan los libros que tienen algún término,
+     * con los que coinciden en más términos primero.
+     */
+    @Test
+    void testSearchAnyRanksByRelevance() {
+        var result = index.search("quijote cervantes inexistente", SearchMode.ANY);
+        assertEquals(List.of("3"), result);
+
+        result = index.search("soledad gabriel", SearchMode.ANY);
+        assertEquals(List.of("1", "2"), result);
+    }
+
+    /**
+     * Verifica que las palabras del título pesen más que las del autor.
+     */
+    @Test
+    void testTitleWeighsMoreThanAuthor() {
+        index.add(new Book("4", "Vida de Miguel", "Anónimo"));
+
+        assertEquals(List.of("4", "3"), index.search("miguel", SearchMode.ANY));
+    }
+
+    /**
+     * Verifica que la búsqueda ignore tildes y mayúsculas en ambos sentidos.
+     */
+    @Test
+    void testSearchIgnoresAccentsAndCase() {
+        assertEquals(List.of("2"), index.search("COLERA", SearchMode.ALL));
+        assertEquals(List.of("1"), index.search("Años", SearchMode.ALL));
+    }
+
+    /**
+     * Verifica que al quitar un libro deje de aparecer en los resultados.
+     */
+    @Test
+    void testRemove() {
+        index.remove(soledad);
+
+        assertEquals(List.of("2"), index.search("garcia", SearchMode.ALL));
+        assertEquals(List.of(), index.search("soledad", SearchMode.ANY));
+        assertEquals(2, index.size());
+    }
+
+    /**
+     * Verifica que una consulta sin palabras no devuelva resultados
+     * y que no se acepten parámetros nulos.
+     */
+    @Test
+    void testEmptyAndNullQueries() {
+        assertEquals(List.of(), index.search("  ¿? ", SearchMode.ANY));
+        assertThrows(IllegalArgumentException.class, () -> index.search(null, SearchMode.ALL));
+        assertThrows(IllegalArgumentException.class, () -> index.search("quijote", null));
+    }
+}
@@ -0,0 +1,93 @@
+package com.dev.mxd.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Pruebas unitarias para PrefixIndex.
+ * Se validan las sugerencias por prefijo, el límite de resultados,
+ * las altas y bajas repetidas y la fusión de cambios con los arreglos.
+ */
+class PrefixIndexTest {
+
+    private PrefixIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new PrefixIndex();
+        index.add("Cien años de soledad");
+        index.add("Ciudad de cristal");
+        index.add("Crónica de una muerte anunciada");
+        index.add("Gabriel García Márquez");
+    }
+
+    /**
+     * Verifica que se sugieran los textos con el prefijo, en orden alfabético
+     * y sin importar tildes ni mayúsculas.
+     */
+    @Test
+    void testComplete() {
+        assertEquals(List.of("Cien años de soledad", "Ciudad de cristal"), index.complete("ci", 10));
+        assertEquals(List.of("Crónica de una muerte anunciada"), index.complete("CRONI", 10));
+        assertEquals(List.of("Cien años de soledad"), index.complete("cien anos", 10));
+        assertEquals(List.of(), index.complete("z", 10));
+    }
+
+    /**
+     * Verifica que no se devuelvan más sugerencias que el límite.
+     */
+    @Test
+    void testCompleteRespectsLimit() {
+        assertEquals(List.of("Cien años de soledad"), index.complete("c", 1));
+        assertEquals(3, index.complete("c", 3).size());
+    }
+
+    /**
+     * Verifica que un texto repetido se siga sugiriendo hasta quitar todas sus apariciones.
+     */
+    @Test
+    void testRemoveCountsOccurrences() {
+        index.add("Gabriel García Márquez");
+
+        index.remove("Gabriel García Márquez");
+        assertEquals(List.of("Gabriel García Márquez"), index.complete("gab", 5));
+
+        index.remove("Gabriel García Márquez");
+        assertEquals(List.of(), index.complete("gab", 5));
+        assertEquals(3, index.size());
+    }
+
+    /**
+     * Verifica que las sugerencias sean correctas después de fusionar
+     * muchos cambios en los arreglos ordenados.
+     */
+    @Test
+    void testCompleteAfterMerge() {
+        for (int i = 0; i < 3000; i++) {
+            index.add(String.format("Tomo %04d", i));
+        }
+        for (int i = 0; i < 3000; i += 2) {
+            index.remove(String.format("Tomo %04d", i));
+        }
+
+        assertEquals(List.of("Tomo 0001", "Tomo 0003", "Tomo 0005"), index.complete("tomo 000", 3));
+        assertEquals(List.of("Tomo 2999"), index.complete("tomo 2999", 3));
+        assertEquals(4 + 1500, index.size());
+        assertEquals(List.of("Cien años de soledad"), index.complete("cien", 3));
+    }
+
+    /**
+     * Verifica que no se acepten parámetros inválidos.
+     */
+    @Test
+    void testInvalidParameters() {
+        assertThrows(IllegalArgumentException.class, () -> index.complete(null, 5));
+        assertThrows(IllegalArgumentException.class, () -> index.complete("c", 0));
+        assertThrows(IllegalArgumentException.class, () -> index.add(null));
+    }
+}
@@ -0,0 +1,45 @@
+package com.dev.mxd.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Pruebas unitarias para TextNormalizer.
+ * Se valida que se ignoren mayúsculas y tildes y que el texto
+ * se separe en palabras correctamente.
+ */
+class TextNormalizerTest {
+
+    /**
+     * Verifica que se quiten tildes, diéresis y la virgulilla de la ñ.
+     */
+    @Test
+    void testNormalizeRemovesAccents() {
+        assertEquals("cien anos de soledad", TextNormalizer.normalize("Cien Años de Soledad"));
+        assertEquals("garcia marquez", TextNormalizer.normalize("GARCÍA MÁRQUEZ"));
+        assertEquals("pinguino", TextNormalizer.normalize("pingüino"));
+    }
+
+    /**
+     * Verifica que el texto se separe en palabras ignorando signos de puntuación.
+     */
+    @Test
+    void testTokenize() {
+        assertEquals(List.of("el", "amor", "en", "los", "tiempos", "del", "colera"),
+                TextNormalizer.tokenize("El amor en los tiempos del cólera."));
+        assertEquals(List.of("don", "quijote", "1605"), TextNormalizer.tokenize("  Don Quijote (1605)"));
+        assertEquals(List.of(), TextNormalizer.tokenize(" -- "));
+    }
+
+    /**
+     * Verifica que no se acepte texto nulo.
+     */
+    @Test
+    void testNormalizeNull() {
+        assertThrows(IllegalArgumentException.class, () -> TextNormalizer.normalize(null));
+    }
+}
@@ -0,0 +1,64 @@
+package com.dev.mxd.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.time.LocalDate;
+
+import org.junit.jupiter.api.Test;
+
+import com.dev.mxd.model.Book;
+import com.dev.mxd.model.Loan;
+import com.dev.mxd.model.User;
+
+/**
+ * Pruebas unitarias para ActiveLoans e IdDictionary.
+ * Se valida la búsqueda por libro y por (usuario, libro), que quitar
+ * solo borre el préstamo indicado y que el arreglo crezca por páginas.
+ */
+class ActiveLoansTest {
+
+    /**
+     * Verifica búsquedas, reemplazo y borrado con muchos ISBN (varias páginas).
+     */
+    @Test
+    void testPutGetRemove() {
+        var active = new ActiveLoans();
+        var ana = new User("a", "Ana", "a@a.com");
+        var beto = new User("b", "Beto", "b@b.com");
+        var loans = new Loan[5000];
+        for (int i = 0; i < loans.length; i++) {
+            loans[i] = new Loan(ana, new Book("isbn-" + i, "T", "A"), LocalDate.of(2024, 1, 1));
+            active.put(loans[i]);
+        }
+
+        assertSame(loans[4321], active.get("isbn-4321"));
+        assertSame(loans[4321], active.get("a", "isbn-4321"));
+        assertNull(active.get("b", "isbn-4321"));
+        assertNull(active.get("a", "otro"));
+
+        // Un préstamo viejo del mismo libro no borra al activo
+        var again = new Loan(beto, new Book("isbn-7", "T", "A"), LocalDate.of(2024, 2, 1));
+        active.put(again);
+        active.remove(loans[7]);
+        assertSame(again, active.get("b", "isbn-7"));
+        active.remove(again);
+        assertNull(active.get("isbn-7"));
+    }
+
+    /**
+     * Verifica que los códigos sean densos y estables.
+     */
+    @Test
+    void testDictionaryCodes() {
+        var dictionary = new IdDictionary();
+
+        assertEquals(0, dictionary.intern("x"));
+        assertEquals(1, dictionary.intern("y"));
+        assertEquals(0, dictionary.intern("x"));
+        assertEquals(1, dictionary.codeOf("y"));
+        assertEquals(IdDictionary.ABSENT, dictionary.codeOf("z"));
+        assertEquals(2, dictionary.size());
+    }
+}
@@ -3,10 +3,26 @@ package com.dev.mxd.service;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import com.dev.mxd.bulk.RejectedRow;
 import com.dev.mxd.exception.NotFoundException;
+import com.dev.mxd.metrics.LibraryMetrics;
+import com.dev.mxd.model.Book;
+import com.dev.mxd.persistence.Journal;
+import com.dev.mxd.persistence.Operation;
+import com.dev.mxd.search.SearchMode;
 /**
  * Pruebas unitarias para BookService.
  * La idea es validar los flujos felices y los casos de error:
@@ -178,6 +194,24 @@ class BookServiceTest {
         assertTrue(exception.getMessage().contains("no fue encontrado"));
     }
 
+    /**
+     * Verifica que findBookByIsbn devuelva el libro o un Optional vacío sin lanzar excepciones.
+     */
+    @Test
+    void testFindBookByIsbn() {
+        // Given
+        service.addBook("1234567890", "El Principito", "Antoine de Saint-Exupéry");
+
+        // When
+        var found = service.findBookByIsbn("1234567890");
+        var missing = service.findBookByIsbn("9999999999");
+
+        // Then
+        assertEquals("El Principito", found.orElseThrow().getTitle());
+        assertTrue(missing.isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> service.findBookByIsbn(null));
+    }
+
     /**
      * Verifica que no se pueda agregar un libro con parámetros nulos.
      */
@@ -284,6 +318,248 @@ class BookServiceTest {
         assertEquals(title1, book1.getTitle());
         assertEquals(title2, book2.getTitle());
     }
+    /**
+     * Verifica que no se pueda agregar dos veces un libro con el mismo ISBN
+     * y que el libro original se conserve.
+     */
+    @Test
+    void testAddBookWithDuplicateIsbn() {
+        // Given
+        service.addBook("1234567890", "Original", "Autor 1");
+
+        // When & Then
+        assertThrows(IllegalArgumentException.class,
+                () -> service.addBook("1234567890", "Duplicado", "Autor 2"));
+        assertEquals(1, service.getAllBooks().size());
+        assertEquals("Original", service.getBookByIsbn("1234567890").getTitle());
+    }
+
+    /**
+     * Verifica que getAllBooks mantenga el orden de inserción
+     * aunque se borre un libro intermedio.
+     */
+    @Test
+    void testGetAllBooksKeepsInsertionOrderAfterDelete() {
+        // Given
+        service.addBook("3", "Tres", "Autor");
+        service.addBook("1", "Uno", "Autor");
+        service.addBook("2", "Dos", "Autor");
+
+        // When
+        service.deleteBook("1");
+
+        // Then
+        var books = service.getAllBooks();
+        assertEquals(2, books.size());
+        assertEquals("3", books.get(0).getIsbn());
+        assertEquals("2", books.get(1).getIsbn());
+    }
+
+    /**
+     * Verifica que se puedan buscar libros por palabras del título y del autor,
+     * sin importar tildes, y que el índice se actualice al borrar.
+     */
+    @Test
+    void testSearchBooks() {
+        // Given
+        service.addBook("1", "Cien años de soledad", "Gabriel García Márquez");
+        service.addBook("2", "La casa de los espíritus", "Isabel Allende");
+
+        // When & Then
+        var found = service.searchBooks("anos garcia");
+        assertEquals(1, found.size());
+        assertEquals("1", found.get(0).getIsbn());
+        assertEquals(2, service.searchBooks("soledad allende", SearchMode.ANY).size());
+
+        service.deleteBook("1");
+        assertTrue(service.searchBooks("soledad").isEmpty());
+    }
+
+    /**
+     * Verifica que la búsqueda no acepte parámetros nulos.
+     */
+    @Test
+    void testSearchBooksWithNullParameters() {
+        assertThrows(IllegalArgumentException.class, () -> service.searchBooks(null));
+        assertThrows(IllegalArgumentException.class, () -> service.searchBooks("java", null));
+    }
+
+    /**
+     * Verifica que se sugieran títulos y autores por prefijo
+     * y que un libro borrado deje de sugerirse.
+     */
+    @Test
+    void testAutocomplete() {
+        // Given
+        service.addBook("1", "Cien años de soledad", "Gabriel García Márquez");
+        service.addBook("2", "Crónica de una muerte anunciada", "Gabriel García Márquez");
+
+        // When & Then
+        assertEquals(List.of("Cien años de soledad", "Crónica de una muerte anunciada"),
+                service.autocomplete("c", 5));
+        assertEquals(List.of("Gabriel García Márquez"), service.autocomplete("gabriel garcia", 5));
+
+        service.deleteBook("1");
+        assertEquals(List.of("Crónica de una muerte anunciada"), service.autocomplete("c", 5));
+        assertEquals(List.of("Gabriel García Márquez"), service.autocomplete("gab", 5));
+    }
+
+    /**
+     * Verifica que la importación cargue las filas válidas, informe las
+     * inválidas con su línea y deje los libros buscables.
+     */
+    @Test
+    void testImportBooks() throws IOException {
+        // Given
+        service.addBook("1", "Existente", "Autor");
+        var csv = "isbn,title,author\n"
+                + "2,\"Cien años de soledad\",Gabriel García Márquez\n"
+                + "3,Rayuela\n"
+                + "1,Repetido en catálogo,Autor\n"
+                + "4, ,Autor\n"
+                + "2,Repetido en archivo,Autor\n"
+                + "5,Ficciones,Jorge Luis Borges\n";
+
+        // When
+        var report = service.importBooks(new StringReader(csv));
+
+        // Then
+        assertEquals(2, report.imported());
+        assertEquals(List.of(3L, 4L, 5L, 6L), report.rejected().stream().map(RejectedRow::line).toList());
+        assertEquals(List.of("1", "2", "5"), service.getAllBooks().stream().map(Book::getIsbn).toList());
+        assertEquals("Cien años de soledad", service.searchBooks("soledad").get(0).getTitle());
+        assertEquals(List.of("Ficciones"), service.autocomplete("fic", 5));
+    }
+
+    /**
+     * Verifica que si la lectura falla a mitad de camino no se publique ningún libro.
+     */
+    @Test
+    void testImportBooksPublishesNothingOnReadError() {
+        // Given
+        var failing = new Reader() {
+            private final Reader data = new StringReader("1,Titulo,Autor\n2,Titulo,Autor\n");
+
+            @Override
+            public int read(char[] buffer, int offset, int length) throws IOException {
+                int read = data.read(buffer, offset, length);
+                if (read < 0) {
+                    throw new IOException("disco desconectado");
+                }
+                return read;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+
+        // When & Then
+        assertThrows(IOException.class, () -> service.importBooks(failing));
+        assertTrue(service.getAllBooks().isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> service.importBooks((Reader) null));
+    }
+
+    /**
+     * Verifica que si el registro del lote falla después de aplicarlo, los
+     * libros tampoco queden en los índices de búsqueda ni de autocompletado.
+     */
+    @Test
+    void testImportBooksCleansIndexesOnJournalError() {
+        // Given
+        var failing = new Journal() {
+            @Override
+            public void record(Operation operation, Runnable apply, String... args) {
+                apply.run();
+            }
+
+            @Override
+            public void recordBatch(Operation operation, Collection<String[]> batch, Runnable apply) {
+                apply.run();
+                throw new IllegalStateException("journal cerrado");
+            }
+        };
+        var books = new BookService(failing);
+        books.addBook("1", "Ficciones", "Jorge Luis Borges");
+
+        // When
+        assertThrows(IllegalStateException.class,
+                () -> books.importBooks(new StringReader("2,Fervor de Buenos Aires,Jorge Luis Borges\n")));
+
+        // Then
+        assertTrue(books.findBookByIsbn("2").isEmpty());
+        assertTrue(books.searchBooks("fervor").isEmpty());
+        assertEquals(List.of("Jorge Luis Borges"), books.autocomplete("jorge", 5));
+        assertEquals(List.of(), books.autocomplete("fervor", 5));
+    }
+
+    /**
+     * Verifica que el servicio funcione igual guardando los libros fuera del
+     * heap, con PackedCatalog como almacenamiento.
+     */
+    @Test
+    void testPackedCatalogStorage() throws IOException {
+        // Given
+        var books = new BookService(Journal.NONE, LibraryMetrics.NONE, new PackedCatalog(256));
+        books.addBook("1", "Ficciones", "Jorge Luis Borges");
+
+        // When
+        var report = books.importBooks(new StringReader("2,El Aleph,Jorge Luis Borges\n1,Repetido,Autor\n"));
+        books.deleteBook("1");
+
+        // Then
+        assertEquals(1, report.imported());
+        assertEquals(List.of("2"), books.getAllBooks().stream().map(Book::getIsbn).toList());
+        assertEquals("El Aleph", books.getBookByIsbn("2").getTitle());
+        assertEquals("El Aleph", books.searchBooks("aleph").get(0).getTitle());
+        assertThrows(NotFoundException.class, () -> books.getBookByIsbn("1"));
+        assertThrows(IllegalArgumentException.class, () -> new BookService(Journal.NONE, LibraryMetrics.NONE, null));
+    }
+
+    /**
+     * Verifica que el catálogo se pueda recorrer por páginas con cursor,
+     * sin perder ni repetir libros aunque se borre uno entre páginas.
+     */
+    @Test
+    void testGetBooksByPage() {
+        // Given
+        for (int i = 1; i <= 5; i++) {
+            service.addBook(String.valueOf(i), "Titulo " + i, "Autor");
+        }
+
+        // When
+        var first = service.getBooks(Page.FIRST, 2);
+        service.deleteBook("3");
+        var second = service.getBooks(first.nextCursor(), 2);
+
+        // Then
+        assertEquals(List.of("1", "2"), first.items().stream().map(Book::getIsbn).toList());
+        assertTrue(first.hasNext());
+        assertEquals(List.of("4", "5"), second.items().stream().map(Book::getIsbn).toList());
+        assertFalse(second.hasNext());
+        assertThrows(IllegalArgumentException.class, () -> service.getBooks(-2, 2));
+        assertThrows(IllegalArgumentException.class, () -> service.getBooks(Page.FIRST, 0));
+    }
+
+    /**
+     * Verifica que el stream de libros no falle si se agregan libros mientras
+     * se recorre, y que solo incluya los que existían al crearlo.
+     */
+    @Test
+    void testStreamBooksDuringAdd() {
+        // Given
+        service.addBook("1", "Uno", "Autor");
+        service.addBook("2", "Dos", "Autor");
+
+        // When
+        var stream = service.streamBooks();
+        service.addBook("3", "Tres", "Autor");
+
+        // Then
+        assertEquals(List.of("1", "2"), stream.map(Book::getIsbn).toList());
+        assertEquals(3, service.streamBooks().count());
+    }
+
     //// --- Casos adicionales para cubrir cada condición de validación ---
     @Test
     void testAddBookWithNullIsbn() {
@@ -315,5 +591,49 @@ class BookServiceTest {
         assertThrows(IllegalArgumentException.class, () -> service.addBook("123", "Titulo", "   "));
     }
 
-}
+    /**
+     * Verifica que las búsquedas y el autocompletado funcionen sin candados mientras
+     * otro hilo agrega y borra libros: nunca fallan, nunca devuelven libros borrados
+     * y los libros que no se tocan siempre aparecen.
+     */
+    @Test
+    void testSearchWhileWriting() throws Exception {
+        // Given
+        service.addBook("fijo", "Rayuela", "Julio Cortázar");
+        var running = new AtomicBoolean(true);
+        var errors = new ConcurrentLinkedQueue<Throwable>();
+        var readers = Executors.newFixedThreadPool(4);
+        for (int r = 0; r < 4; r++) {
+            readers.submit(() -> {
+                try {
+                    while (running.get()) {
+                        for (var book : service.searchBooks("novela cortazar", SearchMode.ANY)) {
+                            assertNotNull(book);
+                        }
+                        assertEquals("fijo", service.searchBooks("rayuela").get(0).getIsbn());
+                        assertTrue(service.autocomplete("ray", 5).contains("Rayuela"));
+                    }
+                } catch (Throwable e) {
+                    errors.add(e);
+                }
+            });
+        }
+
+        // When: agrega y borra suficientes libros como para fusionar el autocompletado varias veces
+        for (int i = 0; i < 5000; i++) {
+            service.addBook("n" + i, "Novela " + i, "Autor " + i);
+            if (i % 2 == 0) {
+                service.deleteBook("n" + i);
+            }
+        }
+        running.set(false);
+        readers.shutdown();
 
+        // Then
+        assertTrue(readers.awaitTermination(10, TimeUnit.SECONDS));
+        assertTrue(errors.isEmpty(), () -> errors.peek().toString());
+        assertEquals(2500, service.searchBooks("novela").size());
+        // Los pares se borraron: después de "Novela 1" viene "Novela 1001"
+        assertEquals(List.of("Novela 1", "Novela 1001"), service.autocomplete("novela 1", 2));
+    }
+}
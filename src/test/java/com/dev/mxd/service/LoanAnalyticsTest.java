@@ -0,0 +1,96 @@
+package com.dev.mxd.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.dev.mxd.model.Book;
+import com.dev.mxd.model.Loan;
+import com.dev.mxd.model.User;
+
+/**
+ * Pruebas unitarias para LoanAnalytics.
+ * Se valida cada reporte con suficientes préstamos para que el conteo
+ * se reparta entre varios trabajadores.
+ */
+class LoanAnalyticsTest {
+
+    /**
+     * Verifica los rankings, los activos por autor y la duración promedio.
+     */
+    @Test
+    void testReports() {
+        // Given: 50.000 préstamos de 3 libros (2 autores) y 2 usuarios
+        var books = List.of(new Book("1", "Uno", "Borges"), new Book("2", "Dos", "Borges"),
+                new Book("3", "Tres", "Cortázar"));
+        var users = List.of(new User("a", "Ana", "a@a.com"), new User("b", "Beto", "b@b.com"));
+        int rows = 50_000;
+        var loans = new ArrayList<Loan>(rows);
+        var start = LocalDate.of(2024, 1, 1);
+        for (int i = 0; i < rows; i++) {
+            // el libro 1 sale la mitad de las veces, el 2 y el 3 un cuarto cada uno
+            var book = books.get(i % 2 == 0 ? 0 : (i % 4 == 1 ? 1 : 2));
+            var loan = new Loan(users.get(i % 10 == 0 ? 1 : 0), book, start);
+            // todos menos los últimos 10 están devueltos a los 4 días
+            if (i < rows - 10) {
+                loan.finish(start.plusDays(4));
+            }
+            loans.add(loan);
+        }
+
+        // When
+        var analytics = new LoanAnalytics(loans);
+
+        // Then
+        assertEquals(rows, analytics.size());
+        assertEquals(List.of(new LoanCount("1", 25_000), new LoanCount("2", 12_500)),
+                analytics.mostBorrowedBooks(2));
+        assertEquals(List.of(new LoanCount("a", 45_000), new LoanCount("b", 5_000)), analytics.loansPerUser());
+        // De los últimos 10 (índices 49.990 a 49.999): 5 del libro 1, 2 del 2 y 3 del 3
+        assertEquals(List.of(new LoanCount("Borges", 7), new LoanCount("Cortázar", 3)),
+                analytics.activeLoansByAuthor());
+        assertEquals(4.0, analytics.averageLoanDays().getAsDouble());
+        assertThrows(IllegalArgumentException.class, () -> analytics.mostBorrowedBooks(0));
+    }
+
+    /**
+     * Verifica el conteo con tantos códigos como filas (un usuario por préstamo).
+     */
+    @Test
+    void testManyCodes() {
+        // Given: 60.000 préstamos, cada uno de un usuario distinto, el último repetido
+        int rows = 60_000;
+        var book = new Book("1", "Uno", "Borges");
+        var loans = new ArrayList<Loan>(rows);
+        var start = LocalDate.of(2024, 1, 1);
+        for (int i = 0; i < rows; i++) {
+            var id = "u" + Math.min(i, rows - 2);
+            loans.add(new Loan(new User(id, "Usuario", id + "@a.com"), book, start));
+        }
+
+        // When
+        var perUser = new LoanAnalytics(loans).loansPerUser();
+
+        // Then
+        assertEquals(rows - 1, perUser.size());
+        assertEquals(new LoanCount("u" + (rows - 2), 2), perUser.get(0));
+        assertEquals(rows, perUser.stream().mapToLong(LoanCount::count).sum());
+    }
+
+    /**
+     * Verifica que sin préstamos los reportes queden vacíos.
+     */
+    @Test
+    void testEmpty() {
+        var analytics = new LoanAnalytics(List.of());
+
+        assertTrue(analytics.loansPerUser().isEmpty());
+        assertTrue(analytics.averageLoanDays().isEmpty());
+    }
+}
@@ -0,0 +1,53 @@
+package com.dev.mxd.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.dev.mxd.model.Book;
+import com.dev.mxd.model.Loan;
+import com.dev.mxd.model.User;
+
+/**
+ * Pruebas unitarias para LoanDateIndex.
+ * Se valida el orden por fecha, los rangos y las cantidades por día.
+ */
+class LoanDateIndexTest {
+
+    /**
+     * Verifica rangos, cantidades y que al quitar el último préstamo de un día
+     * ese día deje de aparecer.
+     */
+    @Test
+    void testRangesAndCounts() {
+        var index = new LoanDateIndex();
+        var user = new User("u1", "Ana", "a@a.com");
+        var late = new Loan(user, new Book("1", "T", "A"), LocalDate.of(2024, 3, 31));
+        var early = new Loan(user, new Book("2", "T", "A"), LocalDate.of(2024, 3, 1));
+        var sameDay = new Loan(user, new Book("3", "T", "A"), LocalDate.of(2024, 3, 1));
+        var april = new Loan(user, new Book("4", "T", "A"), LocalDate.of(2024, 4, 1));
+        index.add(0, late);
+        index.add(1, early);
+        index.add(2, sameDay);
+        index.add(3, april);
+
+        assertEquals(List.of(early, sameDay, late),
+                index.between(LocalDate.of(2024, 3, 1), LocalDate.of(2024, 3, 31)));
+        assertEquals(List.of(early, sameDay), index.before(LocalDate.of(2024, 3, 2)));
+        assertEquals(Map.of(LocalDate.of(2024, 3, 1), 2, LocalDate.of(2024, 3, 31), 1),
+                index.countsBetween(LocalDate.of(2024, 2, 1), LocalDate.of(2024, 3, 31)));
+        assertTrue(index.between(LocalDate.of(2024, 5, 1), LocalDate.of(2024, 4, 1)).isEmpty());
+
+        index.remove(0, late);
+        index.remove(1, early);
+        assertEquals(0, index.countOn(LocalDate.of(2024, 3, 31)));
+        assertEquals(1, index.countOn(LocalDate.of(2024, 3, 1)));
+        assertEquals(List.of(sameDay, april),
+                index.between(LocalDate.of(2024, 1, 1), LocalDate.of(2024, 12, 31)));
+    }
+}
@@ -1,10 +1,22 @@
 package com.dev.mxd.service;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -12,6 +24,7 @@ import org.mockito.Mockito;
 
 import com.dev.mxd.exception.NotFoundException;
 import com.dev.mxd.model.Book;
+import com.dev.mxd.model.Loan;
 import com.dev.mxd.model.LoanState;
 import com.dev.mxd.model.User;
 
@@ -106,6 +119,30 @@ public class LoanServiceTest {
 
     }
 
+    /**
+     * Verifica que tryAddLoan informe cada caso con un estado en vez de una excepción,
+     * y que tryReturnBook devuelva false si no hay préstamo.
+     */
+    @Test
+    void testTryAddLoanAndTryReturnBook() {
+        // Given
+        var id = "123";
+        var isbn = "1234567890";
+        Mockito.when(userService.findUserById(id)).thenReturn(Optional.of(new User(id, "Xavi", "xavi@gmail.com")));
+        Mockito.when(bookService.findBookByIsbn(isbn)).thenReturn(Optional.of(new Book(isbn, "Java Master", "Kevin Sanchez")));
+
+        // When / Then
+        assertEquals(LoanStatus.USER_NOT_FOUND, service.tryAddLoan("999", isbn));
+        assertEquals(LoanStatus.BOOK_NOT_FOUND, service.tryAddLoan(id, "999"));
+        assertEquals(LoanStatus.LENT, service.tryAddLoan(id, isbn));
+        assertEquals(LoanStatus.ALREADY_LENT, service.tryAddLoan(id, isbn));
+        assertEquals(1, service.getLoans().size());
+        assertFalse(service.tryReturnBook("999", isbn));
+        assertTrue(service.tryReturnBook(id, isbn));
+        assertFalse(service.tryReturnBook(id, isbn));
+        assertEquals(LoanState.FINISHED, service.getLoans().get(0).getState());
+    }
+
       /**
      * Verifica que intentar devolver un libro que nunca fue prestado lance NotFoundException.
      */
@@ -376,4 +413,427 @@ public class LoanServiceTest {
         assertEquals(isbn, loans.get(1).getBook().getIsbn());
     }
 
+    /**
+     * Verifica que si un préstamo se finaliza directamente con Loan.setState,
+     * el índice de préstamos activos no siga bloqueando el libro.
+     */
+    @Test
+    void testAddLoanAfterLoanFinishedThroughSetState() {
+        // Given
+        var userId = "u1";
+        var isbn = "111";
+        Mockito.when(userService.getUserById(userId)).thenReturn(new User(userId, "Ana", "ana@mail.com"));
+        Mockito.when(bookService.getBookByIsbn(isbn)).thenReturn(new Book(isbn, "Libro 1", "Autor 1"));
+        service.addLoan(userId, isbn);
+
+        // When: el préstamo se cierra sin pasar por returnBook
+        service.getLoans().get(0).setState(LoanState.FINISHED);
+        service.addLoan(userId, isbn);
+
+        // Then
+        var loans = service.getLoans();
+        assertEquals(2, loans.size());
+        assertEquals(LoanState.STARTED, loans.get(1).getState());
+    }
+
+    /**
+     * Verifica que returnBook no devuelva un préstamo que ya fue finalizado
+     * con Loan.setState, y que luego se pueda volver a prestar y devolver.
+     */
+    @Test
+    void testReturnBookAfterLoanFinishedThroughSetState() {
+        // Given
+        var userId = "u1";
+        var isbn = "111";
+        Mockito.when(userService.getUserById(userId)).thenReturn(new User(userId, "Ana", "ana@mail.com"));
+        Mockito.when(bookService.getBookByIsbn(isbn)).thenReturn(new Book(isbn, "Libro 1", "Autor 1"));
+        service.addLoan(userId, isbn);
+        service.getLoans().get(0).setState(LoanState.FINISHED);
+
+        // When & Then
+        assertThrows(NotFoundException.class, () -> service.returnBook(userId, isbn));
+        service.addLoan(userId, isbn);
+        service.returnBook(userId, isbn);
+        assertEquals(LoanState.FINISHED, service.getLoans().get(1).getState());
+    }
+
+    /**
+     * Verifica que si varios hilos intentan prestar el mismo libro a la vez,
+     * solo uno lo consiga y quede un único préstamo registrado.
+     */
+    @Test
+    void testConcurrentAddLoanSameIsbnOnlyOneSucceeds() throws Exception {
+        // Given
+        var isbn = "111";
+        var threads = 8;
+        Mockito.when(bookService.getBookByIsbn(isbn)).thenReturn(new Book(isbn, "Libro", "Autor"));
+        for (int i = 0; i < threads; i++) {
+            var id = "u" + i;
+            Mockito.when(userService.getUserById(id)).thenReturn(new User(id, "Ana", id + "@mail.com"));
+        }
+        var pool = Executors.newFixedThreadPool(threads);
+        var start = new CountDownLatch(1);
+        var succeeded = new AtomicInteger();
+
+        // When
+        for (int i = 0; i < threads; i++) {
+            var id = "u" + i;
+            pool.submit(() -> {
+                start.await();
+                try {
+                    service.addLoan(id, isbn);
+                    succeeded.incrementAndGet();
+                } catch (NotFoundException e) {
+                    // el libro ya estaba prestado
+                }
+                return null;
+            });
+        }
+        start.countDown();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+
+        // Then
+        assertEquals(1, succeeded.get());
+        assertEquals(1, service.getLoans().size());
+    }
+
+    /**
+     * Verifica que los préstamos del mismo usuario y libros distintos no se
+     * esperen entre sí: el segundo termina mientras el primero sigue en curso.
+     */
+    @Test
+    void testLoansOfSameUserDoNotWaitForEachOther() throws Exception {
+        // Given: buscar el libro "1" queda bloqueado hasta que se lo libera
+        var user = new User("u1", "Ana", "ana@mail.com");
+        Mockito.when(userService.findUserById("u1")).thenReturn(Optional.of(user));
+        var inside = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        Mockito.when(bookService.findBookByIsbn("1")).thenAnswer(invocation -> {
+            inside.countDown();
+            release.await();
+            return Optional.of(new Book("1", "Uno", "Autor"));
+        });
+        Mockito.when(bookService.findBookByIsbn("2")).thenReturn(Optional.of(new Book("2", "Dos", "Autor")));
+        var pool = Executors.newSingleThreadExecutor();
+
+        try {
+            // When
+            var slow = pool.submit(() -> service.tryAddLoan("u1", "1"));
+            assertTrue(inside.await(5, TimeUnit.SECONDS));
+            var fast = service.tryAddLoan("u1", "2");
+
+            // Then
+            assertEquals(LoanStatus.LENT, fast);
+            release.countDown();
+            assertEquals(LoanStatus.LENT, slow.get(5, TimeUnit.SECONDS));
+            assertEquals(2, service.getLoans().size());
+        } finally {
+            release.countDown();
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Verifica que se pueda registrar un préstamo con una fecha indicada
+     * y que la fecha no pueda ser nula.
+     */
+    @Test
+    void testAddLoanWithDate() {
+        var id = "u1";
+        var isbn = "111";
+        var date = LocalDate.of(2024, 3, 1);
+        Mockito.when(userService.getUserById(id)).thenReturn(new User(id, "Ana", "a@a.com"));
+        Mockito.when(bookService.getBookByIsbn(isbn)).thenReturn(new Book(isbn, "L", "A"));
+
+        service.addLoan(id, isbn, date);
+
+        assertEquals(date, service.getLoanDate());
+        assertThrows(IllegalArgumentException.class, () -> service.addLoan(id, isbn, null));
+    }
+
+    /**
+     * Verifica que un préstamo cargado con restoreLoan ocupe el libro si está STARTED
+     * y que uno FINISHED solo quede en el historial.
+     */
+    @Test
+    void testRestoreLoan() {
+        // Given
+        var user = new User("u1", "Ana", "a@a.com");
+        var book = new Book("111", "L", "A");
+
+        // When
+        service.restoreLoan(new Loan(user, book, LocalDate.of(2024, 1, 1), LoanState.FINISHED));
+        service.restoreLoan(new Loan(user, book, LocalDate.of(2024, 2, 1), LoanState.STARTED));
+
+        // Then
+        assertEquals(2, service.getLoans().size());
+        assertThrows(NotFoundException.class,
+                () -> service.restoreLoan(new Loan(user, book, LocalDate.of(2024, 3, 1), LoanState.STARTED)));
+        service.returnBook("u1", "111");
+        assertEquals(LoanState.FINISHED, service.getLoans().get(1).getState());
+        assertThrows(IllegalArgumentException.class, () -> service.restoreLoan(null));
+        assertThrows(IllegalArgumentException.class,
+                () -> service.restoreLoan(new Loan(user, book, LocalDate.of(2024, 3, 1), null, LoanState.FINISHED)));
+    }
+
+    /**
+     * Verifica que un préstamo en lote preste los ISBN válidos y devuelva
+     * un resultado por ISBN, sin que los inválidos frenen a los demás.
+     */
+    @Test
+    void testAddLoansReportsPerItemOutcome() {
+        // Given
+        var id = "u1";
+        Mockito.when(userService.getUserById(id)).thenReturn(new User(id, "Ana", "a@a.com"));
+        givenBook(new Book("1", "Uno", "A"));
+        givenBook(new Book("2", "Dos", "A"));
+        givenBook(new Book("3", "Tres", "A"));
+        service.addLoan(id, "3");
+
+        // When
+        var outcomes = service.addLoans(id, Arrays.asList("1", "9", "3", "2", "1", null));
+
+        // Then
+        assertEquals(List.of(true, false, false, true, false, false),
+                outcomes.stream().map(LoanOutcome::succeeded).toList());
+        assertTrue(outcomes.get(2).reason().contains("ya esta prestado"));
+        assertEquals("9", outcomes.get(1).isbn());
+        assertEquals(3, service.getLoans().size());
+        Mockito.verify(userService, Mockito.times(2)).getUserById(id);
+    }
+
+    /**
+     * Verifica que una devolución en lote cierre los préstamos del usuario
+     * e informe los ISBN que no tenía prestados.
+     */
+    @Test
+    void testReturnBooksReportsPerItemOutcome() {
+        // Given
+        var id = "u1";
+        Mockito.when(userService.getUserById(id)).thenReturn(new User(id, "Ana", "a@a.com"));
+        givenBook(new Book("1", "Uno", "A"));
+        givenBook(new Book("2", "Dos", "A"));
+        service.addLoans(id, List.of("1", "2"));
+
+        // When
+        var outcomes = service.returnBooks(id, Arrays.asList("2", "7", "2", null, "1"));
+
+        // Then
+        assertEquals(List.of(true, false, false, false, true),
+                outcomes.stream().map(LoanOutcome::succeeded).toList());
+        assertTrue(service.getLoans().stream().allMatch(loan -> loan.getState() == LoanState.FINISHED));
+        assertThrows(IllegalArgumentException.class, () -> service.returnBooks(id, null));
+        assertThrows(IllegalArgumentException.class, () -> service.addLoans(null, List.of()));
+    }
+
+    /**
+     * Verifica que dos lotes con los mismos ISBN en distinto orden
+     * no se bloqueen entre sí y que cada libro se preste una sola vez.
+     */
+    @Test
+    void testCrossedBatchesDoNotDeadlock() throws Exception {
+        // Given
+        var isbns = new ArrayList<String>();
+        for (int i = 0; i < 200; i++) {
+            var isbn = "isbn-" + i;
+            isbns.add(isbn);
+            givenBook(new Book(isbn, "T", "A"));
+        }
+        var reversed = new ArrayList<>(isbns);
+        Collections.reverse(reversed);
+        Mockito.when(userService.getUserById("a")).thenReturn(new User("a", "A", "a@a.com"));
+        Mockito.when(userService.getUserById("b")).thenReturn(new User("b", "B", "b@b.com"));
+        var pool = Executors.newFixedThreadPool(2);
+
+        // When
+        var first = pool.submit(() -> service.addLoans("a", isbns));
+        var second = pool.submit(() -> service.addLoans("b", reversed));
+        long succeeded = first.get(10, TimeUnit.SECONDS).stream().filter(LoanOutcome::succeeded).count()
+                + second.get(10, TimeUnit.SECONDS).stream().filter(LoanOutcome::succeeded).count();
+        pool.shutdown();
+
+        // Then
+        assertEquals(200, succeeded);
+        assertEquals(200, service.getLoans().size());
+    }
+
+    /**
+     * Verifica que los préstamos se puedan recorrer por páginas con cursor
+     * y que el stream solo incluya los préstamos que existían al crearlo.
+     */
+    @Test
+    void testGetLoansByPageAndStream() {
+        // Given
+        var id = "u1";
+        Mockito.when(userService.getUserById(id)).thenReturn(new User(id, "Ana", "a@a.com"));
+        for (int i = 1; i <= 3; i++) {
+            var isbn = String.valueOf(i);
+            givenBook(new Book(isbn, "T", "A"));
+        }
+        service.addLoans(id, List.of("1", "2"));
+
+        // When
+        var stream = service.streamLoans();
+        service.addLoan(id, "3");
+        var first = service.getLoans(Page.FIRST, 2);
+        var second = service.getLoans(first.nextCursor(), 2);
+
+        // Then
+        assertEquals(List.of("1", "2"), stream.map(loan -> loan.getBook().getIsbn()).toList());
+        assertEquals(List.of("1", "2"), first.items().stream().map(loan -> loan.getBook().getIsbn()).toList());
+        assertEquals(List.of("3"), second.items().stream().map(loan -> loan.getBook().getIsbn()).toList());
+        assertFalse(second.hasNext());
+        assertEquals(0, new LoanService(bookService, userService).streamLoans().count());
+        assertThrows(IllegalArgumentException.class, () -> service.getLoans(Page.FIRST, -1));
+    }
+
+    /**
+     * Verifica que solo se archiven los préstamos terminados fuera de la
+     * ventana de recientes y que al sacarlos los activos sigan intactos.
+     */
+    @Test
+    void testArchivableLoansAndEvict() {
+        // Given
+        var id = "u1";
+        Mockito.when(userService.getUserById(id)).thenReturn(new User(id, "Ana", "a@a.com"));
+        for (int i = 1; i <= 4; i++) {
+            var isbn = String.valueOf(i);
+            givenBook(new Book(isbn, "T", "A"));
+        }
+        service.addLoans(id, List.of("1", "2", "3", "4"));
+        service.returnBooks(id, List.of("1", "2", "4"));
+
+        // When
+        var archivable = service.archivableLoans(1);
+        service.evict(archivable);
+
+        // Then
+        assertEquals(List.of("1", "2"), archivable.values().stream().map(loan -> loan.getBook().getIsbn()).toList());
+        assertEquals(List.of("3", "4"), service.getLoans().stream().map(loan -> loan.getBook().getIsbn()).toList());
+        assertThrows(NotFoundException.class, () -> service.addLoan(id, "3"));
+        assertThrows(IllegalArgumentException.class, () -> service.archivableLoans(-1));
+    }
+
+    /**
+     * Verifica las consultas por fecha y que el índice se actualice al
+     * prestar y al sacar préstamos archivados.
+     */
+    @Test
+    void testDateRangeQueries() {
+        // Given
+        var id = "u1";
+        var today = LocalDate.now();
+        Mockito.when(userService.getUserById(id)).thenReturn(new User(id, "Ana", "a@a.com"));
+        for (int i = 1; i <= 3; i++) {
+            var isbn = String.valueOf(i);
+            givenBook(new Book(isbn, "T", "A"));
+        }
+
+        // When
+        service.addLoan(id, "1", today.minusDays(40));
+        service.addLoan(id, "2", today.minusDays(10));
+        service.addLoan(id, "3");
+        service.returnBook(id, "1");
+        service.evict(service.archivableLoans(0));
+
+        // Then
+        assertEquals(List.of("2", "3"), service.getRecentLoansBetween(today.minusDays(60), today)
+                .stream().map(loan -> loan.getBook().getIsbn()).toList());
+        assertEquals(List.of("2"), service.getLoansOlderThan(7)
+                .stream().map(loan -> loan.getBook().getIsbn()).toList());
+        assertEquals(1, service.countRecentLoansOn(today));
+        assertEquals(2, service.countRecentLoansByDay(today.minusDays(60), today).size());
+        assertThrows(IllegalArgumentException.class, () -> service.getRecentLoansBetween(null, today));
+        assertThrows(IllegalArgumentException.class, () -> service.getLoansOlderThan(-1));
+    }
+
+    /**
+     * Verifica que los préstamos aparezcan como vencidos el día siguiente a su
+     * fecha de devolución y que al devolverlos dejen de estarlo.
+     */
+    @Test
+    void testCheckOverdue() {
+        // Given
+        var id = "u1";
+        var today = LocalDate.now();
+        Mockito.when(userService.getUserById(id)).thenReturn(new User(id, "Ana", "a@a.com"));
+        for (int i = 1; i <= 3; i++) {
+            var isbn = String.valueOf(i);
+            givenBook(new Book(isbn, "T", "A"));
+        }
+        service.addLoan(id, "1", today.minusDays(30));
+        service.addLoan(id, "2");
+        service.addLoan(id, "3", today.minusDays(3));
+
+        // When
+        var alreadyOverdue = service.checkOverdue(today);
+        var dueDay = service.checkOverdue(today.plusDays(Loan.DEFAULT_LOAN_DAYS - 3));
+        var nextDay = service.checkOverdue(today.plusDays(Loan.DEFAULT_LOAN_DAYS - 2));
+        service.returnBook(id, "1");
+
+        // Then
+        assertEquals(List.of("1"), alreadyOverdue.stream().map(loan -> loan.getBook().getIsbn()).toList());
+        assertTrue(dueDay.isEmpty());
+        assertEquals(List.of("3"), nextDay.stream().map(loan -> loan.getBook().getIsbn()).toList());
+        assertEquals(List.of("3"), service.getOverdueLoans().stream().map(loan -> loan.getBook().getIsbn()).toList());
+        assertEquals(List.of("2"), service.checkOverdue(today.plusDays(Loan.DEFAULT_LOAN_DAYS + 1))
+                .stream().map(loan -> loan.getBook().getIsbn()).toList());
+        assertThrows(IllegalArgumentException.class, () -> service.checkOverdue(null));
+    }
+
+    /**
+     * Verifica que un préstamo con fecha de devolución propia venza según esa
+     * fecha y que no se acepte una fecha anterior al préstamo.
+     */
+    @Test
+    void testAddLoanWithDueDate() {
+        // Given
+        var id = "u1";
+        var today = LocalDate.now();
+        Mockito.when(userService.getUserById(id)).thenReturn(new User(id, "Ana", "a@a.com"));
+        givenBook(new Book("1", "T", "A"));
+
+        // When
+        service.addLoan(id, "1", today, today.plusDays(2));
+
+        // Then
+        assertEquals(today.plusDays(2), service.getLoans().get(0).getDueDate());
+        assertTrue(service.checkOverdue(today.plusDays(2)).isEmpty());
+        assertEquals(1, service.checkOverdue(today.plusDays(3)).size());
+        assertThrows(IllegalArgumentException.class, () -> service.addLoan(id, "1", today, today.minusDays(1)));
+        assertThrows(IllegalArgumentException.class, () -> service.addLoan(id, "1", today, null));
+    }
+
+    /**
+     * Verifica que los reportes usen una foto: lo que pasa después de pedirla no la cambia.
+     */
+    @Test
+    void testAnalyticsUsesSnapshot() {
+        // Given
+        var id = "u1";
+        var today = LocalDate.now();
+        Mockito.when(userService.getUserById(id)).thenReturn(new User(id, "Ana", "a@a.com"));
+        givenBook(new Book("1", "T", "Borges"));
+        service.addLoan(id, "1", today.minusDays(6));
+        service.returnBook(id, "1", today);
+        service.addLoan(id, "1");
+
+        // When
+        var analytics = service.recentAnalytics();
+        service.returnBook(id, "1");
+
+        // Then
+        assertEquals(List.of(new LoanCount("1", 2)), analytics.mostBorrowedBooks(10));
+        assertEquals(List.of(new LoanCount("Borges", 1)), analytics.activeLoansByAuthor());
+        assertEquals(6.0, analytics.averageLoanDays().getAsDouble());
+        assertEquals(today, service.getLoans().get(0).getReturnDate());
+        assertTrue(service.recentAnalytics().activeLoansByAuthor().isEmpty());
+    }
+
+    // El mock encuentra el libro tanto con getBookByIsbn como con findBookByIsbn
+    private void givenBook(Book book) {
+        Mockito.when(bookService.getBookByIsbn(book.getIsbn())).thenReturn(book);
+        Mockito.when(bookService.findBookByIsbn(book.getIsbn())).thenReturn(Optional.of(book));
+    }
 }
@@ -0,0 +1,85 @@
+package com.dev.mxd.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Pruebas unitarias para OrderedIndex.
+ * Se valida el orden de inserción y que un lote cargado con stage
+ * solo se vea después de publish.
+ */
+class OrderedIndexTest {
+
+    /**
+     * Verifica que los valores se listen en orden de inserción
+     * y que un reemplazo pase al final.
+     */
+    @Test
+    void testKeepsInsertionOrder() {
+        var index = new OrderedIndex<String, Integer>();
+        index.put("b", 1);
+        index.put("a", 2);
+        index.put("c", 3);
+        index.remove("a");
+        index.put("b", 4);
+
+        assertEquals(List.of(3, 4), index.values());
+        assertNull(index.get("a"));
+        assertNull(index.remove("a"));
+    }
+
+    /**
+     * Verifica que un lote ocupe sus claves pero no se vea hasta publicarlo,
+     * y que al descartarlo libere las claves.
+     */
+    @Test
+    void testStagePublishAndDiscard() {
+        // Given
+        var index = new OrderedIndex<String, Integer>();
+        index.put("a", 1);
+        var batch = new LinkedHashMap<String, Integer>();
+        batch.put("b", 2);
+        batch.put("c", 3);
+
+        // When
+        var publication = index.stage(batch);
+
+        // Then
+        assertTrue(index.containsKey("b"));
+        assertNull(index.get("b"));
+        assertEquals(List.of(1), index.values());
+        index.publish(publication);
+        assertEquals(List.of(1, 2, 3), index.values());
+
+        var discarded = new LinkedHashMap<String, Integer>();
+        discarded.put("d", 4);
+        index.discard(discarded, index.stage(discarded));
+        assertFalse(index.containsKey("d"));
+        assertEquals(List.of(1, 2, 3), index.values());
+    }
+
+    /**
+     * Verifica que replace cambie el valor sin moverlo en el orden
+     * y que falle con una clave que no existe.
+     */
+    @Test
+    void testReplaceKeepsPosition() {
+        var index = new OrderedIndex<String, Integer>();
+        index.put("a", 1);
+        index.put("b", 2);
+
+        index.replace("a", 3);
+
+        assertEquals(List.of(3, 2), index.values());
+        assertEquals(3, index.get("a"));
+        assertThrows(IllegalArgumentException.class, () -> index.replace("z", 4));
+    }
+}
@@ -0,0 +1,53 @@
+package com.dev.mxd.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.dev.mxd.model.Book;
+import com.dev.mxd.model.Loan;
+import com.dev.mxd.model.LoanState;
+import com.dev.mxd.model.User;
+
+/**
+ * Pruebas unitarias para OverdueTracker.
+ * Se valida que los préstamos venzan el día correcto, también los que
+ * caen a más de una vuelta de la rueda, y que cancelar los saque.
+ */
+class OverdueTrackerTest {
+
+    private final User user = new User("u1", "Ana", "a@a.com");
+
+    /**
+     * Verifica vencimientos dentro y fuera de la primera vuelta, y la cancelación.
+     */
+    @Test
+    void testExpiresOnTheRightDay() {
+        var start = LocalDate.of(2024, 1, 1);
+        var tracker = new OverdueTracker(start);
+        var soon = loan("1", start, start.plusDays(2));
+        var far = loan("2", start, start.plusDays(OverdueTracker.SLOTS + 5));
+        var cancelled = loan("3", start, start.plusDays(2));
+        tracker.schedule(soon);
+        tracker.schedule(far);
+        tracker.schedule(cancelled);
+        tracker.cancel(cancelled);
+
+        assertTrue(tracker.advance(start.plusDays(2)).isEmpty());
+        assertEquals(List.of(soon), tracker.advance(start.plusDays(3)));
+        assertTrue(tracker.advance(start.plusDays(OverdueTracker.SLOTS + 5)).isEmpty());
+        assertEquals(List.of(far), tracker.advance(start.plusDays(OverdueTracker.SLOTS + 6)));
+        assertEquals(List.of(soon, far), tracker.overdue());
+
+        tracker.cancel(soon);
+        assertEquals(List.of(far), tracker.overdue());
+    }
+
+    private Loan loan(String isbn, LocalDate loanDate, LocalDate dueDate) {
+        return new Loan(user, new Book(isbn, "T", "A"), loanDate, dueDate, LoanState.STARTED);
+    }
+}
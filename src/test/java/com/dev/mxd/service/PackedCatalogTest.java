@@ -0,0 +1,265 @@
+package com.dev.mxd.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.dev.mxd.exception.NotFoundException;
+import com.dev.mxd.model.Book;
+
+/**
+ * Pruebas unitarias para PackedCatalog.
+ * Se usan bloques chicos para que los libros queden repartidos en
+ * varios bloques de memoria y la tabla tenga que crecer.
+ */
+class PackedCatalogTest {
+
+    /**
+     * Verifica alta, búsqueda, borrado y volver a dar de alta el mismo ISBN.
+     */
+    @Test
+    void testAddGetDelete() {
+        // Given
+        var catalog = new PackedCatalog(64);
+
+        // When
+        catalog.addBook("1", "Cien años de soledad", "Gabriel García Márquez");
+        catalog.addBook("2", "Rayuela", "Julio Cortázar");
+        catalog.deleteBook("1");
+        catalog.addBook("1", "Ficciones", "Jorge Luis Borges");
+
+        // Then
+        assertEquals(2, catalog.size());
+        assertEquals("Ficciones", catalog.getBookByIsbn("1").getTitle());
+        assertEquals("Julio Cortázar", catalog.getBookByIsbn("2").getAuthor());
+        assertTrue(catalog.usedBytes() > 0);
+        assertThrows(IllegalArgumentException.class, () -> catalog.addBook("2", "Otro", "Autor"));
+        assertThrows(NotFoundException.class, () -> catalog.getBookByIsbn("3"));
+        assertThrows(NotFoundException.class, () -> catalog.deleteBook("3"));
+        assertThrows(IllegalArgumentException.class, () -> catalog.addBook(" ", "Titulo", "Autor"));
+    }
+
+    /**
+     * Verifica que con muchos libros y borrados intercalados las búsquedas
+     * sigan funcionando y las páginas respeten el orden de alta.
+     */
+    @Test
+    void testManyBooksAndPaging() {
+        // Given
+        var catalog = new PackedCatalog(256);
+        for (int i = 0; i < 10_000; i++) {
+            catalog.addBook("isbn-" + i, "Titulo " + i, "Autor");
+            if (i % 3 == 0) {
+                catalog.deleteBook("isbn-" + i);
+            }
+        }
+
+        // When
+        var isbns = new ArrayList<String>();
+        var page = catalog.getBooks(Page.FIRST, 100);
+        page.items().forEach(book -> isbns.add(book.getIsbn()));
+        while (page.hasNext()) {
+            page = catalog.getBooks(page.nextCursor(), 100);
+            page.items().forEach(book -> isbns.add(book.getIsbn()));
+        }
+
+        // Then
+        assertEquals(6_666, catalog.size());
+        assertEquals(6_666, isbns.size());
+        assertEquals(List.of("isbn-1", "isbn-2", "isbn-4"), isbns.subList(0, 3));
+        assertEquals("Titulo 9998", catalog.getBookByIsbn("isbn-9998").getTitle());
+        assertThrows(NotFoundException.class, () -> catalog.getBookByIsbn("isbn-9999"));
+        var all = new ArrayList<Book>();
+        catalog.forEach(all::add);
+        assertEquals(isbns, all.stream().map(Book::getIsbn).toList());
+        assertFalse(new PackedCatalog().getBooks(Page.FIRST, 10).hasNext());
+        assertThrows(IllegalArgumentException.class, () -> catalog.getBooks(-5, 10));
+    }
+
+    /**
+     * Verifica que un lote cargado no se vea hasta publicarlo, que ocupe sus
+     * ISBN y que al descartarlo los libere.
+     */
+    @Test
+    void testStagePublishAndDiscard() {
+        // Given
+        var catalog = new PackedCatalog(64);
+        catalog.addBook("1", "Rayuela", "Julio Cortázar");
+        var batch = List.of(new Book("2", "Ficciones", "Jorge Luis Borges"),
+                new Book("3", "El Aleph", "Jorge Luis Borges"));
+
+        // When
+        var staged = catalog.stage(batch);
+
+        // Then
+        assertNull(catalog.get("2"));
+        assertTrue(catalog.contains("2"));
+        assertEquals(1, catalog.size());
+        assertThrows(IllegalArgumentException.class, () -> catalog.addBook("3", "Otro", "Autor"));
+        staged.publish();
+        assertEquals(3, catalog.size());
+        assertEquals("El Aleph", catalog.getBookByIsbn("3").getTitle());
+
+        // When
+        var discarded = catalog.stage(List.of(new Book("4", "Boquitas pintadas", "Manuel Puig")));
+        discarded.discard();
+
+        // Then
+        assertFalse(catalog.contains("4"));
+        assertEquals(List.of("1", "2", "3"), catalog.values().stream().map(Book::getIsbn).toList());
+        catalog.addBook("4", "Boquitas pintadas", "Manuel Puig");
+        assertEquals(4, catalog.size());
+    }
+
+    /**
+     * Verifica que un lote con un ISBN ocupado no deje nada cargado.
+     */
+    @Test
+    void testStageFailureLeavesNothing() {
+        // Given
+        var catalog = new PackedCatalog(64);
+        catalog.addBook("2", "Rayuela", "Julio Cortázar");
+        var batch = List.of(new Book("1", "Ficciones", "Jorge Luis Borges"),
+                new Book("2", "Otro", "Autor"));
+
+        // When / Then
+        assertThrows(IllegalArgumentException.class, () -> catalog.stage(batch));
+        assertFalse(catalog.contains("1"));
+        assertEquals(1, catalog.size());
+    }
+
+    /**
+     * Verifica que al borrar la mayoría de los libros el catálogo se compacte,
+     * conserve los que quedan en orden y rechace los cursores anteriores.
+     */
+    @Test
+    void testCompactionReusesSpace() {
+        // Given
+        var catalog = new PackedCatalog(256);
+        for (int i = 0; i < 1_000; i++) {
+            catalog.addBook("isbn-" + i, "Titulo " + i, "Autor");
+        }
+        long before = catalog.usedBytes();
+        var page = catalog.getBooks(Page.FIRST, 10);
+
+        // When
+        for (int i = 0; i < 1_000; i++) {
+            if (i % 10 != 0) {
+                catalog.deleteBook("isbn-" + i);
+            }
+        }
+
+        // Then
+        assertEquals(100, catalog.size());
+        assertTrue(catalog.usedBytes() < before / 2);
+        assertEquals("Titulo 990", catalog.getBookByIsbn("isbn-990").getTitle());
+        assertEquals(List.of("isbn-0", "isbn-10", "isbn-20"),
+                catalog.getBooks(Page.FIRST, 3).items().stream().map(Book::getIsbn).toList());
+        assertThrows(IllegalArgumentException.class, () -> catalog.getBooks(page.nextCursor(), 10));
+        catalog.addBook("isbn-1", "Titulo nuevo", "Autor");
+        assertEquals("Titulo nuevo", catalog.getBookByIsbn("isbn-1").getTitle());
+    }
+
+    /**
+     * Verifica que los libros del mismo autor compartan el String del autor y
+     * que leer dos veces el mismo libro devuelva el mismo objeto.
+     */
+    @Test
+    void testReadsShareAuthorAndBook() {
+        // Given
+        var catalog = new PackedCatalog(64);
+        catalog.addBook("1", "Ficciones", new String("Jorge Luis Borges"));
+        catalog.addBook("2", "El Aleph", new String("Jorge Luis Borges"));
+
+        // When
+        var first = catalog.getBookByIsbn("1");
+
+        // Then
+        assertSame(first.getAuthor(), catalog.getBookByIsbn("2").getAuthor());
+        assertSame(first, catalog.getBookByIsbn("1"));
+        catalog.deleteBook("1");
+        assertNull(catalog.get("1"));
+    }
+
+    /**
+     * Verifica que una vista fija no vea las altas, bajas ni publicaciones
+     * posteriores, y que al cerrarla se apliquen y se pueda compactar.
+     */
+    @Test
+    void testFrozenViewIgnoresLaterChanges() {
+        // Given
+        var catalog = new PackedCatalog(64);
+        for (int i = 0; i < 100; i++) {
+            catalog.addBook("isbn-" + i, "Titulo " + i, "Autor");
+        }
+        var staged = catalog.stage(List.of(new Book("nuevo", "Nuevo", "Autor")));
+        long before = catalog.usedBytes();
+
+        // When
+        var frozen = catalog.freeze();
+        for (int i = 1; i < 100; i++) {
+            catalog.deleteBook("isbn-" + i);
+        }
+        catalog.addBook("otro", "Otro", "Autor");
+        staged.publish();
+
+        // Then
+        assertEquals(100, frozen.size());
+        var isbns = new ArrayList<String>();
+        frozen.forEach(book -> isbns.add(book.getIsbn()));
+        assertEquals(100, isbns.size());
+        assertEquals("isbn-99", isbns.get(99));
+        assertEquals(List.of("isbn-0", "nuevo", "otro"), catalog.values().stream().map(Book::getIsbn).toList());
+        assertThrows(IllegalStateException.class, catalog::freeze);
+        assertTrue(catalog.usedBytes() > before);
+        frozen.close();
+        assertTrue(catalog.usedBytes() < before);
+        assertEquals(List.of("isbn-0", "nuevo", "otro"), catalog.values().stream().map(Book::getIsbn).toList());
+        assertThrows(IllegalStateException.class, () -> frozen.iterator().hasNext());
+    }
+
+    /**
+     * Verifica que stream lea de a tandas sin perder ni repetir libros aunque
+     * el catálogo se compacte a mitad del recorrido.
+     */
+    @Test
+    void testStreamSurvivesCompaction() {
+        // Given
+        var catalog = new PackedCatalog(256);
+        for (int i = 0; i < 1_000; i++) {
+            catalog.addBook("isbn-" + i, "Titulo " + i, "Autor");
+        }
+        var books = catalog.stream().iterator();
+        var seen = new ArrayList<String>();
+        for (int i = 0; i < 300; i++) {
+            seen.add(books.next().getIsbn());
+        }
+        long before = catalog.usedBytes();
+
+        // When: se borran casi todos los que faltan y el catálogo se compacta
+        for (int i = 300; i < 1_000; i++) {
+            if (i % 100 != 0) {
+                catalog.deleteBook("isbn-" + i);
+            }
+        }
+        books.forEachRemaining(book -> seen.add(book.getIsbn()));
+
+        // Then: en orden, sin repetidos y con todos los que quedaron (los que ya
+        // estaban leídos en la tanda en curso pueden aparecer aunque se borraran)
+        assertTrue(catalog.usedBytes() < before / 2);
+        var numbers = seen.stream().map(isbn -> Integer.parseInt(isbn.substring(5))).toList();
+        for (int i = 1; i < numbers.size(); i++) {
+            assertTrue(numbers.get(i - 1) < numbers.get(i));
+        }
+        assertTrue(seen.containsAll(catalog.values().stream().map(Book::getIsbn).toList()));
+        assertEquals("isbn-900", seen.get(seen.size() - 1));
+    }
+}
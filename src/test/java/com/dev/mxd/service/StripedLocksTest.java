@@ -0,0 +1,64 @@
+package com.dev.mxd.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Pruebas unitarias para StripedLocks.
+ * Se valida el redondeo de la cantidad de candados
+ * y que una misma clave siempre use el mismo candado.
+ */
+class StripedLocksTest {
+
+    /**
+     * Verifica que la cantidad de candados se redondee a potencia de dos.
+     */
+    @Test
+    void testSizeIsRoundedToPowerOfTwo() {
+        assertEquals(1, new StripedLocks(1).size());
+        assertEquals(64, new StripedLocks(64).size());
+        assertEquals(128, new StripedLocks(65).size());
+    }
+
+    /**
+     * Verifica que la misma clave reciba siempre el mismo candado.
+     */
+    @Test
+    void testSameKeySameLock() {
+        var locks = new StripedLocks(16);
+
+        assertSame(locks.lockFor("978-84-376-0494-7"), locks.lockFor(new String("978-84-376-0494-7")));
+    }
+
+    /**
+     * Verifica que no se acepte una cantidad de candados no positiva.
+     */
+    @Test
+    void testInvalidSize() {
+        assertThrows(IllegalArgumentException.class, () -> new StripedLocks(0));
+    }
+
+    /**
+     * Verifica que locksFor devuelva cada candado una sola vez y en orden de posición.
+     */
+    @Test
+    void testLocksForAreDistinctAndOrdered() {
+        var locks = new StripedLocks(4);
+        var keys = List.of("a", "b", "c", "d", "e", "a");
+
+        var ordered = locks.locksFor(keys);
+
+        // Cada clave tiene su candado en la lista, sin repetidos y en orden de posición
+        var byStripe = new TreeMap<Integer, Object>();
+        keys.forEach(key -> byStripe.put(locks.stripeOf(key), locks.lockFor(key)));
+        assertEquals(List.copyOf(byStripe.values()), ordered);
+        assertTrue(locks.locksFor(List.of()).isEmpty());
+    }
+}
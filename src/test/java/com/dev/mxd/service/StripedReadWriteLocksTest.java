@@ -0,0 +1,63 @@
+package com.dev.mxd.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Pruebas unitarias para StripedReadWriteLocks.
+ * Se valida el redondeo de la cantidad de candados y que las lecturas
+ * de una misma posición se compartan y excluyan a las escrituras.
+ */
+class StripedReadWriteLocksTest {
+
+    /**
+     * Verifica el tamaño, que la misma clave use el mismo candado y que no se
+     * acepte una cantidad no positiva.
+     */
+    @Test
+    void testSizeAndSameKeySameLock() {
+        var locks = new StripedReadWriteLocks(65);
+
+        assertEquals(128, locks.size());
+        assertEquals(1, new StripedReadWriteLocks(1).size());
+        assertSame(locks.lockFor("u1"), locks.lockFor(new String("u1")));
+        assertThrows(IllegalArgumentException.class, () -> new StripedReadWriteLocks(0));
+    }
+
+    /**
+     * Verifica que otro hilo pueda leer mientras se lee, pero no escribir.
+     */
+    @Test
+    void testReadsAreSharedAndExcludeWrites() throws Exception {
+        // Given: un solo candado, así todas las claves comparten posición
+        var locks = new StripedReadWriteLocks(1);
+        var pool = Executors.newSingleThreadExecutor();
+        locks.lockFor("a").readLock().lock();
+        try {
+            // When
+            var read = pool.submit(() -> {
+                boolean taken = locks.lockFor("b").readLock().tryLock();
+                if (taken) {
+                    locks.lockFor("b").readLock().unlock();
+                }
+                return taken;
+            });
+            var write = pool.submit(() -> locks.lockFor("b").writeLock().tryLock());
+
+            // Then
+            assertTrue(read.get(5, TimeUnit.SECONDS));
+            assertFalse(write.get(5, TimeUnit.SECONDS));
+        } finally {
+            locks.lockFor("a").readLock().unlock();
+            pool.shutdown();
+        }
+    }
+}
@@ -5,10 +5,18 @@ import static org.junit.jupiter.api.Assertions.*;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import com.dev.mxd.bulk.RejectedRow;
 import com.dev.mxd.exception.NotFoundException;
 import com.dev.mxd.model.User;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Pruebas unitarias para UserService.
@@ -161,6 +169,28 @@ class UserServiceTest {
         assertEquals(email, user.getEmail());
     }
 
+    /**
+     * Verifica que un cambio de email publique una copia del usuario en el mismo
+     * lugar del listado, sin tocar el objeto anterior.
+     */
+    @Test
+    void testUpdateUserEmailPublishesCopy() throws NotFoundException {
+        // Given
+        service.addUser("1", "Ana", "ana@mail.com");
+        service.addUser("2", "Luis", "luis@mail.com");
+        var before = service.getUserById("1");
+
+        // When
+        service.updateUserEmail("1", "ana.maria@mail.com");
+
+        // Then
+        assertEquals("ana@mail.com", before.getEmail());
+        assertEquals(List.of("1", "2"), service.getAllUsers().stream().map(User::getId).toList());
+        assertEquals("ana.maria@mail.com", service.getUserById("1").getEmail());
+        assertEquals("1", service.findUserByEmail("ANA.MARIA@mail.com").orElseThrow().getId());
+        assertTrue(service.findUserByEmail("ana@mail.com").isEmpty());
+    }
+
     /**
      * Verifica que al buscar un usuario inexistente se lance NotFoundException.
      */
@@ -175,6 +205,24 @@ class UserServiceTest {
         });
     }
 
+    /**
+     * Verifica que findUserById devuelva el usuario o un Optional vacío sin lanzar excepciones.
+     */
+    @Test
+    void testFindUserById() {
+        // Given
+        service.addUser("123", "Xavi", "xavi@gmail.com");
+
+        // When
+        var found = service.findUserById("123");
+        var missing = service.findUserById("456");
+
+        // Then
+        assertEquals("Xavi", found.orElseThrow().getName());
+        assertTrue(missing.isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> service.findUserById(null));
+    }
+
      /**
      * Verifica que no se pueda agregar un usuario con todos los parámetros nulos.
      */
@@ -595,4 +643,230 @@ class UserServiceTest {
         assertEquals("Kevin Sanchez", user.getName());
         assertEquals("ksanchez@gmail.com", user.getEmail());
     }
+
+    /**
+     * Verifica que no se pueda registrar dos veces el mismo ID.
+     */
+    @Test
+    void testAddUserWithDuplicateId() {
+        // Given
+        service.addUser("123", "Marlon Delgado", "marlondev@gmail.com");
+
+        // When & Then
+        assertThrows(IllegalArgumentException.class, () -> {
+            service.addUser("123", "Otro Nombre", "otro@gmail.com");
+        });
+        assertEquals(1, service.getAllUsers().size());
+    }
+
+    /**
+     * Verifica que no se pueda registrar un email ya usado,
+     * aunque cambien las mayúsculas.
+     */
+    @Test
+    void testAddUserWithDuplicateEmailIgnoringCase() {
+        // Given
+        service.addUser("123", "Marlon Delgado", "marlondev@gmail.com");
+
+        // When & Then
+        assertThrows(IllegalArgumentException.class, () -> {
+            service.addUser("456", "Kevin Sanchez", "MarlonDev@Gmail.com", LocalDate.now());
+        });
+        assertEquals(1, service.getAllUsers().size());
+    }
+
+    /**
+     * Verifica que se pueda buscar un usuario por email sin distinguir mayúsculas.
+     */
+    @Test
+    void testFindUserByEmail() {
+        // Given
+        service.addUser("123", "Marlon Delgado", "marlondev@gmail.com");
+
+        // When
+        var user = service.findUserByEmail("MARLONDEV@gmail.com");
+
+        // Then
+        assertTrue(user.isPresent());
+        assertEquals("123", user.get().getId());
+        assertTrue(service.findUserByEmail("nadie@gmail.com").isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> service.findUserByEmail(null));
+    }
+
+    /**
+     * Verifica que al cambiar el email se actualice el índice:
+     * el email viejo queda libre y el nuevo apunta al usuario.
+     */
+    @Test
+    void testUpdateUserEmailReindexes() {
+        // Given
+        service.addUser("123", "Marlon Delgado", "marlondev@gmail.com");
+
+        // When
+        service.updateUserEmail("123", "marlon.delgado@gmail.com");
+
+        // Then
+        assertTrue(service.findUserByEmail("marlondev@gmail.com").isEmpty());
+        assertEquals("123", service.findUserByEmail("marlon.delgado@gmail.com").get().getId());
+        service.addUser("456", "Kevin Sanchez", "marlondev@gmail.com");
+        assertEquals(2, service.getAllUsers().size());
+    }
+
+    /**
+     * Verifica que no se pueda cambiar el email a uno que ya usa otro usuario,
+     * pero sí cambiar solo las mayúsculas del propio.
+     */
+    @Test
+    void testUpdateUserEmailToTakenEmail() {
+        // Given
+        service.addUser("123", "Marlon Delgado", "marlondev@gmail.com");
+        service.addUser("456", "Kevin Sanchez", "ksanchez@gmail.com");
+
+        // When & Then
+        assertThrows(IllegalArgumentException.class, () -> {
+            service.updateUserEmail("456", "MARLONDEV@gmail.com");
+        });
+        assertEquals("ksanchez@gmail.com", service.getUserById("456").getEmail());
+
+        service.updateUserEmail("123", "MarlonDev@gmail.com");
+        assertEquals("MarlonDev@gmail.com", service.getUserById("123").getEmail());
+    }
+
+    /**
+     * Verifica que al eliminar un usuario su email quede libre.
+     */
+    @Test
+    void testDeleteUserReleasesEmail() {
+        // Given
+        service.addUser("123", "Marlon Delgado", "marlondev@gmail.com");
+
+        // When
+        service.deleteUser("123");
+
+        // Then
+        assertTrue(service.findUserByEmail("marlondev@gmail.com").isEmpty());
+        service.addUser("456", "Kevin Sanchez", "marlondev@gmail.com");
+        assertEquals("456", service.getUserById("456").getId());
+    }
+
+    /**
+     * Verifica que la importación cargue los usuarios con su fecha de registro
+     * y rechace con su línea las filas inválidas o repetidas
+     * (gana la primera aparición en el archivo).
+     */
+    @Test
+    void testImportUsers() throws IOException {
+        // Given
+        service.addUser("1", "Existente", "existente@mail.com");
+        var csv = "id,name,email,registerDate\n"
+                + "2,Ana,ana@mail.com,2024-02-01\n"
+                + "3,Luis,luis@mail.com\n"
+                + "2,Otra Ana,otra@mail.com,2024-02-01\n"
+                + "4,Eva,ANA@mail.com,2024-02-01\n"
+                + "1,Repetido,nuevo@mail.com,2024-02-01\n"
+                + "5,Sin fecha,sin@mail.com,01/02/2024\n"
+                + "6,Incompleto\n";
+
+        // When
+        var report = service.importUsers(new StringReader(csv));
+
+        // Then
+        assertEquals(2, report.imported());
+        assertEquals(List.of(4L, 5L, 6L, 7L, 8L), report.rejected().stream().map(RejectedRow::line).toList());
+        assertTrue(report.rejected().get(0).reason().contains("línea 2"));
+        assertEquals(LocalDate.of(2024, 2, 1), service.getUserById("2").getRegisterDate());
+        assertEquals("3", service.findUserByEmail("LUIS@mail.com").orElseThrow().getId());
+        assertEquals(List.of("1", "2", "3"), service.getAllUsers().stream().map(User::getId).toList());
+        assertThrows(IllegalArgumentException.class, () -> service.importUsers((Reader) null));
+    }
+
+    /**
+     * Verifica que una fila inválida no ocupe el ID ni el email de una fila
+     * válida posterior.
+     */
+    @Test
+    void testImportUsersInvalidRowDoesNotClaimId() throws IOException {
+        // Given: la fila 2 tiene una fecha inválida y la 3 repite su ID y su email
+        var csv = "id,name,email,registerDate\n"
+                + "7,Ana,ana@mail.com,01/02/2024\n"
+                + "7,Ana,ana@mail.com,2024-02-01\n"
+                + "8,Luis,luis@mail.com\n"
+                + "8,Otro Luis,ANA@mail.com\n";
+
+        // When
+        var report = service.importUsers(new StringReader(csv));
+
+        // Then
+        assertEquals(2, report.imported());
+        assertEquals(List.of(2L, 5L), report.rejected().stream().map(RejectedRow::line).toList());
+        assertTrue(report.rejected().get(1).reason().contains("línea 4"));
+        assertEquals(LocalDate.of(2024, 2, 1), service.getUserById("7").getRegisterDate());
+        assertEquals("Luis", service.getUserById("8").getName());
+    }
+
+    /**
+     * Verifica que las consultas funcionen mientras otro hilo registra usuarios.
+     */
+    @Test
+    void testReadsDuringConcurrentWrites() throws Exception {
+        // Given
+        service.addUser("0", "Base", "base@mail.com");
+        var pool = Executors.newFixedThreadPool(2);
+
+        // When
+        var writer = pool.submit(() -> {
+            for (int i = 1; i <= 2000; i++) {
+                service.addUser(String.valueOf(i), "Usuario", "u" + i + "@mail.com");
+            }
+        });
+        var reader = pool.submit(() -> {
+            while (!writer.isDone()) {
+                assertEquals("Base", service.getUserById("0").getName());
+                service.getAllUsers();
+            }
+        });
+        writer.get(10, TimeUnit.SECONDS);
+        reader.get(10, TimeUnit.SECONDS);
+        pool.shutdown();
+
+        // Then
+        assertEquals(2001, service.getAllUsers().size());
+    }
+
+    /**
+     * Verifica que los usuarios se puedan recorrer por páginas con cursor
+     * mientras otro hilo sigue registrando, sin perder ni repetir usuarios.
+     */
+    @Test
+    void testGetUsersByPageDuringConcurrentWrites() throws Exception {
+        // Given
+        for (int i = 0; i < 100; i++) {
+            service.addUser(String.valueOf(i), "Usuario", "u" + i + "@mail.com");
+        }
+        var pool = Executors.newSingleThreadExecutor();
+
+        // When
+        var writer = pool.submit(() -> {
+            for (int i = 100; i < 1000; i++) {
+                service.addUser(String.valueOf(i), "Usuario", "u" + i + "@mail.com");
+            }
+        });
+        var ids = new ArrayList<String>();
+        var page = service.getUsers(Page.FIRST, 7);
+        ids.addAll(page.items().stream().map(User::getId).toList());
+        while (page.hasNext()) {
+            page = service.getUsers(page.nextCursor(), 7);
+            ids.addAll(page.items().stream().map(User::getId).toList());
+        }
+        writer.get(10, TimeUnit.SECONDS);
+        pool.shutdown();
+
+        // Then
+        assertTrue(ids.size() >= 100);
+        for (int i = 0; i < ids.size(); i++) {
+            assertEquals(String.valueOf(i), ids.get(i));
+        }
+        assertEquals(1000, service.streamUsers().count());
+        assertThrows(IllegalArgumentException.class, () -> service.getUsers(Page.FIRST, 0));
+    }
 }